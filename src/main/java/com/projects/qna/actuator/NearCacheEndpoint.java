@@ -0,0 +1,43 @@
+package com.projects.qna.actuator;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.projects.qna.cache.NearCache;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+@Endpoint(id = "nearcache")
+@Component
+@RequiredArgsConstructor
+public class NearCacheEndpoint {
+
+    private final NearCache nearCache;
+
+    public record RegionStats(long size, double hitRatio, long hits, long misses, long evictions) {
+    }
+
+    public record Invalidations(boolean listening, long received, double meanLagMillis, double maxLagMillis) {
+    }
+
+    public record NearCacheStats(Map<String, RegionStats> regions, Invalidations invalidations) {
+    }
+
+    @ReadOperation
+    public NearCacheStats stats() {
+        Map<String, RegionStats> regions = new TreeMap<>();
+        nearCache.getRegions().forEach(region -> {
+            CacheStats stats = region.stats();
+            regions.put(region.name(), new RegionStats(region.size(), stats.hitRate(), stats.hitCount(),
+                    stats.missCount(), stats.evictionCount()));
+        });
+        Timer lag = nearCache.getInvalidationLag();
+        return new NearCacheStats(regions, new Invalidations(nearCache.isListening(), lag.count(),
+                lag.mean(TimeUnit.MILLISECONDS), lag.max(TimeUnit.MILLISECONDS)));
+    }
+}
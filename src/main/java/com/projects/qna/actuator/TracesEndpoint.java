@@ -0,0 +1,61 @@
+package com.projects.qna.actuator;
+
+import com.projects.qna.tracing.TraceRing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The recent slow requests kept by {@link TraceRing}, newest first, each as a tree of spans. Spans
+ * whose parent is no longer in the ring are shown as further roots.
+ */
+@Endpoint(id = "traces")
+@Component
+@RequiredArgsConstructor
+public class TracesEndpoint {
+
+    private final TraceRing traceRing;
+
+    public record SpanNode(String name, String spanId, Instant start, double millis, String error,
+                           Map<String, String> tags, List<SpanNode> children) {
+    }
+
+    public record Trace(String traceId, Instant start, double millis, List<SpanNode> spans) {
+    }
+
+    @ReadOperation
+    public List<Trace> traces(@Nullable Long minMillis) {
+        return traceRing.getSlowTraces().stream()
+                .filter(trace -> minMillis == null || trace.duration().toMillis() >= minMillis)
+                .map(trace -> new Trace(trace.traceId(), trace.start(), millis(trace.duration().toNanos()),
+                        tree(trace.spans())))
+                .toList();
+    }
+
+    // spans come ordered by start, so children end up in order too
+    static List<SpanNode> tree(List<TraceRing.TraceSpan> spans) {
+        Map<String, SpanNode> nodes = new HashMap<>();
+        for (TraceRing.TraceSpan span : spans) {
+            nodes.put(span.spanId(), new SpanNode(span.name(), span.spanId(), span.start(),
+                    millis(span.duration().toNanos()), span.error(), span.tags(), new ArrayList<>()));
+        }
+        List<SpanNode> roots = new ArrayList<>();
+        for (TraceRing.TraceSpan span : spans) {
+            SpanNode parent = span.parentId() == null ? null : nodes.get(span.parentId());
+            (parent == null ? roots : parent.children()).add(nodes.get(span.spanId()));
+        }
+        return roots;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,26 @@
+package com.projects.qna.auth;
+
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Decides who may call the /admin endpoints: the users listed in {@code qna.admin.user-ids}.
+ * Without {@code qna.auth.enabled} there is no authenticated caller, so nobody may.
+ */
+@Component
+public class AdminAccess {
+
+    private final Set<Long> adminIds;
+
+    public AdminAccess(@Value("${qna.admin.user-ids}") Set<Long> adminIds) {
+        this.adminIds = Set.copyOf(adminIds);
+    }
+
+    public void check(Long callerId) {
+        if (callerId == null || !adminIds.contains(callerId)) throw ServiceException.of(ServiceError.FORBIDDEN);
+    }
+}
@@ -0,0 +1,21 @@
+package com.projects.qna.auth;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnProperty(name = "qna.auth.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AuthConfig implements WebMvcConfigurer {
+
+    private final TokenService tokenService;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AuthInterceptor(tokenService))
+                .excludePathPatterns("/auth/**", "/welcome", "/swagger-ui/**", "/v3/api-docs/**");
+    }
+}
@@ -0,0 +1,29 @@
+package com.projects.qna.auth;
+
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
+import lombok.Data;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@Data
+@RequestMapping("/auth")
+public class AuthController {
+
+    private final TokenService tokenService;
+
+    @PostMapping("/login")
+    @Operation(summary = "Log in", description = "Exchange email and password for a bearer token")
+    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
+        return ResponseEntity.ok(tokenService.login(request));
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "Log out", description = "Revoke the bearer token sent with the request")
+    public ResponseEntity<String> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        tokenService.logout(authorization.replaceFirst("^Bearer ", ""));
+        return ResponseEntity.ok("Logged out");
+    }
+}
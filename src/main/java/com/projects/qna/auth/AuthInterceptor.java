@@ -0,0 +1,42 @@
+package com.projects.qna.auth;
+
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+@RequiredArgsConstructor
+public class AuthInterceptor implements HandlerInterceptor {
+
+    public static final String USER_ID_ATTRIBUTE = "qna.auth.userId";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final TokenService tokenService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            tokenService.authenticate(header.substring(BEARER_PREFIX.length()))
+                    .ifPresent(userId -> request.setAttribute(USER_ID_ATTRIBUTE, userId));
+        }
+        if (requiresAuthentication(request) && request.getAttribute(USER_ID_ATTRIBUTE) == null) {
+            throw new ServiceException(ServiceError.UNAUTHORIZED);
+        }
+        return true;
+    }
+
+    private boolean requiresAuthentication(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method)) {
+            return false;
+        }
+        // signing up has to work without a token
+        return !(HttpMethod.POST.matches(method) && "/users".equals(request.getServletPath()));
+    }
+}
@@ -0,0 +1,18 @@
+package com.projects.qna.auth;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoginRequest {
+    @NotBlank
+    @Email
+    private String email;
+    @NotBlank
+    private String password;
+}
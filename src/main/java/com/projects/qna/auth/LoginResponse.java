@@ -0,0 +1,14 @@
+package com.projects.qna.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class LoginResponse {
+    private String token;
+    private Long userId;
+    private Instant expiresAt;
+}
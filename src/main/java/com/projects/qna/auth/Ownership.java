@@ -0,0 +1,15 @@
+package com.projects.qna.auth;
+
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+
+public final class Ownership {
+
+    private Ownership() {
+    }
+
+    // callerId is the authenticated user, null when qna.auth.enabled is off and every caller may change anything
+    public static void check(Long callerId, Long ownerId) {
+        if (callerId != null && !callerId.equals(ownerId)) throw ServiceException.of(ServiceError.FORBIDDEN);
+    }
+}
@@ -0,0 +1,90 @@
+package com.projects.qna.auth;
+
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Runs bcrypt on a small dedicated pool so that bursts of signups and logins queue up (and are
+ * rejected once the queue is full) instead of taking every request thread and CPU core.
+ */
+@Component
+public class PasswordHasher {
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[aby]\\$\\d{2}\\$[./A-Za-z0-9]{53}");
+
+    private final BCryptPasswordEncoder encoder;
+
+    private final ExecutorService executor;
+
+    private final Timer hashTimer;
+
+    private final Timer verifyTimer;
+
+    public PasswordHasher(@Value("${qna.auth.bcrypt-strength}") int strength,
+                          @Value("${qna.auth.hash-threads}") int threads,
+                          @Value("${qna.auth.hash-queue}") int queueSize,
+                          MeterRegistry meterRegistry) {
+        this.encoder = new BCryptPasswordEncoder(strength);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), Thread.ofPlatform().name("password-hasher-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "password-hasher");
+        this.hashTimer = meterRegistry.timer("qna.auth.password", "operation", "hash");
+        this.verifyTimer = meterRegistry.timer("qna.auth.password", "operation", "verify");
+    }
+
+    public String hash(String rawPassword) {
+        return run(() -> hashTimer.record(() -> encoder.encode(rawPassword)));
+    }
+
+    // hashed is users.passwordHashed: false for rows created before hashing was introduced, which the
+    // caller upgrades on success
+    public boolean matches(String rawPassword, String storedPassword, boolean hashed) {
+        if (storedPassword == null) return false;
+        if (!hashed) {
+            return MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                    storedPassword.getBytes(StandardCharsets.UTF_8));
+        }
+        return run(() -> verifyTimer.record(() -> encoder.matches(rawPassword, storedPassword)));
+    }
+
+    // the format BCryptPasswordEncoder produces, for input that has to arrive hashed such as bulk imports
+    public static boolean isBcryptHash(String value) {
+        return value != null && BCRYPT_HASH.matcher(value).matches();
+    }
+
+    private <T> T run(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor).join();
+        } catch (RejectedExecutionException e) {
+            throw new ServiceException(ServiceError.SERVICE_BUSY);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,148 @@
+package com.projects.qna.auth;
+
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import com.projects.qna.model.User;
+import com.projects.qna.model.UserRepository;
+import com.projects.qna.model.UserToken;
+import com.projects.qna.model.UserTokenRepository;
+import com.projects.qna.service.EmailFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues opaque bearer tokens and verifies them. Only a SHA-256 of each token is persisted; tokens
+ * that were verified recently are kept in memory, so an authenticated request normally costs one
+ * map lookup. Cached entries are re-checked against the database after {@code qna.auth.cache-ttl},
+ * which bounds how long a logout on another instance takes to apply here.
+ */
+@Service
+public class TokenService {
+
+    private record Session(Long userId, Instant expiresAt, long verifiedAt) {
+    }
+
+    private final UserRepository userRepository;
+
+    private final UserTokenRepository userTokenRepository;
+
+    private final PasswordHasher passwordHasher;
+
+    private final Duration tokenTtl;
+
+    private final long cacheTtlNanos;
+
+    private final int cacheSize;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final ConcurrentHashMap<String, Session> verified = new ConcurrentHashMap<>();
+
+    private final Counter cacheHits;
+
+    private final Counter cacheMisses;
+
+    public TokenService(UserRepository userRepository, UserTokenRepository userTokenRepository,
+                        PasswordHasher passwordHasher, MeterRegistry meterRegistry,
+                        @Value("${qna.auth.token-ttl}") Duration tokenTtl,
+                        @Value("${qna.auth.cache-ttl}") Duration cacheTtl,
+                        @Value("${qna.auth.cache-size}") int cacheSize) {
+        this.userRepository = userRepository;
+        this.userTokenRepository = userTokenRepository;
+        this.passwordHasher = passwordHasher;
+        this.tokenTtl = tokenTtl;
+        this.cacheTtlNanos = cacheTtl.toNanos();
+        this.cacheSize = cacheSize;
+        this.cacheHits = meterRegistry.counter("qna.auth.token.cache", "result", "hit");
+        this.cacheMisses = meterRegistry.counter("qna.auth.token.cache", "result", "miss");
+    }
+
+    public LoginResponse login(LoginRequest request) {
+        User user = userRepository.findByNormalizedEmail(EmailFilter.normalize(request.getEmail()))
+                .orElseThrow(() -> new ServiceException(ServiceError.INVALID_CREDENTIALS));
+        if (!passwordHasher.matches(request.getPassword(), user.getPassword(), user.isPasswordHashed())) {
+            throw new ServiceException(ServiceError.INVALID_CREDENTIALS);
+        }
+        if (!user.isPasswordHashed()) {
+            user.setPassword(passwordHasher.hash(request.getPassword()));
+            user.setPasswordHashed(true);
+            userRepository.save(user);
+        }
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Instant expiresAt = Instant.now().plus(tokenTtl);
+        userTokenRepository.save(new UserToken(sha256(token), user.getUserId(), expiresAt));
+        cache(token, new Session(user.getUserId(), expiresAt, System.nanoTime()));
+        return new LoginResponse(token, user.getUserId(), expiresAt);
+    }
+
+    public void logout(String token) {
+        verified.remove(token);
+        userTokenRepository.deleteById(sha256(token));
+    }
+
+    public Optional<Long> authenticate(String token) {
+        Session session = verified.get(token);
+        if (session != null && System.nanoTime() - session.verifiedAt() < cacheTtlNanos) {
+            if (session.expiresAt().isAfter(Instant.now())) {
+                cacheHits.increment();
+                return Optional.of(session.userId());
+            }
+            verified.remove(token);
+            return Optional.empty();
+        }
+        cacheMisses.increment();
+        Optional<UserToken> stored = userTokenRepository.findById(sha256(token))
+                .filter(t -> t.getExpiresAt().isAfter(Instant.now()));
+        if (stored.isEmpty()) {
+            verified.remove(token);
+            return Optional.empty();
+        }
+        cache(token, new Session(stored.get().getUserId(), stored.get().getExpiresAt(), System.nanoTime()));
+        return Optional.of(stored.get().getUserId());
+    }
+
+    @Scheduled(fixedDelayString = "${qna.auth.cache-ttl}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        verified.values().removeIf(s -> now - s.verifiedAt() >= cacheTtlNanos);
+        userTokenRepository.deleteExpired(Instant.now());
+    }
+
+    private void cache(String token, Session session) {
+        if (verified.size() >= cacheSize) {
+            // make room by dropping arbitrary entries, they are re-verified from the database on next use
+            Iterator<String> keys = verified.keySet().iterator();
+            for (int i = 0; i < cacheSize / 10 && keys.hasNext(); i++) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        verified.put(token, session);
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
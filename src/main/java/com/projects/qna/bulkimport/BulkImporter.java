@@ -0,0 +1,338 @@
+package com.projects.qna.bulkimport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.qna.auth.PasswordHasher;
+import com.projects.qna.cache.ExistenceIndex;
+import com.projects.qna.cache.FragmentCache;
+import com.projects.qna.cache.TitleIndex;
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import com.projects.qna.service.EmailFilter;
+import com.projects.qna.sharding.ShardRouting;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Loads CSV or JSON lines input into one table through the COPY protocol.
+ * <p>
+ * A parser thread turns input rows into COPY CSV chunks while the calling thread streams the
+ * chunks into {@code COPY ... FROM STDIN}; the bounded queue between them keeps both busy without
+ * buffering the input. Rows without an id get one from the table's sequence, reserved a block
+ * at a time; explicit ids are kept and the sequence is moved past the largest one. The whole
+ * import is one transaction, so a bad row leaves the table untouched. User passwords have to be
+ * bcrypt hashes already, hashing them here would take longer than the rest of the import.
+ * Questions and answers are only imported into an unsharded database, every row would land on
+ * one shard otherwise.
+ */
+@Slf4j
+@Component
+public class BulkImporter {
+
+    private static final byte[] END = new byte[0];
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final EmailFilter emailFilter;
+
+    private final ExistenceIndex existenceIndex;
+
+    private final FragmentCache fragmentCache;
+
+    private final TitleIndex titleIndex;
+
+    private final ShardRouting shardRouting;
+
+    private final int idBlockSize;
+
+    private final int chunkRows;
+
+    private final int queueChunks;
+
+    public BulkImporter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                        ObjectMapper objectMapper, EmailFilter emailFilter, ExistenceIndex existenceIndex,
+                        FragmentCache fragmentCache, TitleIndex titleIndex, ShardRouting shardRouting,
+                        @Value("${qna.import.id-block-size}") int idBlockSize,
+                        @Value("${qna.import.chunk-rows}") int chunkRows,
+                        @Value("${qna.import.queue-chunks}") int queueChunks) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.emailFilter = emailFilter;
+        this.existenceIndex = existenceIndex;
+        this.fragmentCache = fragmentCache;
+        this.titleIndex = titleIndex;
+        this.shardRouting = shardRouting;
+        this.idBlockSize = idBlockSize;
+        this.chunkRows = chunkRows;
+        this.queueChunks = queueChunks;
+    }
+
+    public ImportSummary importRows(ImportTable table, ImportFormat format, InputStream input) {
+        // users are not sharded
+        if (table != ImportTable.USERS && shardRouting.count() > 1) throw new ServiceException(ServiceError.NOT_SHARDED);
+        long start = System.nanoTime();
+        BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(queueChunks);
+        Parser parser = new Parser(table, format, input, chunks);
+        FutureTask<Void> parsing = new FutureTask<>(parser);
+        Thread.ofVirtual().name("bulk-import-parser").start(parsing);
+        Long rows;
+        try {
+            rows = transactionTemplate.execute(status -> copy(table, chunks, parsing, parser));
+        } finally {
+            // unblocks the parser if COPY failed while it was waiting for queue space
+            parsing.cancel(true);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        ImportSummary summary = new ImportSummary(table, rows, seconds, Math.round(rows / Math.max(seconds, 1e-3)));
+        log.info("Imported {} rows into {} in {} s ({} rows/s)", summary.rows(), table.getTable(),
+                String.format("%.1f", seconds), summary.rowsPerSecond());
+        return summary;
+    }
+
+    private Long copy(ImportTable table, BlockingQueue<byte[]> chunks, FutureTask<Void> parsing, Parser parser) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(table.copySql());
+            try {
+                for (byte[] chunk = take(chunks); chunk != END; chunk = take(chunks)) {
+                    copyIn.writeToCopy(chunk, 0, chunk.length);
+                }
+                awaitParser(parsing);
+                long rows = copyIn.endCopy();
+                if (parser.maxExplicitId > 0) {
+                    jdbcTemplate.queryForObject("SELECT setval('" + table.getSequence() + "', GREATEST(last_value, ?)) " +
+                            "FROM " + table.getSequence(), Long.class, parser.maxExplicitId);
+                }
+                existenceIndex.reloaded(table.getKind());
+                // imported answers change the answer lists and counts of questions already shown
+                if (table != ImportTable.USERS) fragmentCache.reloaded();
+                // imported questions carry no tags, only their titles need indexing
+                if (table == ImportTable.QUESTIONS) titleIndex.reloaded();
+                return rows;
+            } finally {
+                if (copyIn.isActive()) copyIn.cancelCopy();
+            }
+        });
+    }
+
+    private static byte[] take(BlockingQueue<byte[]> chunks) {
+        try {
+            return chunks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while importing", e);
+        }
+    }
+
+    private static void awaitParser(FutureTask<Void> parsing) {
+        try {
+            parsing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while importing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            if (e.getCause() instanceof IOException ioException) {
+                // unreadable or malformed input, such as an unterminated CSV quote
+                log.warn("Rejecting import: {}", ioException.getMessage());
+                throw new ServiceException(ServiceError.INVALID_PARAMETER);
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private final class Parser implements Callable<Void> {
+
+        private final ImportTable table;
+
+        private final ImportFormat format;
+
+        private final InputStream input;
+
+        private final BlockingQueue<byte[]> chunks;
+
+        private final int emailIndex;
+
+        private final int passwordIndex;
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 16);
+
+        private final StringBuilder line = new StringBuilder();
+
+        private int bufferedRows;
+
+        private List<Long> ids = List.of();
+
+        private int nextId;
+
+        // read by the COPY thread only after the parser completed
+        private long maxExplicitId;
+
+        Parser(ImportTable table, ImportFormat format, InputStream input, BlockingQueue<byte[]> chunks) {
+            this.table = table;
+            this.format = format;
+            this.input = input;
+            this.chunks = chunks;
+            this.emailIndex = table.getColumns().indexOf("email") + 1;
+            this.passwordIndex = table.getColumns().indexOf("password") + 1;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            boolean parsed = false;
+            try {
+                Reader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+                if (format == ImportFormat.CSV) parseCsv(reader);
+                else parseJsonLines(reader);
+                flush();
+                parsed = true;
+            } finally {
+                if (parsed) {
+                    // blocks only while COPY is still taking chunks, importRows interrupts it otherwise
+                    chunks.put(END);
+                } else {
+                    // the import fails anyway, so queued chunks are dropped and END never waits for space
+                    chunks.clear();
+                    chunks.offer(END);
+                }
+            }
+            return null;
+        }
+
+        private void parseCsv(Reader reader) throws IOException, InterruptedException {
+            CsvReader csv = new CsvReader(reader);
+            List<String> header = csv.next();
+            if (header == null) return;
+            int[] positions = new int[header.size()];
+            for (int i = 0; i < header.size(); i++) {
+                positions[i] = position(header.get(i), 1);
+            }
+            for (List<String> record = csv.next(); record != null; record = csv.next()) {
+                if (record.size() == 1 && record.get(0) == null) continue;
+                if (record.size() != header.size()) {
+                    throw invalid(csv.line() - 1, "expected " + header.size() + " fields but got " + record.size());
+                }
+                String[] values = new String[table.getColumns().size() + 1];
+                for (int i = 0; i < positions.length; i++) {
+                    values[positions[i]] = record.get(i);
+                }
+                append(values, csv.line() - 1);
+            }
+        }
+
+        private void parseJsonLines(Reader reader) throws IOException, InterruptedException {
+            long lineNumber = 0;
+            try (MappingIterator<Map<String, Object>> rows = objectMapper.readerForMapOf(Object.class).readValues(reader)) {
+                while (rows.hasNextValue()) {
+                    Map<String, Object> row = rows.nextValue();
+                    lineNumber++;
+                    String[] values = new String[table.getColumns().size() + 1];
+                    for (Map.Entry<String, Object> field : row.entrySet()) {
+                        Object value = field.getValue();
+                        values[position(field.getKey(), lineNumber)] = value == null ? null : value.toString();
+                    }
+                    append(values, lineNumber);
+                }
+            } catch (JsonProcessingException e) {
+                throw invalid(lineNumber + 1, e.getOriginalMessage());
+            }
+        }
+
+        private int position(String column, long lineNumber) {
+            if (table.getIdColumn().equals(column)) return 0;
+            int index = table.getColumns().indexOf(column);
+            if (index < 0) throw invalid(lineNumber, "unknown column " + column);
+            return index + 1;
+        }
+
+        private void append(String[] values, long lineNumber) throws InterruptedException {
+            for (int i = 1; i < values.length; i++) {
+                if ((values[i] == null || values[i].isBlank()) && table.getRequiredColumns().contains(table.getColumns().get(i - 1))) {
+                    throw invalid(lineNumber, table.getColumns().get(i - 1) + " is required");
+                }
+            }
+            if (values[0] == null) {
+                values[0] = Long.toString(nextId());
+            } else {
+                try {
+                    maxExplicitId = Math.max(maxExplicitId, Long.parseLong(values[0]));
+                } catch (NumberFormatException e) {
+                    throw invalid(lineNumber, "invalid " + table.getIdColumn() + " " + values[0]);
+                }
+            }
+            if (passwordIndex > 0 && !PasswordHasher.isBcryptHash(values[passwordIndex])) {
+                throw invalid(lineNumber, "password is not a bcrypt hash");
+            }
+            if (emailIndex > 0 && values[emailIndex] != null) {
+                values[emailIndex] = values[emailIndex].trim();
+                // harmless if the import rolls back, the filter only produces an extra lookup
+                emailFilter.add(EmailFilter.normalize(values[emailIndex]));
+            }
+            writeRow(values);
+            if (++bufferedRows == chunkRows) flush();
+        }
+
+        private long nextId() {
+            if (nextId == ids.size()) {
+                ids = jdbcTemplate.queryForList("SELECT nextval(?::regclass) FROM generate_series(1, ?)",
+                        Long.class, table.getSequence(), idBlockSize);
+                nextId = 0;
+            }
+            return ids.get(nextId++);
+        }
+
+        // COPY csv: an unquoted empty field is NULL, everything else is quoted
+        private void writeRow(String[] values) {
+            line.setLength(0);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) line.append(',');
+                if (values[i] != null) {
+                    line.append('"').append(values[i].replace("\"", "\"\"")).append('"');
+                }
+            }
+            for (String value : table.getFixedColumns().values()) {
+                line.append(',').append('"').append(value).append('"');
+            }
+            line.append('\n');
+            buffer.writeBytes(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void flush() throws InterruptedException {
+            if (bufferedRows == 0) return;
+            chunks.put(buffer.toByteArray());
+            buffer.reset();
+            bufferedRows = 0;
+        }
+
+        private ServiceException invalid(long lineNumber, String reason) {
+            log.warn("Rejecting {} import, line {}: {}", table.getTable(), lineNumber, reason);
+            return new ServiceException(ServiceError.INVALID_IMPORT_DATA);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.projects.qna.bulkimport;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 reader: quoted fields may contain commas, doubled quotes and line breaks.
+ * An empty unquoted field is read as null and an empty quoted field as "".
+ */
+final class CsvReader {
+
+    private final Reader reader;
+
+    private long line = 1;
+
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    long line() {
+        return line;
+    }
+
+    // the next record, or null at the end of the input
+    List<String> next() throws IOException {
+        int c = reader.read();
+        if (c == -1) return null;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean quoted = false;
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) throw new IOException("Unterminated quoted field at line " + line);
+                if (c == '"') {
+                    int following = reader.read();
+                    if (following != '"') {
+                        inQuotes = false;
+                        c = following;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    line++;
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty() && !quoted) {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(quoted || !field.isEmpty() ? field.toString() : null);
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\n' || c == -1) {
+                fields.add(quoted || !field.isEmpty() ? field.toString() : null);
+                line++;
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.projects.qna.bulkimport;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command line import, e.g.
+ * {@code java -jar qna.jar --spring.main.web-application-type=none --qna.import.table=questions --qna.import.file=questions.csv}.
+ * The application exits once the file is imported.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "qna.import.file")
+public class ImportCommand implements ApplicationRunner {
+
+    private final BulkImporter bulkImporter;
+
+    private final ConfigurableApplicationContext context;
+
+    @Value("${qna.import.file}")
+    private Path file;
+
+    @Value("${qna.import.table}")
+    private String table;
+
+    @Value("${qna.import.format:}")
+    private String format;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        ImportFormat importFormat = format.isEmpty() ? ImportFormat.ofFileName(file.toString()) : ImportFormat.of(format);
+        try (InputStream input = Files.newInputStream(file)) {
+            bulkImporter.importRows(ImportTable.of(table), importFormat, input);
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+}
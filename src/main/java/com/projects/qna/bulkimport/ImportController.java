@@ -0,0 +1,40 @@
+package com.projects.qna.bulkimport;
+
+import com.projects.qna.auth.AdminAccess;
+import com.projects.qna.auth.AuthInterceptor;
+import com.projects.qna.controllers.Bulkheads;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.Data;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.InputStream;
+
+@RestController
+@Data
+@RequestMapping("/admin/import")
+public class ImportController {
+
+    private final BulkImporter bulkImporter;
+
+    private final Bulkheads bulkheads;
+
+    private final AdminAccess adminAccess;
+
+    @PostMapping(value = "/{table}", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE, "application/jsonl"})
+    @Operation(summary = "Bulk import rows", description = "Stream CSV (with a header line) or JSON lines into " +
+            "the users, questions or answers table. Rows without an id get one from the table's sequence; user " +
+            "passwords have to be bcrypt hashes. Only for the users in qna.admin.user-ids")
+    public DeferredResult<ImportSummary> importRows(@PathVariable String table,
+                                                    @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                    InputStream body,
+                                                    @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false)
+                                                    Long callerId) {
+        adminAccess.check(callerId);
+        ImportFormat format = MediaType.parseMediaType(contentType).getSubtype().equals("csv")
+                ? ImportFormat.CSV : ImportFormat.JSONL;
+        return bulkheads.submit(Bulkheads.Workload.ADMIN, () -> bulkImporter.importRows(ImportTable.of(table), format, body));
+    }
+}
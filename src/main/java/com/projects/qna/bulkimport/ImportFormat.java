@@ -0,0 +1,22 @@
+package com.projects.qna.bulkimport;
+
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+
+import java.util.Locale;
+
+public enum ImportFormat {
+    CSV, JSONL;
+
+    public static ImportFormat of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ServiceException(ServiceError.INVALID_PARAMETER);
+        }
+    }
+
+    public static ImportFormat ofFileName(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : JSONL;
+    }
+}
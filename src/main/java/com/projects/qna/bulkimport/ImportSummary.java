@@ -0,0 +1,4 @@
+package com.projects.qna.bulkimport;
+
+public record ImportSummary(ImportTable table, long rows, double seconds, long rowsPerSecond) {
+}
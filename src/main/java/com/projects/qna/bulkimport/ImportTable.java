@@ -0,0 +1,48 @@
+package com.projects.qna.bulkimport;
+
+import com.projects.qna.cache.ExistenceIndex;
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@Getter
+@RequiredArgsConstructor
+public enum ImportTable {
+    // imported passwords are checked to be bcrypt hashes, so every imported user is flagged as hashed
+    USERS("users", "users_seq", "userId", List.of("name", "password", "email", "phone"), Set.of("name", "password"),
+            Map.of("passwordHashed", "true"), ExistenceIndex.Kind.USER),
+    QUESTIONS("questions", "questions_seq", "qnId", List.of("qn", "userId"), Set.of("qn"), Map.of(),
+            ExistenceIndex.Kind.QUESTION),
+    ANSWERS("answers", "answers_seq", "ansId", List.of("ans", "qnId", "userId"), Set.of("ans"), Map.of(),
+            ExistenceIndex.Kind.ANSWER);
+
+    private final String table;
+    private final String sequence;
+    private final String idColumn;
+    private final List<String> columns;
+    private final Set<String> requiredColumns;
+    // set on every row and not accepted from the input
+    private final Map<String, String> fixedColumns;
+    private final ExistenceIndex.Kind kind;
+
+    public String copySql() {
+        List<String> copied = new ArrayList<>(columns);
+        copied.addAll(fixedColumns.keySet());
+        return "COPY " + table + " (" + idColumn + ", " + String.join(", ", copied) + ") FROM STDIN WITH (FORMAT csv)";
+    }
+
+    public static ImportTable of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ServiceException(ServiceError.INVALID_PARAMETER);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.projects.qna.cache;
+
+import com.projects.qna.sharding.ShardRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-memory bitmaps of the question, answer and user ids that exist, so lookups of ids that are
+ * known to be missing are answered without a query. The bitmaps are loaded by the
+ * {@link InvalidationListener} once it listens on {@code qna_ids}, and kept current by the
+ * creations and deletions every instance announces there.
+ * <p>
+ * Only ids below a watermark are ever reported absent: per kind and shard, the highest id that was
+ * already known one to two {@code qna.cache.absent-after} periods ago. Transactions do not commit in
+ * id order and shards hand out ids independently, so an id just below the newest one may have been
+ * created moments ago with its announcement still on the way. Ids created by this instance are
+ * added on commit. While the listener is not connected nothing is reported absent.
+ */
+@Slf4j
+@Component
+public class ExistenceIndex {
+
+    static final String CHANNEL = "qna_ids";
+
+    private static final int FETCH_SIZE = 10_000;
+
+    @RequiredArgsConstructor
+    public enum Kind {
+        // archived questions are still readable, answers are not
+        QUESTION("question", "SELECT qnId FROM questions UNION ALL SELECT qnId FROM questions_archive"),
+        ANSWER("answer", "SELECT ansId FROM answers"),
+        USER("user", "SELECT userId FROM users");
+
+        private final String name;
+
+        private final String idsSql;
+
+        static Kind of(String name) {
+            return Arrays.stream(values()).filter(kind -> kind.name.equals(name)).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("unknown kind " + name));
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ShardRouting shardRouting;
+
+    private final AtomicReferenceArray<IdBitmap> bitmaps = new AtomicReferenceArray<>(Kind.values().length);
+
+    // one slot per kind and shard: the highest id seen, the highest seen at the previous advance and
+    // the one before that, which is the watermark
+    private final AtomicLongArray seen;
+
+    private final long[] previous;
+
+    private final AtomicLongArray watermarks;
+
+    private final Counter absent;
+
+    public ExistenceIndex(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, ShardRouting shardRouting) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouting = shardRouting;
+        int slots = Kind.values().length * shardRouting.count();
+        this.seen = new AtomicLongArray(slots);
+        this.previous = new long[slots];
+        this.watermarks = new AtomicLongArray(slots);
+        this.absent = meterRegistry.counter("qna.ids.absent");
+    }
+
+    public boolean isAbsent(Kind kind, Long id) {
+        IdBitmap bitmap = bitmaps.get(kind.ordinal());
+        if (bitmap == null || id == null || id > watermarks.get(slot(kind, id)) || bitmap.contains(id)) {
+            return false;
+        }
+        absent.increment();
+        return true;
+    }
+
+    // the announcement reaches the other instances on commit, this one adds the id right away then
+    public void created(Kind kind, Long id) {
+        Notifications.send(jdbcTemplate, CHANNEL, kind.name + ":+:", List.of(id));
+        Notifications.afterCommit(() -> {
+            IdBitmap bitmap = bitmaps.get(kind.ordinal());
+            if (bitmap != null) add(kind, bitmap, id);
+        });
+    }
+
+    public void deleted(Kind kind, Long id) {
+        Notifications.send(jdbcTemplate, CHANNEL, kind.name + ":-:", List.of(id));
+        Notifications.afterCommit(() -> {
+            IdBitmap bitmap = bitmaps.get(kind.ordinal());
+            if (bitmap != null) bitmap.remove(id);
+        });
+    }
+
+    // for changes too large to announce id by id, every instance reloads the ids of that kind
+    public void reloaded(Kind kind) {
+        Notifications.send(jdbcTemplate, CHANNEL, kind.name + ":*:", List.of());
+    }
+
+    @Scheduled(fixedDelayString = "${qna.cache.absent-after}", initialDelayString = "${qna.cache.absent-after}")
+    public synchronized void advanceWatermarks() {
+        for (int slot = 0; slot < previous.length; slot++) {
+            watermarks.set(slot, previous[slot]);
+            previous[slot] = seen.get(slot);
+        }
+    }
+
+    private int slot(Kind kind, long id) {
+        return kind.ordinal() * shardRouting.count() + shardRouting.shardOf(id);
+    }
+
+    private void add(Kind kind, IdBitmap bitmap, long id) {
+        bitmap.add(id);
+        seen.accumulateAndGet(slot(kind, id), id, Math::max);
+    }
+
+    void load(Connection connection) throws SQLException {
+        for (Kind kind : Kind.values()) load(connection, kind);
+    }
+
+    private void load(Connection connection, Kind kind) throws SQLException {
+        long start = System.nanoTime();
+        IdBitmap bitmap = new IdBitmap();
+        // the driver only streams results with a fetch size inside a transaction
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet ids = statement.executeQuery(kind.idsSql)) {
+                while (ids.next()) add(kind, bitmap, ids.getLong(1));
+            }
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        bitmaps.set(kind.ordinal(), bitmap);
+        log.info("Loaded {} ids up to {} in {} ms using {} KB", kind.name, bitmap.max(),
+                (System.nanoTime() - start) / 1_000_000, bitmap.memoryBytes() / 1024);
+    }
+
+    void unload() {
+        for (Kind kind : Kind.values()) bitmaps.set(kind.ordinal(), null);
+    }
+
+    // payload is kind:op:id,id,... with op + (created), - (deleted) or * (reload)
+    void onNotification(Connection connection, String payload) throws SQLException {
+        String[] parts = payload.split(":", 3);
+        try {
+            Kind kind = Kind.of(parts[0]);
+            if ("*".equals(parts[1])) {
+                load(connection, kind);
+                return;
+            }
+            IdBitmap bitmap = bitmaps.get(kind.ordinal());
+            if (bitmap == null) return;
+            for (String id : parts[2].split(",")) {
+                if ("+".equals(parts[1])) add(kind, bitmap, Long.parseLong(id));
+                else if ("-".equals(parts[1])) bitmap.remove(Long.parseLong(id));
+                else throw new IllegalArgumentException("unknown operation " + parts[1]);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed id announcement '{}'", payload, e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.projects.qna.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.projects.qna.model.Answer;
+import com.projects.qna.model.Question;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Rendered HTML of the question pages: question cards, answer lists and the page around them,
+ * so a page is mostly stitched together from strings. Writers evict what they changed once their
+ * transaction commits. Unlike the {@link NearCache}, evictions are not announced to the other
+ * instances, whose copies stay at most {@code qna.pages.ttl} old.
+ */
+@Component
+public class FragmentCache {
+
+    // where the content of a page goes, see templates/pages/page.html
+    public static final String CONTENT = "<!--content-->";
+
+    private static final String FRAGMENTS = "pages/fragments";
+
+    private final ITemplateEngine templateEngine;
+
+    private final Cache<String, String> cache;
+
+    public FragmentCache(ITemplateEngine templateEngine, MeterRegistry meterRegistry,
+                         @Value("${qna.pages.maximum-size}") long maximumSize,
+                         @Value("${qna.pages.ttl}") Duration ttl) {
+        this.templateEngine = templateEngine;
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .<String, String>build(), "fragments");
+    }
+
+    public String questionCard(Question question) {
+        return cache.get("card:" + question.getQnId(),
+                key -> render(FRAGMENTS, "question-card", Map.of("question", question)));
+    }
+
+    public String answerList(Long qnId, Supplier<List<Answer>> answers) {
+        return cache.get("answers:" + qnId, key -> render(FRAGMENTS, "answer-list", Map.of("answers", answers.get())));
+    }
+
+    // the page up to and after its content, the title is escaped by the template
+    public String page(String key, String title) {
+        return cache.get("page:" + key, k -> render("pages/page", null, Map.of("title", title)));
+    }
+
+    public void questionChanged(Long qnId) {
+        Notifications.afterCommit(() -> cache.invalidateAll(List.of("card:" + qnId, "page:" + qnId)));
+    }
+
+    // the card shows the number of answers
+    public void answersChanged(Long qnId) {
+        Notifications.afterCommit(() -> cache.invalidateAll(List.of("answers:" + qnId, "card:" + qnId)));
+    }
+
+    // archived questions, whose pages render again from the archive
+    public void removed(Collection<Long> qnIds) {
+        Notifications.afterCommit(() -> qnIds.forEach(qnId ->
+                cache.invalidateAll(List.of("card:" + qnId, "page:" + qnId, "answers:" + qnId))));
+    }
+
+    // for changes too large to evict question by question, such as a bulk import
+    public void reloaded() {
+        Notifications.afterCommit(cache::invalidateAll);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private String render(String template, String fragment, Map<String, Object> variables) {
+        TemplateSpec spec = new TemplateSpec(template, fragment == null ? null : Set.of(fragment), TemplateMode.HTML, null);
+        return templateEngine.process(spec, new Context(Locale.ROOT, variables));
+    }
+}
@@ -0,0 +1,52 @@
+package com.projects.qna.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent bitmap over positive longs, allocated in pages of 64K bits so that sparse or very
+ * large ids only cost memory for the ranges that are actually used.
+ */
+final class IdBitmap {
+
+    private static final int PAGE_BITS = 16;
+
+    private static final int PAGE_WORDS = (1 << PAGE_BITS) / 64;
+
+    private final ConcurrentHashMap<Long, AtomicLongArray> pages = new ConcurrentHashMap<>();
+
+    private final AtomicLong max = new AtomicLong();
+
+    void add(long id) {
+        if (id <= 0) return;
+        AtomicLongArray page = pages.computeIfAbsent(id >>> PAGE_BITS, p -> new AtomicLongArray(PAGE_WORDS));
+        int bit = (int) (id & ((1 << PAGE_BITS) - 1));
+        long mask = 1L << bit;
+        page.getAndAccumulate(bit >>> 6, mask, (word, m) -> word | m);
+        max.accumulateAndGet(id, Math::max);
+    }
+
+    void remove(long id) {
+        AtomicLongArray page = pages.get(id >>> PAGE_BITS);
+        if (page == null || id <= 0) return;
+        int bit = (int) (id & ((1 << PAGE_BITS) - 1));
+        long mask = 1L << bit;
+        page.getAndAccumulate(bit >>> 6, mask, (word, m) -> word & ~m);
+    }
+
+    boolean contains(long id) {
+        AtomicLongArray page = pages.get(id >>> PAGE_BITS);
+        if (page == null || id <= 0) return false;
+        int bit = (int) (id & ((1 << PAGE_BITS) - 1));
+        return (page.get(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    long memoryBytes() {
+        return (long) pages.size() * PAGE_WORDS * Long.BYTES;
+    }
+}
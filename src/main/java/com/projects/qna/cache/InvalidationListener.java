@@ -0,0 +1,134 @@
+package com.projects.qna.cache;
+
+import com.projects.qna.sharding.ShardRouting;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Listens for the invalidations announced by {@link NearCache} and the ids announced to the
+ * {@link ExistenceIndex}, {@link TagIndex} and {@link TitleIndex} on a connection of its own, outside the pool, so a
+ * slow stream of notifications never competes with requests for connections. When the connection
+ * drops, cache and id index are bypassed until it is re-established, the cache cleared and the ids,
+ * tags and titles reloaded.
+ */
+@Slf4j
+@Component
+public class InvalidationListener {
+
+    private static final int POLL_MILLIS = 1000;
+
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final NearCache nearCache;
+
+    private final ExistenceIndex existenceIndex;
+
+    private final TagIndex tagIndex;
+
+    private final TitleIndex titleIndex;
+
+    private final DataSourceProperties dataSourceProperties;
+
+    private final ShardRouting shardRouting;
+
+    private final Duration reconnectBackoff;
+
+    private volatile boolean running;
+
+    private Thread thread;
+
+    public InvalidationListener(NearCache nearCache, ExistenceIndex existenceIndex, TagIndex tagIndex, TitleIndex titleIndex,
+                                DataSourceProperties dataSourceProperties, ShardRouting shardRouting, @Value("${qna.cache.reconnect-backoff}") Duration reconnectBackoff) {
+        this.nearCache = nearCache;
+        this.existenceIndex = existenceIndex;
+        this.tagIndex = tagIndex;
+        this.titleIndex = titleIndex;
+        this.dataSourceProperties = dataSourceProperties;
+        this.shardRouting = shardRouting;
+        this.reconnectBackoff = reconnectBackoff;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // announcements are made on the shard that was written, this only listens on the primary
+        if (shardRouting.count() > 1) {
+            log.info("Near cache and id index stay off with {} shards", shardRouting.count());
+            tagIndex.load();
+            titleIndex.load();
+            return;
+        }
+        running = true;
+        thread = Thread.ofPlatform().name("near-cache-listener").daemon().start(this::listen);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) thread.interrupt();
+    }
+
+    private void listen() {
+        long backoff = reconnectBackoff.toMillis();
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + NearCache.CHANNEL);
+                    statement.execute("LISTEN " + ExistenceIndex.CHANNEL);
+                    statement.execute("LISTEN " + TagIndex.CHANNEL);
+                    statement.execute("LISTEN " + TitleIndex.CHANNEL);
+                }
+                // whatever changed while nobody was listening went unannounced; anything that commits
+                // from now on is announced, including changes the load below may or may not see
+                existenceIndex.load(connection);
+                tagIndex.load();
+                titleIndex.load();
+                nearCache.clear();
+                nearCache.setListening(true);
+                log.info("Listening for cache invalidations");
+                backoff = reconnectBackoff.toMillis();
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) {
+                        if (ExistenceIndex.CHANNEL.equals(notification.getName())) {
+                            existenceIndex.onNotification(connection, notification.getParameter());
+                        } else if (TagIndex.CHANNEL.equals(notification.getName())) {
+                            tagIndex.onNotification(connection, notification.getParameter());
+                        } else if (TitleIndex.CHANNEL.equals(notification.getName())) {
+                            titleIndex.onNotification(connection, notification.getParameter());
+                        } else {
+                            nearCache.onNotification(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) log.warn("Cache invalidation listener lost its connection, reconnecting in {} ms", backoff, e);
+            } finally {
+                nearCache.setListening(false);
+                existenceIndex.unload();
+            }
+            if (!running) break;
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                break;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF.toMillis());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.projects.qna.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.projects.qna.model.Answer;
+import com.projects.qna.model.Question;
+import com.projects.qna.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory copies of recently read questions, answers and users. Each region is bounded by
+ * {@code qna.cache.maximum-size} with Caffeine's W-TinyLFU admission and expires entries after
+ * {@code qna.cache.ttl}.
+ * <p>
+ * Writers call {@link #invalidate} inside their transaction. The change is announced with
+ * {@code pg_notify}, which Postgres only delivers once the transaction commits, and the
+ * {@link InvalidationListener} of every instance evicts the entries. The writing instance also
+ * evicts right after commit so it reads its own writes without waiting for the round trip. While
+ * the listener is not connected, notifications may be missed, so reads bypass the cache.
+ * <p>
+ * Cached entities are never handed out: every read returns a copy that the caller may modify.
+ */
+@Slf4j
+@Component
+public class NearCache {
+
+    static final String CHANNEL = "qna_cache";
+
+    static final String ALL = "*";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Region<Question> questions;
+
+    private final Region<Answer> answers;
+
+    private final Region<User> users;
+
+    private final Map<String, Region<?>> regions;
+
+    private final Timer invalidationLag;
+
+    private volatile boolean listening;
+
+    public NearCache(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                     @Value("${qna.cache.maximum-size}") long maximumSize,
+                     @Value("${qna.cache.ttl}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.questions = new Region<>("question", NearCache::copy, maximumSize, ttl, meterRegistry);
+        this.answers = new Region<>("answer", NearCache::copy, maximumSize, ttl, meterRegistry);
+        this.users = new Region<>("user", NearCache::copy, maximumSize, ttl, meterRegistry);
+        this.regions = Map.of(questions.name, questions, answers.name, answers, users.name, users);
+        this.invalidationLag = meterRegistry.timer("qna.cache.invalidation.lag");
+    }
+
+    public Region<Question> getQuestions() {
+        return questions;
+    }
+
+    public Region<Answer> getAnswers() {
+        return answers;
+    }
+
+    public Region<User> getUsers() {
+        return users;
+    }
+
+    public Collection<Region<?>> getRegions() {
+        return regions.values();
+    }
+
+    public Timer getInvalidationLag() {
+        return invalidationLag;
+    }
+
+    public boolean isListening() {
+        return listening;
+    }
+
+    void setListening(boolean listening) {
+        this.listening = listening;
+    }
+
+    public void invalidate(Region<?> region, Long id) {
+        invalidate(region, List.of(id));
+    }
+
+    public void invalidate(Region<?> region, Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+        List<Long> evicted = List.copyOf(ids);
+        // payload is region:sentAtMillis:id,id,...
+        Notifications.send(jdbcTemplate, CHANNEL, region.name + ":" + System.currentTimeMillis() + ":", evicted);
+        Notifications.afterCommit(() -> region.evict(evicted));
+    }
+
+    public void invalidateAll() {
+        Notifications.send(jdbcTemplate, CHANNEL, ALL + ":" + System.currentTimeMillis() + ":", List.of());
+        Notifications.afterCommit(this::clear);
+    }
+
+    void onNotification(String payload) {
+        String[] parts = payload.split(":", 3);
+        try {
+            long sentAt = Long.parseLong(parts[1]);
+            if (ALL.equals(parts[0])) {
+                clear();
+            } else {
+                Region<?> region = regions.get(parts[0]);
+                if (region == null) throw new IllegalArgumentException("unknown region");
+                region.evict(Arrays.stream(parts[2].split(",")).map(Long::valueOf).toList());
+            }
+            // wall clocks of different instances, only as precise as their synchronization
+            invalidationLag.record(Math.max(0, System.currentTimeMillis() - sentAt), TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed cache invalidation '{}'", payload, e);
+        }
+    }
+
+    public void clear() {
+        regions.values().forEach(region -> region.cache.invalidateAll());
+    }
+
+    private static Question copy(Question q) {
+        return q.copy();
+    }
+
+    private static Answer copy(Answer a) {
+        return a.copy();
+    }
+
+    private static User copy(User u) {
+        User copy = new User(u.getUserId(), u.getName(), u.getPassword(), u.getEmail(), u.getPhone());
+        copy.setPasswordHashed(u.isPasswordHashed());
+        return copy;
+    }
+
+    public final class Region<T> {
+
+        private final String name;
+
+        private final UnaryOperator<T> copy;
+
+        private final Cache<Long, T> cache;
+
+        private Region(String name, UnaryOperator<T> copy, long maximumSize, Duration ttl, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.copy = copy;
+            this.cache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(ttl)
+                    .recordStats()
+                    .<Long, T>build(), name + "s");
+        }
+
+        // an eviction that races with a load waits for it and then removes what was loaded
+        public Optional<T> get(Long id, Function<Long, Optional<T>> loader) {
+            if (!listening) return loader.apply(id);
+            T cached = cache.get(id, key -> loader.apply(key).map(copy).orElse(null));
+            return Optional.ofNullable(cached).map(copy);
+        }
+
+        public void evict(Collection<Long> ids) {
+            cache.invalidateAll(ids);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long size() {
+            return cache.estimatedSize();
+        }
+
+        public CacheStats stats() {
+            return cache.stats();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.projects.qna.cache;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+final class Notifications {
+
+    // NOTIFY payloads are limited to 8000 bytes
+    private static final int MAX_PAYLOAD = 7000;
+
+    private Notifications() {
+    }
+
+    // sends prefix followed by the comma separated ids, split over as many notifications as needed
+    static void send(JdbcTemplate jdbcTemplate, String channel, String prefix, Collection<Long> ids) {
+        StringBuilder payload = new StringBuilder(prefix);
+        for (Long id : ids) {
+            if (payload.length() > MAX_PAYLOAD) {
+                send(jdbcTemplate, channel, payload);
+                payload.setLength(prefix.length());
+            }
+            if (payload.length() > prefix.length()) payload.append(',');
+            payload.append(id);
+        }
+        send(jdbcTemplate, channel, payload);
+    }
+
+    private static void send(JdbcTemplate jdbcTemplate, String channel, CharSequence payload) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, payload.toString());
+    }
+
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
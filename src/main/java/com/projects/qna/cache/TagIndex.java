@@ -0,0 +1,246 @@
+package com.projects.qna.cache;
+
+import com.projects.qna.sharding.ShardRouting;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Compressed bitmaps of the ids of the live questions carrying each tag, so that boolean tag
+ * queries and facet counts are bitmap operations instead of joins. The bitmaps are loaded by the
+ * {@link InvalidationListener} once it listens on {@code qna_tags}; questions whose tags change are
+ * applied here after commit and announced there, every instance then re-reads their tags.
+ * <p>
+ * With several shards nothing is announced and changes made by other instances are only seen
+ * after a restart.
+ */
+@Slf4j
+@Component
+public class TagIndex {
+
+    static final String CHANNEL = "qna_tags";
+
+    private static final String RELOAD = "*";
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String TAGS_SQL = "SELECT qnId, tags FROM questions WHERE cardinality(tags) > 0";
+
+    private static final String TAGS_OF_SQL = "SELECT qnId, tags FROM questions WHERE qnId = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ShardRouting shardRouting;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, Roaring64Bitmap> bitmaps = new HashMap<>();
+
+    public TagIndex(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ShardRouting shardRouting) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouting = shardRouting;
+    }
+
+    // tags of a created or updated question, applied here once the transaction commits
+    public void changed(Long qnId, Collection<String> tags) {
+        Notifications.send(jdbcTemplate, CHANNEL, "", List.of(qnId));
+        Notifications.afterCommit(() -> set(qnId, tags));
+    }
+
+    public void removed(Collection<Long> qnIds) {
+        Notifications.send(jdbcTemplate, CHANNEL, "", qnIds);
+        Notifications.afterCommit(() -> update(index -> qnIds.forEach(qnId -> remove(index, qnId))));
+    }
+
+    // for changes too large to announce question by question, every instance reloads all tags
+    public void reloaded() {
+        Notifications.send(jdbcTemplate, CHANNEL, RELOAD, List.of());
+    }
+
+    /**
+     * Ids of the questions with all of the tags in all, at least one of those in any (unless empty)
+     * and none of those in none.
+     */
+    public Roaring64Bitmap matching(Collection<String> all, Collection<String> any, Collection<String> none) {
+        lock.readLock().lock();
+        try {
+            Roaring64Bitmap result = null;
+            // start from the rarest tag to keep the intermediate bitmaps small
+            List<Roaring64Bitmap> required = all.stream().map(this::bitmap)
+                    .sorted(Comparator.comparingLong(Roaring64Bitmap::getLongCardinality)).toList();
+            for (Roaring64Bitmap bitmap : required) {
+                if (result == null) result = bitmap.clone();
+                else result.and(bitmap);
+            }
+            if (!any.isEmpty()) {
+                Roaring64Bitmap union = new Roaring64Bitmap();
+                any.forEach(tag -> union.or(bitmap(tag)));
+                if (result == null) result = union;
+                else result.and(union);
+            }
+            if (result == null) return new Roaring64Bitmap();
+            for (String tag : none) result.andNot(bitmap(tag));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The limit tags most frequent among the given questions, except those in exclude, with their
+     * counts.
+     */
+    public Map<String, Long> facets(Roaring64Bitmap qnIds, Collection<String> exclude, int limit) {
+        Map<String, Long> counts = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            if (qnIds.isEmpty()) return Map.of();
+            long size = qnIds.getLongCardinality();
+            bitmaps.forEach((tag, bitmap) -> {
+                if (exclude.contains(tag)) return;
+                // intersect a copy of the smaller of the two
+                boolean tagSmaller = bitmap.getLongCardinality() < size;
+                Roaring64Bitmap intersection = (tagSmaller ? bitmap : qnIds).clone();
+                intersection.and(tagSmaller ? qnIds : bitmap);
+                long count = intersection.getLongCardinality();
+                if (count > 0) counts.put(tag, count);
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<String, Long> top = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .forEach(e -> top.put(e.getKey(), e.getValue()));
+        return top;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return bitmaps.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void load() {
+        long start = System.nanoTime();
+        Map<String, Roaring64Bitmap> loaded = new HashMap<>();
+        // the driver only streams results with a fetch size inside a transaction
+        shardRouting.scatter(shard -> transactionTemplate.execute(status -> {
+            Map<String, Roaring64Bitmap> shardBitmaps = new HashMap<>();
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(TAGS_SQL);
+                statement.setFetchSize(FETCH_SIZE);
+                return statement;
+            }, (ResultSet rs) -> {
+                long qnId = rs.getLong(1);
+                for (String tag : tags(rs)) shardBitmaps.computeIfAbsent(tag, t -> new Roaring64Bitmap()).addLong(qnId);
+            });
+            return shardBitmaps;
+        })).forEach(shardBitmaps -> shardBitmaps.forEach((tag, bitmap) ->
+                loaded.merge(tag, bitmap, (a, b) -> {
+                    a.or(b);
+                    return a;
+                })));
+        loaded.values().forEach(Roaring64Bitmap::runOptimize);
+        long bytes = loaded.values().stream().mapToLong(Roaring64Bitmap::getLongSizeInBytes).sum();
+        lock.writeLock().lock();
+        try {
+            bitmaps = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded {} tags in {} ms using {} KB", loaded.size(), (System.nanoTime() - start) / 1_000_000,
+                bytes / 1024);
+    }
+
+    // payload is * (reload) or the comma separated ids of questions whose tags changed
+    void onNotification(Connection connection, String payload) throws SQLException {
+        if (RELOAD.equals(payload)) {
+            load();
+            return;
+        }
+        Set<Long> qnIds = new HashSet<>();
+        try {
+            for (String id : payload.split(",")) qnIds.add(Long.parseLong(id));
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed tag announcement '{}'", payload, e);
+            return;
+        }
+        Map<Long, List<String>> tags = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(TAGS_OF_SQL)) {
+            statement.setArray(1, connection.createArrayOf("bigint", qnIds.toArray()));
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) tags.put(rs.getLong(1), tags(rs));
+            }
+        }
+        // ids that are gone were deleted or archived
+        update(index -> qnIds.forEach(qnId -> {
+            remove(index, qnId);
+            add(index, qnId, tags.getOrDefault(qnId, List.of()));
+        }));
+    }
+
+    private void set(Long qnId, Collection<String> tags) {
+        update(index -> {
+            remove(index, qnId);
+            add(index, qnId, tags == null ? List.of() : tags);
+        });
+    }
+
+    private void update(Consumer<Map<String, Roaring64Bitmap>> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(bitmaps);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Roaring64Bitmap bitmap(String tag) {
+        Roaring64Bitmap bitmap = bitmaps.get(tag);
+        return bitmap == null ? new Roaring64Bitmap() : bitmap;
+    }
+
+    private static void add(Map<String, Roaring64Bitmap> index, long qnId, Collection<String> tags) {
+        for (String tag : tags) index.computeIfAbsent(tag, t -> new Roaring64Bitmap()).addLong(qnId);
+    }
+
+    // the tags of a question are not kept anywhere else, so every bitmap is checked
+    private static void remove(Map<String, Roaring64Bitmap> index, long qnId) {
+        index.values().removeIf(bitmap -> {
+            bitmap.removeLong(qnId);
+            return bitmap.isEmpty();
+        });
+    }
+
+    private static List<String> tags(ResultSet rs) throws SQLException {
+        Array array = rs.getArray(2);
+        return array == null ? List.of() : List.of((String[]) array.getArray());
+    }
+}
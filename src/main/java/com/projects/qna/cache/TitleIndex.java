@@ -0,0 +1,398 @@
+package com.projects.qna.cache;
+
+import com.projects.qna.compression.TextCodec;
+import com.projects.qna.sharding.ShardRouting;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Radix trie over the normalized question titles for typeahead suggestions. Every node caches the
+ * {@link #TOP_K} most viewed titles below it, so a suggestion is a walk down the prefix and a copy
+ * of that list, without touching the subtree. Loaded and kept up to date like the {@link TagIndex},
+ * announcing changed questions on {@code qna_titles}.
+ */
+@Slf4j
+@Component
+public class TitleIndex {
+
+    public record Suggestion(Long qnId, String qn) {
+    }
+
+    public static final int TOP_K = 10;
+
+    static final String CHANNEL = "qna_titles";
+
+    private static final String RELOAD = "*";
+
+    // longer prefixes are hardly ever typed, titles sharing this many characters share a node
+    private static final int MAX_KEY = 64;
+
+    private static final int MAX_TITLE = 150;
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String TITLES_SQL = "SELECT qnId, qn, views FROM questions";
+
+    private static final String TITLES_OF_SQL = "SELECT qnId, qn, views FROM questions WHERE qnId = ANY(?)";
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    // most viewed first, the newest of equally viewed ones first
+    private static final Comparator<Entry> BEST_FIRST =
+            Comparator.comparingLong(Entry::views).thenComparingLong(Entry::qnId).reversed();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ShardRouting shardRouting;
+
+    private final TextCodec textCodec;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Trie trie = new Trie();
+
+    public TitleIndex(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ShardRouting shardRouting,
+                      TextCodec textCodec, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouting = shardRouting;
+        this.textCodec = textCodec;
+        Gauge.builder("qna.suggest.titles", this, TitleIndex::size).register(meterRegistry);
+        Gauge.builder("qna.suggest.bytes.per.title", this, TitleIndex::bytesPerTitle)
+                .description("Estimated heap used by the trie per indexed title")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    // title of a created or updated question, applied here once the transaction commits
+    public void changed(Long qnId, String title, long views) {
+        Notifications.send(jdbcTemplate, CHANNEL, "", List.of(qnId));
+        Notifications.afterCommit(() -> update(trie -> {
+            trie.remove(qnId);
+            trie.add(entry(qnId, title, views));
+        }));
+    }
+
+    public void removed(Collection<Long> qnIds) {
+        Notifications.send(jdbcTemplate, CHANNEL, "", qnIds);
+        Notifications.afterCommit(() -> update(trie -> qnIds.forEach(trie::remove)));
+    }
+
+    public void reloaded() {
+        Notifications.send(jdbcTemplate, CHANNEL, RELOAD, List.of());
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        char[] key = key(prefix);
+        if (key.length == 0) return List.of();
+        lock.readLock().lock();
+        try {
+            Node node = trie.root;
+            int i = 0;
+            while (i < key.length) {
+                int at = node.indexOf(key[i]);
+                if (at < 0) return List.of();
+                Node child = node.children[at];
+                int common = common(child.label, key, i);
+                // the prefix may end inside a label, but must not differ from it
+                if (common < child.label.length && i + common < key.length) return List.of();
+                node = child;
+                i += common;
+            }
+            return Arrays.stream(node.top).limit(limit).map(e -> new Suggestion(e.qnId(), e.title())).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return trie.entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void load() {
+        long start = System.nanoTime();
+        Trie loaded = new Trie();
+        // the driver only streams results with a fetch size inside a transaction
+        shardRouting.forEachShard(() -> transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(TITLES_SQL);
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                }, (ResultSet rs) -> loaded.add(entry(rs)))));
+        lock.writeLock().lock();
+        try {
+            trie = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} titles in {} ms using about {} bytes each", loaded.entries.size(),
+                (System.nanoTime() - start) / 1_000_000, (long) bytesPerTitle());
+    }
+
+    // payload is * (reload) or the comma separated ids of questions whose titles changed
+    void onNotification(Connection connection, String payload) throws SQLException {
+        if (RELOAD.equals(payload)) {
+            load();
+            return;
+        }
+        Set<Long> qnIds = new HashSet<>();
+        try {
+            for (String id : payload.split(",")) qnIds.add(Long.parseLong(id));
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed title announcement '{}'", payload, e);
+            return;
+        }
+        List<Entry> entries = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(TITLES_OF_SQL)) {
+            statement.setArray(1, connection.createArrayOf("bigint", qnIds.toArray()));
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) entries.add(entry(rs));
+            }
+        }
+        // ids that are gone were deleted or archived
+        update(trie -> {
+            qnIds.forEach(trie::remove);
+            entries.forEach(trie::add);
+        });
+    }
+
+    private double bytesPerTitle() {
+        lock.readLock().lock();
+        try {
+            return trie.entries.isEmpty() ? 0 : (double) trie.bytes() / trie.entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(Consumer<Trie> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(trie);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Entry entry(ResultSet rs) throws SQLException {
+        return entry(rs.getLong(1), textCodec.decode(rs.getString(2)), rs.getLong(3));
+    }
+
+    private static Entry entry(long qnId, String title, long views) {
+        String shortened = title.length() > MAX_TITLE ? title.substring(0, MAX_TITLE) : title;
+        return new Entry(qnId, shortened.strip(), views);
+    }
+
+    // lower case with single spaces; trailing space is kept so that "how " does not suggest "however"
+    private static char[] key(String text) {
+        StringBuilder key = new StringBuilder(Math.min(text.length(), MAX_KEY));
+        boolean space = false;
+        for (int i = 0; i < text.length() && key.length() < MAX_KEY; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = key.length() > 0;
+                continue;
+            }
+            if (space) {
+                key.append(' ');
+                space = false;
+                if (key.length() == MAX_KEY) break;
+            }
+            key.append(Character.toLowerCase(c));
+        }
+        if (space) key.append(' ');
+        return key.toString().toCharArray();
+    }
+
+    private static int common(char[] label, char[] key, int from) {
+        int i = 0;
+        while (i < label.length && from + i < key.length && label[i] == key[from + i]) i++;
+        return i;
+    }
+
+    private record Entry(long qnId, String title, long views) {
+    }
+
+    private static final class Node {
+
+        private char[] label;
+
+        // sorted by the first character of their labels
+        private Node[] children = NO_CHILDREN;
+
+        // titles whose key ends here
+        private Entry[] own = NO_ENTRIES;
+
+        // the best TOP_K entries of this subtree, best first
+        private Entry[] top = NO_ENTRIES;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        int indexOf(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char first = children[mid].label[0];
+                if (first < c) low = mid + 1;
+                else if (first > c) high = mid - 1;
+                else return mid;
+            }
+            return -(low + 1);
+        }
+
+        void offer(Entry entry) {
+            int at = 0;
+            while (at < top.length && BEST_FIRST.compare(top[at], entry) <= 0) at++;
+            if (at == TOP_K) return;
+            Entry[] offered = new Entry[Math.min(top.length + 1, TOP_K)];
+            System.arraycopy(top, 0, offered, 0, at);
+            offered[at] = entry;
+            System.arraycopy(top, at, offered, at + 1, offered.length - at - 1);
+            top = offered;
+        }
+
+        // after a removal below; the best of the subtree are among the best of every child
+        void recomputeTop() {
+            top = Stream.concat(Arrays.stream(own), Arrays.stream(children).flatMap(child -> Arrays.stream(child.top)))
+                    .sorted(BEST_FIRST)
+                    .limit(TOP_K)
+                    .toArray(Entry[]::new);
+        }
+
+        long bytes() {
+            // header and four references, plus the arrays that are not the shared empty ones
+            long bytes = 32 + 16 + 2L * label.length;
+            if (children.length > 0) bytes += 16 + 4L * children.length;
+            if (own.length > 0) bytes += 16 + 4L * own.length;
+            if (top.length > 0) bytes += 16 + 4L * top.length;
+            for (Node child : children) bytes += child.bytes();
+            return bytes;
+        }
+    }
+
+    private static final class Trie {
+
+        private final Node root = new Node(new char[0]);
+
+        private final Map<Long, Entry> entries = new HashMap<>();
+
+        void add(Entry entry) {
+            entries.put(entry.qnId(), entry);
+            char[] key = key(entry.title());
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            int i = 0;
+            while (i < key.length) {
+                int at = node.indexOf(key[i]);
+                if (at < 0) {
+                    Node leaf = new Node(Arrays.copyOfRange(key, i, key.length));
+                    at = -at - 1;
+                    Node[] children = new Node[node.children.length + 1];
+                    System.arraycopy(node.children, 0, children, 0, at);
+                    children[at] = leaf;
+                    System.arraycopy(node.children, at, children, at + 1, node.children.length - at);
+                    node.children = children;
+                    node = leaf;
+                    path.add(node);
+                    break;
+                }
+                Node child = node.children[at];
+                int common = common(child.label, key, i);
+                if (common < child.label.length) {
+                    Node split = new Node(Arrays.copyOfRange(child.label, 0, common));
+                    child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                    split.children = new Node[]{child};
+                    split.top = child.top;
+                    node.children[at] = split;
+                    child = split;
+                }
+                node = child;
+                path.add(node);
+                i += common;
+            }
+            Entry[] own = Arrays.copyOf(node.own, node.own.length + 1);
+            own[own.length - 1] = entry;
+            node.own = own;
+            path.forEach(n -> n.offer(entry));
+        }
+
+        void remove(Long qnId) {
+            Entry entry = entries.remove(qnId);
+            if (entry == null) return;
+            char[] key = key(entry.title());
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            for (int i = 0; i < key.length; i += node.label.length) {
+                node = node.children[node.indexOf(key[i])];
+                path.add(node);
+            }
+            node.own = Arrays.stream(node.own).filter(e -> e.qnId() != entry.qnId()).toArray(Entry[]::new);
+            // bottom up: drop nodes left empty, fold nodes left with a single child into it
+            for (int depth = path.size() - 1; depth >= 0; depth--) {
+                Node n = path.get(depth);
+                if (depth > 0 && n.own.length == 0 && n.children.length <= 1) {
+                    Node parent = path.get(depth - 1);
+                    int at = parent.indexOf(n.label[0]);
+                    if (n.children.length == 0) {
+                        Node[] children = new Node[parent.children.length - 1];
+                        System.arraycopy(parent.children, 0, children, 0, at);
+                        System.arraycopy(parent.children, at + 1, children, at, children.length - at);
+                        parent.children = children;
+                    } else {
+                        Node only = n.children[0];
+                        char[] label = Arrays.copyOf(n.label, n.label.length + only.label.length);
+                        System.arraycopy(only.label, 0, label, n.label.length, only.label.length);
+                        only.label = label;
+                        parent.children[at] = only;
+                    }
+                    continue;
+                }
+                n.recomputeTop();
+            }
+        }
+
+        long bytes() {
+            long entryBytes = entries.values().stream()
+                    // entry and title string, plus a map node and a boxed key
+                    .mapToLong(e -> 24 + 40 + e.title().length() + 48)
+                    .sum();
+            return root.bytes() + entryBytes + 16 + 4L * entries.size();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.projects.qna.compression;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import org.hibernate.annotations.Immutable;
+
+import java.util.Objects;
+
+/**
+ * A question or answer body as it is stored, decompressed only once the text is asked for, which
+ * is mostly when it is serialized. Immutable, so loaded entities share it with their snapshots
+ * and copies, and comparing them does not decompress anything.
+ */
+@Immutable
+public final class CompressedText {
+
+    // null for texts that did not come from the database
+    private final TextCodec codec;
+
+    private volatile String text;
+
+    private volatile String stored;
+
+    private CompressedText(TextCodec codec, String text, String stored) {
+        this.codec = codec;
+        this.text = text;
+        this.stored = stored;
+    }
+
+    public static CompressedText of(String text) {
+        return text == null ? null : new CompressedText(null, text, null);
+    }
+
+    static CompressedText stored(String stored, TextCodec codec) {
+        return new CompressedText(codec, null, stored);
+    }
+
+    @JsonValue
+    public String text() {
+        String decoded = text;
+        if (decoded == null) {
+            decoded = codec.decode(stored);
+            text = decoded;
+        }
+        return decoded;
+    }
+
+    String stored(TextCodec codec) {
+        String encoded = stored;
+        if (encoded == null) {
+            encoded = codec.encode(text);
+            stored = encoded;
+        }
+        return encoded;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompressedText other)) return false;
+        if (stored != null && stored.equals(other.stored)) return true;
+        return text().equals(other.text());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(text());
+    }
+
+    @Override
+    public String toString() {
+        return text();
+    }
+}
@@ -0,0 +1,23 @@
+package com.projects.qna.compression;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import lombok.RequiredArgsConstructor;
+
+// instantiated by Hibernate through the Spring bean container, which injects the codec
+@Converter
+@RequiredArgsConstructor
+public class CompressedTextConverter implements AttributeConverter<CompressedText, String> {
+
+    private final TextCodec codec;
+
+    @Override
+    public String convertToDatabaseColumn(CompressedText text) {
+        return text == null ? null : text.stored(codec);
+    }
+
+    @Override
+    public CompressedText convertToEntityAttribute(String stored) {
+        return stored == null ? null : CompressedText.stored(stored, codec);
+    }
+}
@@ -0,0 +1,198 @@
+package com.projects.qna.compression;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdException;
+import com.projects.qna.sharding.ShardRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores long question and answer bodies zstd compressed, with a dictionary trained on existing
+ * answers, so pasted code no longer bloats the tables and their TOAST storage. The columns stay
+ * text: a compressed body is U+0002, the dictionary id, a colon and the base64 frame, anything else is a body
+ * stored as it is, which keeps rows written before (or by the bulk import) readable. Bodies that
+ * start with the marker themselves are always compressed, so they are never mistaken for one.
+ * <p>
+ * Dictionaries are kept in {@code text_dictionaries} on the primary and never change once
+ * written; until one is trained, bodies are compressed without. They are always read through the
+ * primary's own DataSource, as bodies are also decoded inside transactions on other shards.
+ */
+@Slf4j
+@Component
+public class TextCodec {
+
+    private static final char MARKER = '\u0002';
+
+    private static final int NO_DICTIONARY = 0;
+
+    private static final String SAMPLES_SQL = "SELECT ans FROM answers " +
+            "WHERE length(ans) >= ? AND left(ans, 1) <> chr(2) ORDER BY ansId DESC LIMIT ?";
+
+    // fewer samples than this make a dictionary that hardly helps
+    private static final int MIN_SAMPLES = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final JdbcTemplate primary;
+
+    private final int minLength;
+
+    private final int level;
+
+    private final int dictionarySize;
+
+    private final int dictionarySamples;
+
+    private final Map<Integer, ZstdDictDecompress> decompressors = new ConcurrentHashMap<>();
+
+    private final Timer decodeTimer;
+
+    private final Counter rawBytes;
+
+    private final Counter storedBytes;
+
+    private volatile int dictionaryId = NO_DICTIONARY;
+
+    private volatile ZstdDictCompress compressor;
+
+    public TextCodec(JdbcTemplate jdbcTemplate, DataSource dataSource, MeterRegistry meterRegistry,
+                     @Value("${qna.compression.min-length}") int minLength,
+                     @Value("${qna.compression.level}") int level,
+                     @Value("${qna.compression.dictionary-size}") int dictionarySize,
+                     @Value("${qna.compression.dictionary-samples}") int dictionarySamples) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.primary = new JdbcTemplate(ShardRouting.primary(dataSource));
+        this.minLength = minLength;
+        this.level = level;
+        this.dictionarySize = dictionarySize;
+        this.dictionarySamples = dictionarySamples;
+        this.decodeTimer = meterRegistry.timer("qna.text.decode");
+        this.rawBytes = meterRegistry.counter("qna.text.compressed.bytes", "form", "raw");
+        this.storedBytes = meterRegistry.counter("qna.text.compressed.bytes", "form", "stored");
+        for (String table : List.of("questions", "answers")) {
+            Gauge.builder("qna.table.size", this, codec -> codec.tableSize(table))
+                    .description("Size of the table with its partitions, indexes and TOAST storage")
+                    .tag("table", table)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            if (!useLatestDictionary()) {
+                train();
+                useLatestDictionary();
+            }
+        } catch (DataAccessException | ZstdException e) {
+            log.warn("Compressing without a dictionary", e);
+        }
+    }
+
+    /**
+     * Forgets the dictionaries after a snapshot restore replaced {@code text_dictionaries}, where
+     * an id may now stand for different bytes. Does not train one, restored bodies may still need
+     * a dictionary missing from an older snapshot.
+     */
+    public synchronized void reloaded() {
+        dictionaryId = NO_DICTIONARY;
+        decompressors.clear();
+        try {
+            useLatestDictionary();
+        } catch (DataAccessException | ZstdException e) {
+            log.warn("Compressing without a dictionary", e);
+        }
+    }
+
+    public String encode(String text) {
+        boolean marked = !text.isEmpty() && text.charAt(0) == MARKER;
+        if (text.length() < minLength && !marked) return text;
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        int id = dictionaryId;
+        ZstdDictCompress dictionary = compressor;
+        byte[] frame = id == NO_DICTIONARY ? Zstd.compress(raw, level) : Zstd.compress(raw, dictionary);
+        String encoded = MARKER + Integer.toString(id) + ':' + Base64.getEncoder().encodeToString(frame);
+        if (encoded.length() >= raw.length && !marked) return text;
+        rawBytes.increment(raw.length);
+        storedBytes.increment(encoded.length());
+        return encoded;
+    }
+
+    public String decode(String stored) {
+        if (stored.isEmpty() || stored.charAt(0) != MARKER) return stored;
+        return decodeTimer.record(() -> {
+            int colon = stored.indexOf(':');
+            int id = Integer.parseInt(stored, 1, colon, 10);
+            byte[] frame = Base64.getDecoder().decode(stored.substring(colon + 1));
+            int size = (int) Zstd.getFrameContentSize(frame);
+            byte[] raw = id == NO_DICTIONARY ? Zstd.decompress(frame, size) : Zstd.decompress(frame, decompressor(id), size);
+            return new String(raw, StandardCharsets.UTF_8);
+        });
+    }
+
+    private boolean useLatestDictionary() {
+        List<Integer> ids = primary.queryForList("SELECT id FROM text_dictionaries ORDER BY id DESC LIMIT 1",
+                Integer.class);
+        if (ids.isEmpty()) return false;
+        int id = ids.get(0);
+        compressor = new ZstdDictCompress(dictionary(id), level);
+        dictionaryId = id;
+        log.info("Compressing with dictionary {}", id);
+        return true;
+    }
+
+    // on the newest long answers; another instance may have trained one at the same time, the first one wins
+    private void train() {
+        ZstdDictTrainer trainer = new ZstdDictTrainer(dictionarySize * 100, dictionarySize);
+        int[] samples = {0};
+        jdbcTemplate.query(SAMPLES_SQL, rs -> {
+            if (trainer.addSample(rs.getString(1).getBytes(StandardCharsets.UTF_8))) samples[0]++;
+        }, minLength, dictionarySamples);
+        if (samples[0] < MIN_SAMPLES) {
+            log.info("Not training a dictionary from only {} long answers", samples[0]);
+            return;
+        }
+        byte[] dictionary = trainer.trainSamples();
+        primary.update("INSERT INTO text_dictionaries (id, dictionary) VALUES (1, ?) ON CONFLICT DO NOTHING",
+                (Object) dictionary);
+        log.info("Trained a {} byte dictionary from {} answers", dictionary.length, samples[0]);
+    }
+
+    private ZstdDictDecompress decompressor(int id) {
+        return decompressors.computeIfAbsent(id, i -> new ZstdDictDecompress(dictionary(i)));
+    }
+
+    private byte[] dictionary(int id) {
+        return primary.queryForObject("SELECT dictionary FROM text_dictionaries WHERE id = ?", byte[].class, id);
+    }
+
+    private double tableSize(String table) {
+        try {
+            Long size = jdbcTemplate.queryForObject(
+                    "SELECT sum(pg_total_relation_size(relid)) FROM pg_partition_tree(?::regclass)", Long.class, table);
+            return size == null ? Double.NaN : size;
+        } catch (DataAccessException e) {
+            return Double.NaN;
+        }
+    }
+}
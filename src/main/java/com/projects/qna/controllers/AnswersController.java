@@ -1,6 +1,8 @@
 package com.projects.qna.controllers;
 
+import com.projects.qna.auth.AuthInterceptor;
 import com.projects.qna.model.Answer;
+import com.projects.qna.model.Vote;
 import com.projects.qna.service.AnswerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -8,12 +10,18 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.Data;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @Data
@@ -22,37 +30,81 @@ public class AnswersController {
 
     private final AnswerService answerService;
 
+    private final Bulkheads bulkheads;
+
     @GetMapping("/{id}")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Answer found",
                     content = @Content(schema = @Schema(implementation = Answer.class))),
             @ApiResponse(responseCode = "404", description = "Answer not found")
     })
-    public ResponseEntity<Object> getAnswer(@PathVariable Long id) {
-        return ResponseEntity.ok(answerService.getAnswer(id));
+    public DeferredResult<ResponseEntity<Object>> getAnswer(@PathVariable Long id) {
+        return bulkheads.submit(Bulkheads.Workload.POINT_READ, () -> ResponseEntity.ok(answerService.getAnswer(id)));
     }
 
     @GetMapping
-    @Operation(summary = "Get all answers", description = "Get all answers in the answers db")
-    public List<Answer> getAllAnswers() {
-        return answerService.getAllAnswers();
+    @Operation(summary = "Get all answers", description = "Get all answers in the answers db. " +
+            "With fields=... only those fields of the first limit answers are selected and returned")
+    public DeferredResult<List<?>> getAllAnswers(@RequestParam(required = false) Set<String> fields,
+                                                 @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit) {
+        return bulkheads.submit(Bulkheads.Workload.LIST, () -> {
+            if (fields == null) {
+                return answerService.getAllAnswers();
+            }
+            return answerService.getAnswerFields(fields, limit);
+        });
+    }
+
+    @GetMapping(produces = {BinaryLists.CBOR_VALUE, BinaryLists.SMILE_VALUE})
+    @Operation(summary = "Get all answers as CBOR or Smile", description = "Same as get all answers, " +
+            "without fields the whole table is streamed in id order")
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> getAllAnswersBinary(@RequestHeader(HttpHeaders.ACCEPT) String accept,
+                                                                                     @RequestParam(required = false) Set<String> fields,
+                                                                                     @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit) {
+        return bulkheads.submit(Bulkheads.Workload.LIST, () -> {
+            if (fields == null) {
+                return BinaryLists.stream(accept, bulkheads, answerService::getAnswersAfter, Answer::getAnsId);
+            }
+            return BinaryLists.write(accept, answerService.getAnswerFields(fields, limit));
+        });
     }
 
     @PostMapping
-    public ResponseEntity<Answer> createAnswer(@Valid @RequestBody Answer answer) {
-        Answer createdAnswer = answerService.createAnswer(answer);
-        return ResponseEntity.created(URI.create("/answers/" + createdAnswer.getAnsId())).body(createdAnswer);
+    public DeferredResult<ResponseEntity<Answer>> createAnswer(@Valid @RequestBody Answer answer,
+                                                               @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false)
+                                                               Long callerId) {
+        if (callerId != null) answer.setUserId(callerId);
+        return bulkheads.submit(Bulkheads.Workload.WRITE, () -> {
+            Answer createdAnswer = answerService.createAnswer(answer);
+            return ResponseEntity.created(URI.create("/answers/" + createdAnswer.getAnsId())).body(createdAnswer);
+        });
     }
 
     @PutMapping("/{id}")
     @Operation(summary = "Update a answer", description = "Update a answer with given ID")
-    public ResponseEntity<Answer> updateAnswer(@PathVariable Long id, @Valid @RequestBody Answer answer) {
-        return ResponseEntity.ok(answerService.updateAnswer(id, answer));
+    public DeferredResult<ResponseEntity<Answer>> updateAnswer(@PathVariable Long id, @Valid @RequestBody Answer answer,
+                                                               @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false)
+                                                               Long callerId) {
+        return bulkheads.submit(Bulkheads.Workload.WRITE,
+                () -> ResponseEntity.ok(answerService.updateAnswer(id, answer, callerId)));
+    }
+
+    @PutMapping("/{id}/vote")
+    @Operation(summary = "Vote on an answer", description = "Up vote (1), down vote (-1) or withdraw a vote (0)")
+    public DeferredResult<ResponseEntity<Answer>> voteAnswer(@PathVariable Long id, @Valid @RequestBody Vote vote,
+                                                             @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false)
+                                                             Long authenticatedUserId) {
+        if (authenticatedUserId != null) vote.setUserId(authenticatedUserId);
+        return bulkheads.submit(Bulkheads.Workload.WRITE, () -> ResponseEntity.ok(answerService.vote(id, vote)));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<String> deleteAnswer(@PathVariable Long id) {
-        answerService.deleteAnswer(id);
-        return ResponseEntity.ok("Answer with id : " + id + " deleted");
+    public DeferredResult<ResponseEntity<String>> deleteAnswer(@PathVariable Long id,
+                                                               @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false)
+                                                               Long callerId) {
+        return bulkheads.submit(Bulkheads.Workload.WRITE, () -> {
+            answerService.deleteAnswer(id, callerId);
+            return ResponseEntity.ok("Answer with id : " + id + " deleted");
+        });
     }
 }
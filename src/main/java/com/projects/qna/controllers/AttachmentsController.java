@@ -0,0 +1,151 @@
+package com.projects.qna.controllers;
+
+import com.projects.qna.auth.AuthInterceptor;
+import com.projects.qna.model.AnswerAttachment;
+import com.projects.qna.service.AttachmentService;
+import com.projects.qna.service.AttachmentStore;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+@RestController
+@Data
+@RequestMapping("/answers/{ansId}/attachments")
+public class AttachmentsController {
+
+    // set by Tomcat's NIO connector, which then writes the file itself after the handler returns
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // svg may carry scripts, so it is downloaded rather than shown
+    private static final List<String> INLINE_TYPES = List.of("image/png", "image/jpeg", "image/gif", "image/webp");
+
+    private final AttachmentService attachmentService;
+
+    private final Bulkheads bulkheads;
+
+    @PostMapping(consumes = MediaType.ALL_VALUE)
+    @Operation(summary = "Attach a file to an answer", description = "Stream the file as the request body, " +
+            "its Content-Type is kept for downloads. Attaching the same bytes again returns the existing attachment")
+    public DeferredResult<ResponseEntity<AnswerAttachment>> attach(@PathVariable Long ansId,
+                                                                   @RequestParam @Pattern(regexp = "[^/\\\\\\p{Cntrl}]{1,255}") String name,
+                                                                   @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+                                                                   InputStream body,
+                                                                   @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false)
+                                                                   Long callerId) throws IOException {
+        String type = contentType == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : contentType;
+        // the body is read here: a write thread would otherwise wait on the client for up to max-size
+        AttachmentStore.Blob blob = attachmentService.upload(ansId, body, callerId);
+        return bulkheads.submit(Bulkheads.Workload.WRITE, () -> {
+            AnswerAttachment attachment = attachmentService.attach(ansId, name, type, blob);
+            return ResponseEntity.created(URI.create("/answers/" + ansId + "/attachments/" + attachment.getSha256()))
+                    .body(attachment);
+        });
+    }
+
+    @GetMapping
+    public DeferredResult<List<AnswerAttachment>> getAttachments(@PathVariable Long ansId) {
+        return bulkheads.submit(Bulkheads.Workload.POINT_READ, () -> attachmentService.getAttachments(ansId));
+    }
+
+    /**
+     * Served on the request thread rather than a bulkhead: with sendfile the connector copies the
+     * file from the page cache to the socket once this returns, otherwise the channel transfer
+     * does without buffering the file on the heap. A single byte range is honoured, requests for
+     * several get the whole file.
+     */
+    @GetMapping("/{sha256}")
+    @Operation(summary = "Download an attachment", description = "Supports Range, If-Range and If-None-Match; " +
+            "the ETag is the SHA-256 of the content, which never changes")
+    public void download(@PathVariable Long ansId, @PathVariable String sha256,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AnswerAttachment attachment = attachmentService.getAttachment(ansId, sha256);
+        String etag = "\"" + attachment.getSha256() + "\"";
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) return;
+
+        long size = attachment.getSize();
+        long start = 0;
+        long end = size;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> ranges = parseRanges(range);
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size) + 1;
+                } catch (IllegalArgumentException e) {
+                    start = size;
+                }
+                if (start >= end) {
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + size);
+            }
+        }
+        String contentType = attachment.getContentType();
+        response.setContentType(contentType);
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        ContentDisposition.Builder disposition = INLINE_TYPES.contains(contentType)
+                ? ContentDisposition.inline() : ContentDisposition.attachment();
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                disposition.filename(attachment.getName(), StandardCharsets.UTF_8).build().toString());
+        response.setContentLengthLong(end - start);
+        if (request.getMethod().equals("HEAD")) return;
+
+        Path file = attachmentService.file(attachment);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            for (long position = start; position < end; ) {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+    // a malformed Range header is ignored, as if it was not sent
+    private static List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+}
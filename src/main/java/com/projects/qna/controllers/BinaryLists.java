@@ -0,0 +1,93 @@
+package com.projects.qna.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Writes list responses as CBOR or Smile arrays for clients that ask for a binary format. Whole
+ * tables are read in id order one page at a time and each page is flushed before the next one is
+ * loaded, so neither the table nor the encoded response is ever held in memory. Lists are loaded
+ * in the list bulkhead: the first page by the caller, which runs there, the following ones from
+ * the thread writing the response.
+ */
+final class BinaryLists {
+
+    static final String CBOR_VALUE = MediaType.APPLICATION_CBOR_VALUE;
+
+    static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    static final int PAGE_SIZE = 500;
+
+    private static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
+    private static final ObjectWriter CBOR_WRITER = writer(new CBORMapper());
+
+    private static final ObjectWriter SMILE_WRITER = writer(new SmileMapper());
+
+    private BinaryLists() {
+    }
+
+    private static ObjectWriter writer(ObjectMapper mapper) {
+        return mapper.findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    static <T> ResponseEntity<StreamingResponseBody> stream(String accept, Bulkheads bulkheads,
+                                                            BiFunction<Long, Integer, List<T>> pageAfter,
+                                                            Function<T, Long> id) {
+        List<T> first = pageAfter.apply(0L, PAGE_SIZE);
+        return respond(accept, array -> {
+            List<T> page = first;
+            while (true) {
+                array.writeAll(page);
+                array.flush();
+                if (page.size() < PAGE_SIZE) break;
+                Long after = id.apply(page.get(page.size() - 1));
+                page = bulkheads.call(Bulkheads.Workload.LIST, () -> pageAfter.apply(after, PAGE_SIZE));
+            }
+        });
+    }
+
+    static ResponseEntity<StreamingResponseBody> write(String accept, List<?> list) {
+        return respond(accept, array -> array.writeAll(list));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> respond(String accept, ArrayBody content) {
+        MediaType mediaType = negotiate(accept);
+        ObjectWriter writer = SMILE.equals(mediaType) ? SMILE_WRITER : CBOR_WRITER;
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter array = writer.writeValuesAsArray(out)) {
+                content.writeTo(array);
+            }
+        };
+        return ResponseEntity.ok().contentType(mediaType).body(body);
+    }
+
+    private interface ArrayBody {
+        void writeTo(SequenceWriter array) throws IOException;
+    }
+
+    // the mapping only matches when one of the binary types is acceptable, pick the preferred one
+    private static MediaType negotiate(String accept) {
+        return MediaType.parseMediaTypes(accept).stream()
+                .filter(type -> MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(type) || SMILE.equalsTypeAndSubtype(type))
+                .reduce((preferred, type) -> type.getQualityValue() > preferred.getQualityValue() ? type : preferred)
+                .map(type -> SMILE.equalsTypeAndSubtype(type) ? SMILE : MediaType.APPLICATION_CBOR)
+                .orElse(MediaType.APPLICATION_CBOR);
+    }
+}
@@ -0,0 +1,22 @@
+package com.projects.qna.controllers;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Size, queue and timeout of the executor of every {@link Bulkheads.Workload}.
+ */
+@ConfigurationProperties("qna.bulkheads")
+public record BulkheadProperties(Limits pointRead, Limits list, Limits write, Limits admin) {
+
+    public enum Rejection {
+        // answer 503 right away
+        REJECT,
+        // run on the request thread, slowing down the client instead of failing it
+        CALLER_RUNS
+    }
+
+    public record Limits(int threads, int queue, Duration timeout, Rejection rejection) {
+    }
+}
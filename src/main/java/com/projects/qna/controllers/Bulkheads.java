@@ -0,0 +1,189 @@
+package com.projects.qna.controllers;
+
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs request handling on a bounded executor per class of workload, so that slow list scans can
+ * only exhaust their own threads and queue, never the request threads or the executors serving
+ * point reads and writes. Work that does not fit into the queue is rejected (or run by the caller,
+ * if so configured). Reads still unfinished after the timeout answer 503 and are dropped if they
+ * have not started yet. Writes and admin work only time out while they are queued: once started
+ * they may commit, so the client waits for their actual outcome instead of a misleading 503.
+ */
+@Component
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class Bulkheads implements MeterBinder {
+
+    @RequiredArgsConstructor
+    public enum Workload {
+        POINT_READ("point-read", false),
+        LIST("list", false),
+        WRITE("write", true),
+        ADMIN("admin", true);
+
+        private final String name;
+
+        private final boolean sideEffects;
+    }
+
+    // servlet async timeouts of zero or less never expire
+    private static final long NO_TIMEOUT = -1;
+
+    private final Map<Workload, Bulkhead> bulkheads = new EnumMap<>(Workload.class);
+
+    private final ScheduledThreadPoolExecutor queueTimeouts = new ScheduledThreadPoolExecutor(1,
+            Thread.ofPlatform().name("bulkhead-timeouts").daemon().factory());
+
+    public Bulkheads(BulkheadProperties properties) {
+        queueTimeouts.setRemoveOnCancelPolicy(true);
+        bulkheads.put(Workload.POINT_READ, new Bulkhead(Workload.POINT_READ, properties.pointRead()));
+        bulkheads.put(Workload.LIST, new Bulkhead(Workload.LIST, properties.list()));
+        bulkheads.put(Workload.WRITE, new Bulkhead(Workload.WRITE, properties.write()));
+        bulkheads.put(Workload.ADMIN, new Bulkhead(Workload.ADMIN, properties.admin()));
+    }
+
+    public <T> DeferredResult<T> submit(Workload workload, Callable<T> task) {
+        Bulkhead bulkhead = bulkheads.get(workload);
+        long timeout = bulkhead.limits.timeout().toMillis();
+        DeferredResult<T> result = new DeferredResult<>(workload.sideEffects ? NO_TIMEOUT : timeout);
+        // whichever of starting the task and timing it out in the queue comes first wins
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<?> future;
+        try {
+            future = bulkhead.executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) return;
+                try {
+                    result.setResult(task.call());
+                } catch (Throwable e) {
+                    result.setErrorResult(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.setErrorResult(ServiceException.of(ServiceError.SERVICE_BUSY));
+            return result;
+        }
+        if (workload.sideEffects) {
+            ScheduledFuture<?> queueTimeout = queueTimeouts.schedule(() -> {
+                if (!claimed.compareAndSet(false, true)) return;
+                bulkhead.timeouts.increment();
+                future.cancel(false);
+                result.setErrorResult(ServiceException.of(ServiceError.SERVICE_BUSY));
+            }, timeout, TimeUnit.MILLISECONDS);
+            result.onCompletion(() -> queueTimeout.cancel(false));
+        } else {
+            result.onTimeout(() -> {
+                bulkhead.timeouts.increment();
+                future.cancel(false);
+                result.setErrorResult(ServiceException.of(ServiceError.SERVICE_BUSY));
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Runs a read on the workload's executor and waits for it, for reads made from a thread the
+     * bulkhead does not own, such as the next page of a streamed response.
+     */
+    public <T> T call(Workload workload, Callable<T> task) {
+        if (workload.sideEffects) throw new IllegalArgumentException("Only reads can be waited for: " + workload.name);
+        Bulkhead bulkhead = bulkheads.get(workload);
+        Future<T> future;
+        try {
+            future = bulkhead.executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw ServiceException.of(ServiceError.SERVICE_BUSY);
+        }
+        try {
+            return future.get(bulkhead.limits.timeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            bulkhead.timeouts.increment();
+            future.cancel(false);
+            throw ServiceException.of(ServiceError.SERVICE_BUSY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("Interrupted while waiting for the " + workload.name + " bulkhead", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bulkheads.values().forEach(bulkhead -> bulkhead.bindTo(registry));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queueTimeouts.shutdownNow();
+        bulkheads.values().forEach(bulkhead -> bulkhead.executor.shutdown());
+    }
+
+    private static final class Bulkhead {
+
+        private final Workload workload;
+
+        private final BulkheadProperties.Limits limits;
+
+        private final ThreadPoolExecutor executor;
+
+        private final LongAdder rejected = new LongAdder();
+
+        private final LongAdder timeouts = new LongAdder();
+
+        Bulkhead(Workload workload, BulkheadProperties.Limits limits) {
+            this.workload = workload;
+            this.limits = limits;
+            RejectedExecutionHandler policy = limits.rejection() == BulkheadProperties.Rejection.CALLER_RUNS
+                    ? new ThreadPoolExecutor.CallerRunsPolicy() : new ThreadPoolExecutor.AbortPolicy();
+            this.executor = new ThreadPoolExecutor(limits.threads(), limits.threads(), 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(limits.queue()),
+                    Thread.ofPlatform().name("bulkhead-" + workload.name + "-", 0).factory(),
+                    (task, pool) -> {
+                        rejected.increment();
+                        policy.rejectedExecution(task, pool);
+                    });
+        }
+
+        void bindTo(MeterRegistry registry) {
+            Tags tags = Tags.of("workload", workload.name);
+            new ExecutorServiceMetrics(executor, "bulkhead-" + workload.name, Tags.empty()).bindTo(registry);
+            // 1 once every thread is busy and the queue is full
+            Gauge.builder("qna.bulkhead.saturation", executor, pool ->
+                            (double) (pool.getActiveCount() + pool.getQueue().size()) / (limits.threads() + limits.queue()))
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("qna.bulkhead.rejected", rejected, LongAdder::sum).tags(tags).register(registry);
+            FunctionCounter.builder("qna.bulkhead.timeouts", timeouts, LongAdder::sum).tags(tags).register(registry);
+        }
+    }
+}
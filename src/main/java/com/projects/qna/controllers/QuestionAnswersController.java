@@ -0,0 +1,40 @@
+package com.projects.qna.controllers;
+
+import com.projects.qna.model.Answer;
+import com.projects.qna.service.AnswerService;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@Data
+@RequestMapping("/questions/{id}/answers")
+public class QuestionAnswersController {
+
+    private final AnswerService answerService;
+
+    private final Bulkheads bulkheads;
+
+    @GetMapping
+    @Operation(summary = "Get answers of a question",
+            description = "Get the answers of a question, ordered by id or, with sort=score, by vote score")
+    public DeferredResult<List<Answer>> getAnswers(@PathVariable Long id,
+                                                   @RequestParam(required = false) String sort,
+                                                   @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit) {
+        return bulkheads.submit(Bulkheads.Workload.LIST, () -> answerService.getAnswersForQuestion(id, sort, limit));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream new answers of a question",
+            description = "Server-sent events, one \"answer\" event per answer created after subscribing")
+    public SseEmitter streamAnswers(@PathVariable Long id) {
+        return answerService.streamAnswers(id);
+    }
+}
@@ -0,0 +1,97 @@
+package com.projects.qna.controllers;
+
+import com.projects.qna.cache.FragmentCache;
+import com.projects.qna.model.Question;
+import com.projects.qna.service.AnswerService;
+import com.projects.qna.service.QuestionService;
+import lombok.Data;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Server-rendered question list and question thread for crawlers and clients without
+ * JavaScript. Pages are stitched together from the {@link FragmentCache} and streamed, the list
+ * is flushed every few cards. What a page shows is read in the list bulkhead before anything is
+ * streamed, so writing the response only copies strings.
+ */
+@Controller
+@Data
+@RequestMapping("/pages/questions")
+public class QuestionPages {
+
+    private static final int LIST_SIZE = 50;
+
+    private static final int ANSWERS_SIZE = 100;
+
+    private static final int FLUSH_EVERY = 10;
+
+    private static final int TITLE_LENGTH = 70;
+
+    private static final MediaType HTML = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8);
+
+    private final QuestionService questionService;
+
+    private final AnswerService answerService;
+
+    private final FragmentCache fragmentCache;
+
+    private final Bulkheads bulkheads;
+
+    @GetMapping(produces = MediaType.TEXT_HTML_VALUE)
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> questions() {
+        String page = fragmentCache.page("questions", "Recently active questions");
+        return bulkheads.submit(Bulkheads.Workload.LIST, () -> {
+            List<Question> questions = questionService.getQuestions("activity", false, LIST_SIZE);
+            return stream(page, writer -> {
+                for (int i = 0; i < questions.size(); i++) {
+                    writer.write(fragmentCache.questionCard(questions.get(i)));
+                    if (i % FLUSH_EVERY == FLUSH_EVERY - 1) writer.flush();
+                }
+            });
+        });
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.TEXT_HTML_VALUE)
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> question(@PathVariable Long id) {
+        return bulkheads.submit(Bulkheads.Workload.LIST, () -> {
+            Question question = questionService.getQuestion(id);
+            String qn = question.getQn();
+            String page = fragmentCache.page(id.toString(), qn.length() > TITLE_LENGTH ? qn.substring(0, TITLE_LENGTH) : qn);
+            String card = fragmentCache.questionCard(question);
+            String answers = fragmentCache.answerList(id, () -> answerService.getAnswersForQuestion(id, "score", ANSWERS_SIZE));
+            return stream(page, writer -> {
+                writer.write(card);
+                writer.write(answers);
+            });
+        });
+    }
+
+    private static ResponseEntity<StreamingResponseBody> stream(String page, Content content) {
+        int at = page.indexOf(FragmentCache.CONTENT);
+        return ResponseEntity.ok().contentType(HTML).body(out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.write(page, 0, at);
+            writer.flush();
+            content.write(writer);
+            writer.write(page, at + FragmentCache.CONTENT.length(), page.length() - at - FragmentCache.CONTENT.length());
+            writer.flush();
+        });
+    }
+
+    @FunctionalInterface
+    private interface Content {
+        void write(Writer writer) throws IOException;
+    }
+}
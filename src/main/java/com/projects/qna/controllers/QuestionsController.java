@@ -1,58 +1,145 @@
 package com.projects.qna.controllers;
 
+import com.projects.qna.auth.AuthInterceptor;
+import com.projects.qna.cache.TitleIndex;
 import com.projects.qna.model.Question;
 import com.projects.qna.service.QuestionService;
+import com.projects.qna.service.TaggedQuestions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.Data;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @Data
 @RequestMapping("/questions")
 public class QuestionsController {
 
+    private static final int DEFAULT_LIMIT = 100;
+
     private final QuestionService questionService;
 
+    private final Bulkheads bulkheads;
+
     @GetMapping("/{id}")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Question found",
                     content = @Content(schema = @Schema(implementation = Question.class))),
             @ApiResponse(responseCode = "404", description = "Question not found")
     })
-    public ResponseEntity<Object> getQuestion(@PathVariable Long id) {
-        return ResponseEntity.ok(questionService.getQuestion(id));
+    public DeferredResult<ResponseEntity<Object>> getQuestion(@PathVariable Long id) {
+        return bulkheads.submit(Bulkheads.Workload.POINT_READ, () -> ResponseEntity.ok(questionService.getQuestion(id)));
     }
 
     @GetMapping
-    @Operation(summary = "Get all questions", description = "Get all questions in the questions db")
-    public List<Question> getAllQuestions() {
-        return questionService.getAllQuestions();
+    @Operation(summary = "Get all questions", description = "Get all questions in the questions db, " +
+            "or a page of them ordered by id, activity or answers and optionally only the unanswered ones. " +
+            "With fields=qnId,qn,... only those fields are selected and returned")
+    public DeferredResult<List<?>> getAllQuestions(@RequestParam(required = false) String sort,
+                                                   @RequestParam(required = false) Boolean unanswered,
+                                                   @RequestParam(required = false) @Min(1) @Max(1000) Integer limit,
+                                                   @RequestParam(required = false) Set<String> fields) {
+        return bulkheads.submit(Bulkheads.Workload.LIST, () -> listQuestions(sort, unanswered, limit, fields));
+    }
+
+    private List<?> listQuestions(String sort, Boolean unanswered, Integer limit, Set<String> fields) {
+        if (sort == null && unanswered == null && limit == null && fields == null) {
+            return questionService.getAllQuestions();
+        }
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        boolean onlyUnanswered = Boolean.TRUE.equals(unanswered);
+        if (fields != null) {
+            return questionService.getQuestionFields(fields, sort, onlyUnanswered, pageSize);
+        }
+        return questionService.getQuestions(sort, onlyUnanswered, pageSize);
+    }
+
+    @GetMapping(produces = {BinaryLists.CBOR_VALUE, BinaryLists.SMILE_VALUE})
+    @Operation(summary = "Get all questions as CBOR or Smile", description = "Same as get all questions, " +
+            "without parameters the whole table is streamed in id order")
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> getAllQuestionsBinary(@RequestHeader(HttpHeaders.ACCEPT) String accept,
+                                                                                       @RequestParam(required = false) String sort,
+                                                                                       @RequestParam(required = false) Boolean unanswered,
+                                                                                       @RequestParam(required = false) @Min(1) @Max(1000) Integer limit,
+                                                                                       @RequestParam(required = false) Set<String> fields) {
+        return bulkheads.submit(Bulkheads.Workload.LIST, () -> {
+            if (sort == null && unanswered == null && limit == null && fields == null) {
+                return BinaryLists.stream(accept, bulkheads, questionService::getQuestionsAfter, Question::getQnId);
+            }
+            return BinaryLists.write(accept, listQuestions(sort, unanswered, limit, fields));
+        });
+    }
+
+    @GetMapping("/hot")
+    @Operation(summary = "Get trending questions", description = "Get the questions with the most recent activity")
+    public DeferredResult<List<Question>> getHotQuestions(@RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return bulkheads.submit(Bulkheads.Workload.POINT_READ, () -> questionService.getHotQuestions(limit));
+    }
+
+    @GetMapping("/suggest")
+    @Operation(summary = "Suggest questions", description = "Get the most viewed questions whose titles start " +
+            "with prefix, ignoring case and repeated spaces")
+    public DeferredResult<List<TitleIndex.Suggestion>> suggestQuestions(@RequestParam String prefix,
+                                                                        @RequestParam(defaultValue = "10") @Min(1) @Max(TitleIndex.TOP_K) int limit) {
+        return bulkheads.submit(Bulkheads.Workload.POINT_READ, () -> questionService.suggestQuestions(prefix, limit));
+    }
+
+    @GetMapping("/tagged")
+    @Operation(summary = "Get questions by tags", description = "Get the questions tagged with every tag in all, " +
+            "at least one in any and none in not, newest first, with the counts of the most frequent other tags " +
+            "among all of them. Pass next as before to get the following page")
+    public DeferredResult<TaggedQuestions> getTaggedQuestions(@RequestParam(required = false) Set<String> all,
+                                                              @RequestParam(required = false) Set<String> any,
+                                                              @RequestParam(name = "not", required = false) Set<String> none,
+                                                              @RequestParam(required = false) Long before,
+                                                              @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit,
+                                                              @RequestParam(defaultValue = "10") @Min(0) @Max(100) int facets) {
+        return bulkheads.submit(Bulkheads.Workload.LIST,
+                () -> questionService.getTaggedQuestions(all, any, none, before, limit, facets));
     }
 
     @PostMapping
-    public ResponseEntity<Question> createQuestion(@Valid @RequestBody Question question) {
-        Question createdQuestion = questionService.createQuestion(question);
-        return ResponseEntity.created(URI.create("/questions/" + createdQuestion.getQnId())).body(createdQuestion);
+    public DeferredResult<ResponseEntity<Question>> createQuestion(@Valid @RequestBody Question question,
+                                                                   @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false)
+                                                                   Long callerId) {
+        if (callerId != null) question.setUserId(callerId);
+        return bulkheads.submit(Bulkheads.Workload.WRITE, () -> {
+            Question createdQuestion = questionService.createQuestion(question);
+            return ResponseEntity.created(URI.create("/questions/" + createdQuestion.getQnId())).body(createdQuestion);
+        });
     }
 
     @PutMapping("/{id}")
     @Operation(summary = "Update a question", description = "Update a question with given ID")
-    public ResponseEntity<Question> updateQuestion(@PathVariable Long id, @Valid @RequestBody Question question) {
-        return ResponseEntity.ok(questionService.updateQuestion(id, question));
+    public DeferredResult<ResponseEntity<Question>> updateQuestion(@PathVariable Long id,
+                                                                   @Valid @RequestBody Question question,
+                                                                   @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false)
+                                                                   Long callerId) {
+        return bulkheads.submit(Bulkheads.Workload.WRITE,
+                () -> ResponseEntity.ok(questionService.updateQuestion(id, question, callerId)));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<String> deleteQuestion(@PathVariable Long id) {
-        questionService.deleteQuestion(id);
-        return ResponseEntity.ok("Question with id : " + id + " deleted");
+    public DeferredResult<ResponseEntity<String>> deleteQuestion(@PathVariable Long id,
+                                                                 @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false)
+                                                                 Long callerId) {
+        return bulkheads.submit(Bulkheads.Workload.WRITE, () -> {
+            questionService.deleteQuestion(id, callerId);
+            return ResponseEntity.ok("Question with id : " + id + " deleted");
+        });
     }
 }
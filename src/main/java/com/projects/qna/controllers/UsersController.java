@@ -1,6 +1,9 @@
 package com.projects.qna.controllers;
 
+import com.projects.qna.auth.AuthInterceptor;
 import com.projects.qna.model.User;
+import com.projects.qna.service.ActivityPage;
+import com.projects.qna.service.ActivityService;
 import com.projects.qna.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -8,13 +11,19 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.Data;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @Data
@@ -23,38 +32,79 @@ public class UsersController {
 
     private final UserService userService;
 
+    private final ActivityService activityService;
+
+    private final Bulkheads bulkheads;
+
     @GetMapping("/{id}")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User found",
                     content = @Content(schema = @Schema(implementation = User.class))),
             @ApiResponse(responseCode = "404", description = "User not found")
     })
-    public ResponseEntity<Object> getUser(@PathVariable Long id) {
-        return ResponseEntity.ok(userService.getUser(id));
+    public DeferredResult<ResponseEntity<Object>> getUser(@PathVariable Long id) {
+        return bulkheads.submit(Bulkheads.Workload.POINT_READ, () -> ResponseEntity.ok(userService.getUser(id)));
+    }
+
+    @GetMapping("/{id}/activity")
+    @Operation(summary = "Get a user's activity", description = "Questions and answers of a user, newest first. " +
+            "Pass the returned next cursor to get the following page")
+    public DeferredResult<ActivityPage> getActivity(@PathVariable Long id, @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return bulkheads.submit(Bulkheads.Workload.LIST, () -> activityService.getActivity(id, cursor, limit));
     }
 
     @GetMapping
-    @Operation(summary = "Get all users", description = "Get all users in the users db")
-    public List<User> getAllUsers() {
-        return userService.getAllUsers();
+    @Operation(summary = "Get all users", description = "Get all users in the users db. " +
+            "With fields=... only those fields of the first limit users are selected and returned")
+    public DeferredResult<List<?>> getAllUsers(@RequestParam(required = false) Set<String> fields,
+                                               @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit) {
+        return bulkheads.submit(Bulkheads.Workload.LIST, () -> {
+            if (fields == null) {
+                return userService.getAllUsers();
+            }
+            return userService.getUserFields(fields, limit);
+        });
+    }
+
+    @GetMapping(produces = {BinaryLists.CBOR_VALUE, BinaryLists.SMILE_VALUE})
+    @Operation(summary = "Get all users as CBOR or Smile", description = "Same as get all users, " +
+            "without fields the whole table is streamed in id order")
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> getAllUsersBinary(@RequestHeader(HttpHeaders.ACCEPT) String accept,
+                                                                                   @RequestParam(required = false) Set<String> fields,
+                                                                                   @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit) {
+        return bulkheads.submit(Bulkheads.Workload.LIST, () -> {
+            if (fields == null) {
+                return BinaryLists.stream(accept, bulkheads, userService::getUsersAfter, User::getUserId);
+            }
+            return BinaryLists.write(accept, userService.getUserFields(fields, limit));
+        });
     }
 
     @PostMapping
-    public ResponseEntity<User> createUser(@Valid @RequestBody User user) {
-        User createdUser = userService.createUser(user);
-        return ResponseEntity.created(URI.create("/users/" + createdUser.getUserId())).body(createdUser);
+    public DeferredResult<ResponseEntity<User>> createUser(@Valid @RequestBody User user) {
+        return bulkheads.submit(Bulkheads.Workload.WRITE, () -> {
+            User createdUser = userService.createUser(user);
+            return ResponseEntity.created(URI.create("/users/" + createdUser.getUserId())).body(createdUser);
+        });
     }
 
     @PutMapping("/{id}")
     @Operation(summary = "Update a user", description = "Update a user with given ID")
-    public ResponseEntity<Object> updateUser(@PathVariable Long id, @Valid @RequestBody User user) {
-        return ResponseEntity.ok(userService.updateUser(id, user));
+    public DeferredResult<ResponseEntity<Object>> updateUser(@PathVariable Long id, @Valid @RequestBody User user,
+                                                             @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false)
+                                                             Long callerId) {
+        return bulkheads.submit(Bulkheads.Workload.WRITE, () -> ResponseEntity.ok(userService.updateUser(id, user, callerId)));
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<String> deleteUser(@PathVariable Long id) {
-        userService.deleteUser(id);
-        return ResponseEntity.ok("User with id : " + id + " deleted");
+    public DeferredResult<ResponseEntity<String>> deleteUser(@PathVariable Long id,
+                                                             @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false)
+                                                             Long callerId) {
+        return bulkheads.submit(Bulkheads.Workload.WRITE, () -> {
+            userService.deleteUser(id, callerId);
+            return ResponseEntity.ok("User with id : " + id + " deleted");
+        });
     }
 
     @ExceptionHandler
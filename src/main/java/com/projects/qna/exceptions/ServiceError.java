@@ -8,7 +8,17 @@ import org.springframework.http.HttpStatus;
 @RequiredArgsConstructor
 @Getter
 public enum ServiceError {
-    ENTITY_NOT_FOUND(HttpStatus.NOT_FOUND, "Entity not found");
+    ENTITY_NOT_FOUND(HttpStatus.NOT_FOUND, "Entity not found"),
+    INVALID_PARAMETER(HttpStatus.BAD_REQUEST, "Invalid request parameter"),
+    INVALID_IMPORT_DATA(HttpStatus.BAD_REQUEST, "Malformed import data"),
+    SNAPSHOT_CORRUPT(HttpStatus.UNPROCESSABLE_ENTITY, "Snapshot file is corrupt"),
+    ATTACHMENT_TOO_LARGE(HttpStatus.PAYLOAD_TOO_LARGE, "Attachment too large"),
+    DUPLICATE_EMAIL(HttpStatus.CONFLICT, "Email already registered"),
+    UNAUTHORIZED(HttpStatus.UNAUTHORIZED, "Authentication required"),
+    INVALID_CREDENTIALS(HttpStatus.UNAUTHORIZED, "Invalid credentials"),
+    FORBIDDEN(HttpStatus.FORBIDDEN, "Not allowed for this user"),
+    SERVICE_BUSY(HttpStatus.SERVICE_UNAVAILABLE, "Service busy, retry later"),
+    NOT_SHARDED(HttpStatus.NOT_IMPLEMENTED, "Not supported while sharding is enabled");
     private final HttpStatus status;
     private final String message;
 }
@@ -1,10 +1,32 @@
 package com.projects.qna.exceptions;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
+
+import java.util.EnumMap;
+import java.util.Map;
 
 @Getter
-@RequiredArgsConstructor
 public class ServiceException extends RuntimeException {
+
+    private static final Map<ServiceError, ServiceException> PREALLOCATED = new EnumMap<>(ServiceError.class);
+
+    static {
+        for (ServiceError error : ServiceError.values()) PREALLOCATED.put(error, new ServiceException(error));
+    }
+
     private final ServiceError error;
+
+    // the response only depends on the error, so no stack trace is captured
+    public ServiceException(ServiceError error) {
+        super(error.getMessage(), null, false, false);
+        this.error = error;
+    }
+
+    /**
+     * Shared instance for hot paths such as not-found lookups. It has neither a stack trace nor
+     * suppressed exceptions, so throwing it from many threads at once is safe.
+     */
+    public static ServiceException of(ServiceError error) {
+        return PREALLOCATED.get(error);
+    }
 }
@@ -5,15 +5,25 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 @RestControllerAdvice
 public class ServiceExceptionHandler {
 
+    // responses are immutable and only depend on the error, so they are built once
+    private static final Map<ServiceError, ResponseEntity<ServiceErrorBody>> RESPONSES = new EnumMap<>(ServiceError.class);
+
+    static {
+        for (ServiceError error : ServiceError.values()) RESPONSES.put(error, constructErrorResponseEntity(error));
+    }
+
     @ExceptionHandler({ServiceException.class})
     public ResponseEntity<ServiceErrorBody> handleServiceException(ServiceException exception) {
-        return constructErrorResponseEntity(exception.getError());
+        return RESPONSES.get(exception.getError());
     }
 
-    private ResponseEntity<ServiceErrorBody> constructErrorResponseEntity(ServiceError error) {
+    private static ResponseEntity<ServiceErrorBody> constructErrorResponseEntity(ServiceError error) {
         return ResponseEntity.status(error.getStatus()).body(new ServiceErrorBody(error.name(), error.getMessage()));
     }
 
@@ -2,30 +2,54 @@ package com.projects.qna.model;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.projects.qna.compression.CompressedText;
+import com.projects.qna.compression.CompressedTextConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
 @Entity
 @Table(name = "answers")
 @Data
-@AllArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 @NoArgsConstructor
 public class Answer {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ans_seq_gen")
     @SequenceGenerator(name = "ans_seq_gen", sequenceName = "answers_seq", allocationSize = 1)
     private Long ansId;
-    @NotBlank
-    private String ans;
+    // see TextCodec; the getter decompresses, on serialization mostly
+    @Convert(converter = CompressedTextConverter.class)
+    private CompressedText ans;
     private Long qnId;
     private Long userId;
 
+    // maintained by vote recording in AnswerService, never written through the entity
+    @Column(insertable = false, updatable = false)
+    @EqualsAndHashCode.Exclude
+    private long score;
+
+    @Column(updatable = false)
+    @EqualsAndHashCode.Exclude
+    private Instant created;
+
+    @PrePersist
+    void onCreate() {
+        created = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
     @Override
     public String toString() {
-        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         try {
             return objectMapper.writeValueAsString(this);
         } catch (JsonProcessingException e) {
@@ -34,9 +58,34 @@ public class Answer {
         }
     }
 
+    public Answer(Long ansId, String ans, Long qnId, Long userId) {
+        this.ansId = ansId;
+        this.ans = CompressedText.of(ans);
+        this.qnId = qnId;
+        this.userId = userId;
+    }
+
     public Answer(String ans, Long qnId, Long userId) {
-        this.ans = ans;
+        this.ans = CompressedText.of(ans);
         this.qnId = qnId;
         this.userId = userId;
     }
+
+    public Answer(Long ansId, String ans, Long qnId, Long userId, long score, Instant created) {
+        this(ansId, CompressedText.of(ans), qnId, userId, score, created);
+    }
+
+    @NotBlank
+    public String getAns() {
+        return ans == null ? null : ans.text();
+    }
+
+    public void setAns(String ans) {
+        this.ans = CompressedText.of(ans);
+    }
+
+    // shares the body as it was loaded instead of decompressing it
+    public Answer copy() {
+        return new Answer(ansId, ans, qnId, userId, score, created);
+    }
 }
@@ -0,0 +1,42 @@
+package com.projects.qna.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+@Entity
+@Table(name = "answer_attachments")
+@IdClass(AnswerAttachment.Key.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnswerAttachment {
+    @Id
+    private Long ansId;
+    @Id
+    private String sha256;
+    private String name;
+    private String contentType;
+    private long size;
+
+    @Column(updatable = false)
+    private Instant created;
+
+    @PrePersist
+    void onCreate() {
+        created = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private Long ansId;
+        private String sha256;
+    }
+}
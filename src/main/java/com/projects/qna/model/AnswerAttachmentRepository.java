@@ -0,0 +1,17 @@
+package com.projects.qna.model;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface AnswerAttachmentRepository extends JpaRepository<AnswerAttachment, AnswerAttachment.Key> {
+
+    List<AnswerAttachment> findByAnsIdOrderByCreated(Long ansId);
+
+    @Modifying
+    @Query(value = "DELETE FROM answer_attachments WHERE ansId = :ansId", nativeQuery = true)
+    int deleteByAnsId(@Param("ansId") Long ansId);
+}
@@ -1,6 +1,45 @@
 package com.projects.qna.model;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
 
 public interface AnswerRepository extends JpaRepository<Answer, Long> {
+
+    List<Answer> findByQnIdOrderByAnsId(Long qnId, Limit limit);
+
+    List<Answer> findByAnsIdGreaterThanOrderByAnsId(Long ansId, Limit limit);
+
+    @Query("SELECT a.ansId AS ansId, a.score AS score FROM Answer a WHERE a.qnId = :qnId")
+    List<AnswerScore> findScoresByQnId(@Param("qnId") Long qnId);
+
+    // keyset page of a user's answers before (created, ansId), newest first
+    @Query(value = "SELECT ansId, ans, qnId, userId, score, created FROM answers " +
+            "WHERE userId = :userId AND (created, ansId) < (:created, :ansId) " +
+            "ORDER BY created DESC, ansId DESC LIMIT :limit", nativeQuery = true)
+    List<Answer> findActivityPage(@Param("userId") Long userId, @Param("created") Instant created,
+                                  @Param("ansId") long ansId, @Param("limit") int limit);
+
+    @Query(value = "SELECT ansId, ans, qnId, userId, score, created FROM answers_archive " +
+            "WHERE qnId = :qnId ORDER BY ansId LIMIT :limit", nativeQuery = true)
+    List<Answer> findArchivedByQnId(@Param("qnId") Long qnId, @Param("limit") int limit);
+
+    @Query(value = "SELECT ansId, ans, qnId, userId, score, created FROM answers_archive " +
+            "WHERE qnId = :qnId ORDER BY score DESC, ansId LIMIT :limit", nativeQuery = true)
+    List<Answer> findArchivedByQnIdOrderByScore(@Param("qnId") Long qnId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "UPDATE answers SET score = score + :delta WHERE ansId = :ansId", nativeQuery = true)
+    int addScore(@Param("ansId") Long ansId, @Param("delta") long delta);
+
+    interface AnswerScore {
+        Long getAnsId();
+
+        long getScore();
+    }
 }
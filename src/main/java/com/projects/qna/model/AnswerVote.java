@@ -0,0 +1,30 @@
+package com.projects.qna.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Entity
+@Table(name = "answer_votes")
+@IdClass(AnswerVote.Key.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnswerVote {
+    @Id
+    private Long ansId;
+    @Id
+    private Long userId;
+    private short value;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private Long ansId;
+        private Long userId;
+    }
+}
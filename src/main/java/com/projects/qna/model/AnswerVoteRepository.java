@@ -0,0 +1,29 @@
+package com.projects.qna.model;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface AnswerVoteRepository extends JpaRepository<AnswerVote, AnswerVote.Key> {
+
+    @Modifying
+    @Query(value = "INSERT INTO answer_votes (ansId, userId, value) VALUES (:ansId, :userId, :value) " +
+            "ON CONFLICT (ansId, userId) DO NOTHING", nativeQuery = true)
+    int insertVote(@Param("ansId") Long ansId, @Param("userId") Long userId, @Param("value") int value);
+
+    // only matches when the vote actually flips, so repeating a vote is a no-op
+    @Modifying
+    @Query(value = "UPDATE answer_votes SET value = :value " +
+            "WHERE ansId = :ansId AND userId = :userId AND value <> :value", nativeQuery = true)
+    int flipVote(@Param("ansId") Long ansId, @Param("userId") Long userId, @Param("value") int value);
+
+    @Modifying
+    @Query(value = "DELETE FROM answer_votes WHERE ansId = :ansId AND userId = :userId AND value = :value",
+            nativeQuery = true)
+    int deleteVote(@Param("ansId") Long ansId, @Param("userId") Long userId, @Param("value") int value);
+
+    @Modifying
+    @Query(value = "DELETE FROM answer_votes WHERE ansId = :ansId", nativeQuery = true)
+    int deleteByAnsId(@Param("ansId") Long ansId);
+}
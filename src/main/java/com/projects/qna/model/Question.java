@@ -2,29 +2,73 @@ package com.projects.qna.model;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.projects.qna.compression.CompressedText;
+import com.projects.qna.compression.CompressedTextConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 @Entity
 @Table(name = "questions")
 @Data
-@AllArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 @NoArgsConstructor
 public class Question {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "qn_seq_gen")
     @SequenceGenerator(name = "qn_seq_gen", sequenceName = "questions_seq", allocationSize = 1)
     private Long qnId;
-    @NotBlank
-    private String qn;
+    // see TextCodec; the getter decompresses, on serialization mostly
+    @Convert(converter = CompressedTextConverter.class)
+    private CompressedText qn;
     private Long userId;
 
+    // maintained by QuestionViewCounter, never written through the entity
+    @Column(insertable = false, updatable = false)
+    @EqualsAndHashCode.Exclude
+    private long views;
+
+    @Column(updatable = false)
+    @EqualsAndHashCode.Exclude
+    private Instant created;
+
+    // maintained by AnswerService and QuestionActivityReconciler
+    @Column(insertable = false, updatable = false)
+    @EqualsAndHashCode.Exclude
+    private long answerCount;
+
+    @Column(updatable = false)
+    @EqualsAndHashCode.Exclude
+    private Instant lastActivityAt;
+
+    // lower case and without duplicates once saved, see QuestionService
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Size(max = 5)
+    private List<@Pattern(regexp = "[A-Za-z0-9][A-Za-z0-9+#.-]{0,34}") String> tags;
+
+    @PrePersist
+    void onCreate() {
+        created = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        lastActivityAt = created;
+    }
+
     @Override
     public String toString() {
-        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         try {
             return objectMapper.writeValueAsString(this);
         } catch (JsonProcessingException e) {
@@ -33,8 +77,34 @@ public class Question {
         }
     }
 
+    public Question(Long qnId, String qn, Long userId) {
+        this.qnId = qnId;
+        this.qn = CompressedText.of(qn);
+        this.userId = userId;
+    }
+
     public Question(String qn, Long userId) {
-        this.qn = qn;
+        this.qn = CompressedText.of(qn);
         this.userId = userId;
     }
+
+    public Question(Long qnId, String qn, Long userId, long views, Instant created, long answerCount,
+                    Instant lastActivityAt, List<String> tags) {
+        this(qnId, CompressedText.of(qn), userId, views, created, answerCount, lastActivityAt, tags);
+    }
+
+    @NotBlank
+    public String getQn() {
+        return qn == null ? null : qn.text();
+    }
+
+    public void setQn(String qn) {
+        this.qn = CompressedText.of(qn);
+    }
+
+    // shares the body as it was loaded instead of decompressing it
+    public Question copy() {
+        return new Question(qnId, qn, userId, views, created, answerCount, lastActivityAt,
+                tags == null ? null : List.copyOf(tags));
+    }
 }
@@ -1,6 +1,45 @@
 package com.projects.qna.model;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 public interface QuestionRepository extends JpaRepository<Question, Long> {
+
+    @Query("SELECT q FROM Question q")
+    List<Question> findPage(Pageable pageable);
+
+    List<Question> findByQnIdGreaterThanOrderByQnId(Long qnId, Limit limit);
+
+    @Query("SELECT q FROM Question q WHERE q.answerCount = 0")
+    List<Question> findUnansweredPage(Pageable pageable);
+
+    @Query(value = "SELECT qnId, qn, userId, views, created, answerCount, lastActivityAt, tags " +
+            "FROM questions_archive WHERE qnId = :qnId", nativeQuery = true)
+    Optional<Question> findArchivedById(@Param("qnId") Long qnId);
+
+    // keyset page of a user's questions before (created, qnId), newest first
+    @Query(value = "SELECT qnId, qn, userId, views, created, answerCount, lastActivityAt, tags FROM questions " +
+            "WHERE userId = :userId AND (created, qnId) < (:created, :qnId) " +
+            "ORDER BY created DESC, qnId DESC LIMIT :limit", nativeQuery = true)
+    List<Question> findActivityPage(@Param("userId") Long userId, @Param("created") Instant created,
+                                    @Param("qnId") long qnId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "UPDATE questions SET answerCount = answerCount + 1, " +
+            "lastActivityAt = GREATEST(lastActivityAt, :at) WHERE qnId = :qnId", nativeQuery = true)
+    int recordAnswerAdded(@Param("qnId") Long qnId, @Param("at") Instant at);
+
+    @Modifying
+    @Query(value = "UPDATE questions SET answerCount = GREATEST(answerCount - 1, 0), " +
+            "lastActivityAt = GREATEST(created, (SELECT max(a.created) FROM answers a WHERE a.qnId = :qnId)) " +
+            "WHERE qnId = :qnId", nativeQuery = true)
+    int recordAnswerRemoved(@Param("qnId") Long qnId);
 }
@@ -1,18 +1,18 @@
 package com.projects.qna.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
 @Table(name = "users")
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 public class User {
     @Id
@@ -22,10 +22,14 @@ public class User {
     @NotBlank
     private String name;
     @NotBlank
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
     @Email
     private String email;
     private String phone;
+    // false only for rows stored before passwords were hashed, see schema.sql
+    @JsonIgnore
+    private boolean passwordHashed;
 
     @Override
     public String toString() {
@@ -44,4 +48,9 @@ public class User {
         this.email = email;
         this.phone = phone;
     }
+
+    public User(Long userId, String name, String password, String email, String phone) {
+        this(name, password, email, phone);
+        this.userId = userId;
+    }
 }
@@ -1,6 +1,21 @@
 package com.projects.qna.model;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    List<User> findByUserIdGreaterThanOrderByUserId(Long userId, Limit limit);
+
+    // both use the unique index on lower(email), the argument must already be normalized
+    @Query(value = "SELECT * FROM users WHERE lower(email) = :email", nativeQuery = true)
+    Optional<User> findByNormalizedEmail(@Param("email") String email);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM users WHERE lower(email) = :email)", nativeQuery = true)
+    boolean existsByNormalizedEmail(@Param("email") String email);
 }
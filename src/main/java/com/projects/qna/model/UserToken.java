@@ -0,0 +1,23 @@
+package com.projects.qna.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "user_tokens")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserToken {
+    // SHA-256 of the bearer token, the token itself is never stored
+    @Id
+    private String tokenHash;
+    private Long userId;
+    private Instant expiresAt;
+}
@@ -0,0 +1,17 @@
+package com.projects.qna.model;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface UserTokenRepository extends JpaRepository<UserToken, String> {
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UserToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,21 @@
+package com.projects.qna.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Vote {
+    @NotNull
+    private Long userId;
+    // 1 = up vote, -1 = down vote, 0 = withdraw the user's vote
+    @NotNull
+    @Min(-1)
+    @Max(1)
+    private Integer value;
+}
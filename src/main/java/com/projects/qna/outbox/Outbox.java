@@ -0,0 +1,36 @@
+package com.projects.qna.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records domain events in the outbox table. Events are written in the caller's transaction, so
+ * they become visible to {@link OutboxRelay} exactly when the change they describe commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class Outbox {
+
+    private static final String INSERT_SQL = "INSERT INTO outbox (aggregateType, aggregateId, eventType, payload) " +
+            "VALUES (?, ?, ?, ?::jsonb)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize " + eventType + " payload", e);
+        }
+        jdbcTemplate.update(INSERT_SQL, aggregateType, aggregateId, eventType, json);
+    }
+}
@@ -0,0 +1,9 @@
+package com.projects.qna.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+public record OutboxEvent(long id, String aggregateType, long aggregateId, String eventType,
+                          @JsonRawValue String payload, Instant created) {
+}
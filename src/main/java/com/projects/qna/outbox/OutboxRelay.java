@@ -0,0 +1,135 @@
+package com.projects.qna.outbox;
+
+import com.projects.qna.sharding.ShardRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Drains the outbox into the configured {@link OutboxSink}.
+ * <p>
+ * Each batch is claimed with {@code FOR UPDATE SKIP LOCKED} and marked delivered in the same
+ * transaction, so any number of instances can relay concurrently without handing out a row
+ * twice; a batch whose delivery fails is rolled back and picked up again by the next poll.
+ * Delivered rows are kept for {@code qna.outbox.retention} and then deleted in chunks.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final String CLAIM_SQL = "SELECT id, aggregateType, aggregateId, eventType, payload::text AS payload, " +
+            "created FROM outbox WHERE delivered IS NULL ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String MARK_DELIVERED_SQL = "UPDATE outbox SET delivered = now() WHERE id = ANY(?)";
+
+    private static final String PRUNE_SQL = "DELETE FROM outbox WHERE id IN " +
+            "(SELECT id FROM outbox WHERE delivered < ? LIMIT ? FOR UPDATE SKIP LOCKED)";
+
+    private static final RowMapper<OutboxEvent> EVENT_MAPPER = (rs, rowNum) -> new OutboxEvent(
+            rs.getLong("id"), rs.getString("aggregateType"), rs.getLong("aggregateId"), rs.getString("eventType"),
+            rs.getString("payload"), rs.getTimestamp("created").toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final OutboxSink sink;
+
+    private final ShardRouting shardRouting;
+
+    private final int batchSize;
+
+    private final int batchesPerRun;
+
+    private final Duration retention;
+
+    private final int pruneBatchSize;
+
+    private final Counter delivered;
+
+    private final Counter failures;
+
+    private final Counter pruned;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, OutboxSink sink,
+                       ShardRouting shardRouting, MeterRegistry meterRegistry,
+                       @Value("${qna.outbox.batch-size}") int batchSize,
+                       @Value("${qna.outbox.batches-per-run}") int batchesPerRun,
+                       @Value("${qna.outbox.retention}") Duration retention,
+                       @Value("${qna.outbox.prune-batch-size}") int pruneBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sink = sink;
+        this.shardRouting = shardRouting;
+        this.batchSize = batchSize;
+        this.batchesPerRun = batchesPerRun;
+        this.retention = retention;
+        this.pruneBatchSize = pruneBatchSize;
+        this.delivered = meterRegistry.counter("qna.outbox.delivered");
+        this.failures = meterRegistry.counter("qna.outbox.failures");
+        this.pruned = meterRegistry.counter("qna.outbox.pruned");
+    }
+
+    @Scheduled(fixedDelayString = "${qna.outbox.poll-interval}", initialDelayString = "${qna.outbox.poll-interval}")
+    public void relay() {
+        // every shard has its own outbox; a failing one does not hold up the others
+        shardRouting.forEachShard(this::relayShard);
+    }
+
+    private void relayShard() {
+        try {
+            for (int batch = 0; batch < batchesPerRun; batch++) {
+                Integer count = transactionTemplate.execute(status -> relayBatch());
+                if (count == null || count < batchSize) break;
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Could not relay outbox events, retrying on next poll", e);
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> events = jdbcTemplate.query(CLAIM_SQL, EVENT_MAPPER, batchSize);
+        if (events.isEmpty()) return 0;
+        try {
+            sink.deliver(events);
+        } catch (Exception e) {
+            throw new IllegalStateException("Sink rejected " + events.size() + " outbox events", e);
+        }
+        Long[] ids = events.stream().map(OutboxEvent::id).toArray(Long[]::new);
+        jdbcTemplate.update((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(MARK_DELIVERED_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            return statement;
+        });
+        delivered.increment(events.size());
+        return events.size();
+    }
+
+    @Scheduled(fixedDelayString = "${qna.outbox.prune-interval}", initialDelayString = "${qna.outbox.prune-interval}")
+    public void prune() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(retention));
+        shardRouting.forEachShard(() -> prune(cutoff));
+    }
+
+    private void prune(Timestamp cutoff) {
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PRUNE_SQL, cutoff, pruneBatchSize);
+            pruned.increment(deleted);
+        } while (deleted == pruneBatchSize);
+    }
+}
@@ -0,0 +1,13 @@
+package com.projects.qna.outbox;
+
+import java.util.List;
+
+/**
+ * Destination of the events drained by {@link OutboxRelay}. A batch counts as delivered once
+ * {@link #deliver} returns; if it throws, the whole batch is retried on the next poll, so sinks
+ * have to tolerate seeing an event twice and can use the unique event id to drop duplicates.
+ */
+public interface OutboxSink {
+
+    void deliver(List<OutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,6 @@
+package com.projects.qna.service;
+
+import java.time.Instant;
+
+public record ActivityItem(String type, Long id, Long qnId, String text, Instant created) {
+}
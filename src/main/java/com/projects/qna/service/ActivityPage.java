@@ -0,0 +1,7 @@
+package com.projects.qna.service;
+
+import java.util.List;
+
+// next is null on the last page
+public record ActivityPage(List<ActivityItem> items, String next) {
+}
@@ -0,0 +1,94 @@
+package com.projects.qna.service;
+
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import com.projects.qna.model.AnswerRepository;
+import com.projects.qna.model.QuestionRepository;
+import com.projects.qna.sharding.ShardRouting;
+import lombok.Data;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A user's questions and answers, newest first. Each page is one keyset range scan of the
+ * (userId, created, id) index of both tables, merged in memory; the cursor is the position of the
+ * last item returned, so the cost of a page does not depend on how far the user has scrolled.
+ */
+@Service
+@Data
+public class ActivityService {
+
+    static final String QUESTION = "question";
+
+    static final String ANSWER = "answer";
+
+    // at equal timestamps questions come first, then higher ids; the keyset bounds below rely on it
+    static final Comparator<ActivityItem> ORDER = Comparator.comparing(ActivityItem::created).reversed()
+            .thenComparing(item -> ANSWER.equals(item.type()))
+            .thenComparing(ActivityItem::id, Comparator.reverseOrder());
+
+    private static final Instant FIRST_PAGE = Instant.parse("9999-12-31T00:00:00Z");
+
+    private final UserService userService;
+
+    private final QuestionRepository questionRepository;
+
+    private final AnswerRepository answerRepository;
+
+    private final ShardRouting shardRouting;
+
+    public ActivityPage getActivity(Long userId, String cursor, int limit) {
+        userService.getUser(userId);
+        Position after = cursor == null ? new Position(QUESTION, FIRST_PAGE, Long.MAX_VALUE) : Position.decode(cursor);
+        // one extra item from each source of each shard tells whether there is a next page
+        boolean questionCursor = QUESTION.equals(after.type());
+        List<Iterator<ActivityItem>> sources = shardRouting.scatter(shard -> List.of(
+                questionRepository.findActivityPage(userId, after.created(),
+                                questionCursor ? after.id() : Long.MIN_VALUE, limit + 1).stream()
+                        .map(q -> new ActivityItem(QUESTION, q.getQnId(), q.getQnId(), q.getQn(), q.getCreated()))
+                        .iterator(),
+                answerRepository.findActivityPage(userId, after.created(),
+                                questionCursor ? Long.MAX_VALUE : after.id(), limit + 1).stream()
+                        .map(a -> new ActivityItem(ANSWER, a.getAnsId(), a.getQnId(), a.getAns(), a.getCreated()))
+                        .iterator())).stream()
+                .flatMap(List::stream)
+                .toList();
+
+        SortedMerge<ActivityItem> merged = new SortedMerge<>(sources, ORDER);
+        List<ActivityItem> items = new ArrayList<>(limit);
+        while (items.size() < limit && merged.hasNext()) items.add(merged.next());
+        String next = null;
+        if (merged.hasNext()) {
+            ActivityItem last = items.get(items.size() - 1);
+            next = new Position(last.type(), last.created(), last.id()).encode();
+        }
+        return new ActivityPage(items, next);
+    }
+
+    private record Position(String type, Instant created, long id) {
+
+        String encode() {
+            String position = type + "|" + created + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Position decode(String cursor) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                if (parts.length != 3 || !(QUESTION.equals(parts[0]) || ANSWER.equals(parts[0]))) {
+                    throw new IllegalArgumentException(cursor);
+                }
+                return new Position(parts[0], Instant.parse(parts[1]), Long.parseLong(parts[2]));
+            } catch (RuntimeException e) {
+                throw new ServiceException(ServiceError.INVALID_PARAMETER);
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.projects.qna.service;
+
+import com.projects.qna.model.Answer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes newly created answers to the server-sent event streams of their question.
+ * <p>
+ * Idle subscribers are parked async requests and hold no thread. Publishing only appends to each
+ * subscriber's bounded buffer; a small dispatcher pool drains the buffers, at most one task per
+ * subscriber at a time. A subscriber that falls {@code buffer-size} answers behind either loses
+ * its oldest buffered answers or is disconnected, depending on {@code qna.answers.stream.overflow}.
+ * A send blocked for longer than {@code send-timeout}, typically a client that stopped reading,
+ * disconnects its subscriber, and the pool gets an extra thread until that send returns so the
+ * other subscribers keep being served. Only dispatcher threads touch an emitter.
+ */
+@Slf4j
+@Component
+public class AnswerBroker {
+
+    public enum Overflow {
+        DROP_OLDEST, DISCONNECT
+    }
+
+    private final ConcurrentHashMap<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    private final Set<Subscription> sending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final int bufferSize;
+
+    private final Overflow overflow;
+
+    private final Duration timeout;
+
+    private final long sendTimeoutNanos;
+
+    private final ThreadPoolExecutor pool;
+
+    private final ExecutorService dispatcher;
+
+    private final Counter dropped;
+
+    private final Counter disconnected;
+
+    private final Counter timedOut;
+
+    private final Timer lag;
+
+    public AnswerBroker(@Value("${qna.answers.stream.buffer-size}") int bufferSize,
+                        @Value("${qna.answers.stream.overflow}") Overflow overflow,
+                        @Value("${qna.answers.stream.timeout}") Duration timeout,
+                        @Value("${qna.answers.stream.dispatch-threads}") int threads,
+                        @Value("${qna.answers.stream.send-timeout}") Duration sendTimeout,
+                        MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.overflow = overflow;
+        this.timeout = timeout;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        // unbounded queue, but a subscription is queued at most once so it never exceeds the subscriber count
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), Thread.ofPlatform().name("answer-stream-", 0).daemon().factory());
+        this.dispatcher = ExecutorServiceMetrics.monitor(meterRegistry, pool, "answer-stream");
+        this.dropped = meterRegistry.counter("qna.answers.stream.overflow", "action", "dropped");
+        this.disconnected = meterRegistry.counter("qna.answers.stream.overflow", "action", "disconnected");
+        this.timedOut = meterRegistry.counter("qna.answers.stream.overflow", "action", "timed-out");
+        this.lag = meterRegistry.timer("qna.answers.stream.lag");
+        Gauge.builder("qna.answers.stream.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("qna.answers.stream.questions", subscriptions, ConcurrentHashMap::size).register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Long qnId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscription subscription = new Subscription(qnId, emitter);
+        // added inside compute so it cannot race with the last subscriber removing the question's set
+        subscriptions.compute(qnId, (id, subscribers) -> {
+            Set<Subscription> set = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+            set.add(subscription);
+            return set;
+        });
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(subscription::remove);
+        emitter.onTimeout(subscription::remove);
+        emitter.onError(e -> subscription.remove());
+        return emitter;
+    }
+
+    public void publish(Answer answer) {
+        Set<Subscription> subscribers = subscriptions.get(answer.getQnId());
+        if (subscribers == null) return;
+        Published published = new Published(answer, System.nanoTime());
+        subscribers.forEach(subscription -> subscription.offer(published));
+    }
+
+    @Scheduled(fixedDelayString = "${qna.answers.stream.send-timeout}",
+            initialDelayString = "${qna.answers.stream.send-timeout}")
+    public void expireStalledSends() {
+        long now = System.nanoTime();
+        sending.forEach(subscription -> subscription.expireIfStalled(now));
+    }
+
+    // threads above the configured count are released again once the stalled send they stand in for returns
+    private void resizeDispatcher(int delta) {
+        synchronized (pool) {
+            if (delta > 0) {
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+            } else {
+                pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscriptions.values().forEach(subscribers -> subscribers.forEach(s -> s.emitter.complete()));
+    }
+
+    private record Published(Answer answer, long publishedAt) {
+    }
+
+    private final class Subscription implements Runnable {
+
+        private final Long qnId;
+
+        private final SseEmitter emitter;
+
+        private final ArrayBlockingQueue<Published> buffer = new ArrayBlockingQueue<>(bufferSize);
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final AtomicBoolean removed = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        // 0 while no send is in progress
+        private volatile long sendStartedAt;
+
+        // guarded by this, so an interrupt never outlives the run it was meant for
+        private Thread sender;
+
+        private boolean compensated;
+
+        Subscription(Long qnId, SseEmitter emitter) {
+            this.qnId = qnId;
+            this.emitter = emitter;
+        }
+
+        void offer(Published published) {
+            while (!buffer.offer(published)) {
+                if (overflow == Overflow.DISCONNECT) {
+                    disconnected.increment();
+                    disconnect();
+                    return;
+                }
+                if (buffer.poll() != null) dropped.increment();
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) dispatcher.execute(this);
+        }
+
+        // removes the subscriber and leaves completing the emitter to the dispatcher, as a send may be in progress
+        private void disconnect() {
+            remove();
+            schedule();
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                sender = Thread.currentThread();
+            }
+            try {
+                Published published;
+                while (!removed.get() && (published = buffer.poll()) != null) {
+                    Answer answer = published.answer();
+                    sendStartedAt = System.nanoTime();
+                    sending.add(this);
+                    try {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(answer.getAnsId()))
+                                .name("answer")
+                                .data(answer, MediaType.APPLICATION_JSON));
+                    } finally {
+                        sendStartedAt = 0;
+                        sending.remove(this);
+                    }
+                    lag.record(System.nanoTime() - published.publishedAt(), TimeUnit.NANOSECONDS);
+                }
+                if (removed.get() && closed.compareAndSet(false, true)) emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // client went away or the emitter already completed
+                log.debug("Dropping answer stream subscriber of question {}", qnId, e);
+                closed.set(true);
+                remove();
+            } finally {
+                release();
+                scheduled.set(false);
+                // an offer or a disconnect may have slipped in after the loop but before the flag was cleared
+                if (removed.get() ? !closed.get() : !buffer.isEmpty()) schedule();
+            }
+        }
+
+        synchronized void expireIfStalled(long now) {
+            long started = sendStartedAt;
+            if (compensated || sender == null || started == 0 || now - started < sendTimeoutNanos) return;
+            log.debug("Answer stream send to a subscriber of question {} is stalled, disconnecting it", qnId);
+            timedOut.increment();
+            compensated = true;
+            resizeDispatcher(1);
+            sender.interrupt();
+            disconnect();
+        }
+
+        private synchronized void release() {
+            sender = null;
+            // clears an interrupt from expireIfStalled before the thread moves on to another subscription
+            Thread.interrupted();
+            if (compensated) {
+                compensated = false;
+                resizeDispatcher(-1);
+            }
+        }
+
+        void remove() {
+            if (!removed.compareAndSet(false, true)) return;
+            subscriberCount.decrementAndGet();
+            subscriptions.computeIfPresent(qnId, (id, subscribers) -> {
+                subscribers.remove(this);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.projects.qna.service;
+
+import com.projects.qna.sharding.ShardRouting;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps qnId range partitions of the answers table created ahead of questions_seq, so new
+ * answers never fall into the default partition (which would block creating their range later).
+ * Does nothing while answers is still an unpartitioned table.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AnswerPartitionMaintenance {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${qna.partitions.answers-range}")
+    private long range;
+
+    @Value("${qna.partitions.ahead}")
+    private int ahead;
+
+    private final ShardRouting shardRouting;
+
+    // per shard, partitions below this index are known to exist
+    private final Map<Integer, Long> created = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${qna.partitions.check-interval}", initialDelayString = "${qna.partitions.check-interval}")
+    public synchronized void ensurePartitions() {
+        for (int shard = 0; shard < shardRouting.count(); shard++) {
+            int current = shard;
+            shardRouting.run(shard, () -> ensurePartitions(current));
+        }
+    }
+
+    private void ensurePartitions(int shard) {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT relkind = 'p' FROM pg_class WHERE oid = 'answers'::regclass", Boolean.class);
+        if (!Boolean.TRUE.equals(partitioned)) return;
+        Long lastQuestionId = jdbcTemplate.queryForObject("SELECT last_value FROM questions_seq", Long.class);
+        long needed = lastQuestionId / range + ahead + 1;
+        long existing = created.getOrDefault(shard, 0L);
+        for (long partition = existing; partition < needed; partition++) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS answers_p" + partition + " PARTITION OF answers " +
+                    "FOR VALUES FROM (" + partition * range + ") TO (" + (partition + 1) * range + ")");
+        }
+        if (needed > existing) {
+            log.info("Answer partitions of shard {} exist up to qnId {}", shard, needed * range);
+            created.put(shard, needed);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.projects.qna.service;
+
+import com.projects.qna.model.AnswerRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Score-ordered answer ids for recently read questions. Votes, creates and deletes adjust the
+ * ordering in place, so reading the top answers of a question is a walk over a sorted set.
+ * Entries are reloaded from the database after {@code qna.ranking.ttl} to pick up changes made
+ * by other instances.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnswerRanking {
+
+    private final AnswerRepository answerRepository;
+
+    @Value("${qna.ranking.max-questions}")
+    private int maxQuestions;
+
+    @Value("${qna.ranking.ttl}")
+    private Duration ttl;
+
+    private final ConcurrentHashMap<Long, QuestionRanking> rankings = new ConcurrentHashMap<>();
+
+    public List<Long> topAnswerIds(Long qnId, int limit) {
+        QuestionRanking ranking = rankings.get(qnId);
+        if (ranking == null || ranking.isExpired(ttl)) {
+            ranking = load(qnId);
+        }
+        ranking.lastAccess = System.nanoTime();
+        return ranking.top(limit);
+    }
+
+    public void answerAdded(Long qnId, Long ansId) {
+        QuestionRanking ranking = loaded(qnId);
+        if (ranking != null) ranking.put(ansId, 0);
+    }
+
+    public void answerRemoved(Long qnId, Long ansId) {
+        QuestionRanking ranking = loaded(qnId);
+        if (ranking != null) ranking.remove(ansId);
+    }
+
+    public void scoreChanged(Long qnId, Long ansId, long delta) {
+        QuestionRanking ranking = loaded(qnId);
+        if (ranking != null) ranking.adjust(ansId, delta);
+    }
+
+    private QuestionRanking loaded(Long qnId) {
+        return qnId == null ? null : rankings.get(qnId);
+    }
+
+    private QuestionRanking load(Long qnId) {
+        QuestionRanking ranking = new QuestionRanking();
+        answerRepository.findScoresByQnId(qnId).forEach(s -> ranking.put(s.getAnsId(), s.getScore()));
+        rankings.put(qnId, ranking);
+        if (rankings.size() > maxQuestions) evictLeastRecentlyUsed();
+        return ranking;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        rankings.entrySet().stream()
+                .min(Comparator.comparingLong(e -> e.getValue().lastAccess))
+                .ifPresent(e -> rankings.remove(e.getKey(), e.getValue()));
+    }
+
+    private record Entry(long score, long ansId) {
+    }
+
+    private static final Comparator<Entry> BY_SCORE_DESC = Comparator.comparingLong(Entry::score).reversed()
+            .thenComparingLong(Entry::ansId);
+
+    private static final class QuestionRanking {
+        private final ConcurrentSkipListSet<Entry> ordered = new ConcurrentSkipListSet<>(BY_SCORE_DESC);
+        // guarded by this, readers only touch the skip list
+        private final Map<Long, Long> scores = new HashMap<>();
+        private final long loadedAt = System.nanoTime();
+        private volatile long lastAccess = loadedAt;
+
+        synchronized void put(Long ansId, long score) {
+            Long previous = scores.put(ansId, score);
+            if (previous != null) ordered.remove(new Entry(previous, ansId));
+            ordered.add(new Entry(score, ansId));
+        }
+
+        synchronized void adjust(Long ansId, long delta) {
+            Long previous = scores.get(ansId);
+            if (previous != null) put(ansId, previous + delta);
+        }
+
+        synchronized void remove(Long ansId) {
+            Long previous = scores.remove(ansId);
+            if (previous != null) ordered.remove(new Entry(previous, ansId));
+        }
+
+        List<Long> top(int limit) {
+            List<Long> ids = new ArrayList<>(Math.min(limit, ordered.size()));
+            for (Entry entry : ordered) {
+                if (ids.size() == limit) break;
+                ids.add(entry.ansId());
+            }
+            return ids;
+        }
+
+        boolean isExpired(Duration ttl) {
+            return System.nanoTime() - loadedAt > ttl.toNanos();
+        }
+    }
+}
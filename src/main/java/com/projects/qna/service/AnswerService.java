@@ -1,13 +1,37 @@
 package com.projects.qna.service;
 
+import com.projects.qna.auth.Ownership;
+import com.projects.qna.cache.ExistenceIndex;
+import com.projects.qna.cache.FragmentCache;
+import com.projects.qna.cache.NearCache;
 import com.projects.qna.exceptions.ServiceError;
 import com.projects.qna.exceptions.ServiceException;
 import com.projects.qna.model.Answer;
+import com.projects.qna.model.AnswerAttachmentRepository;
 import com.projects.qna.model.AnswerRepository;
+import com.projects.qna.model.AnswerVoteRepository;
+import com.projects.qna.model.QuestionRepository;
+import com.projects.qna.model.Vote;
+import com.projects.qna.outbox.Outbox;
+import com.projects.qna.sharding.ShardRouting;
 import lombok.Data;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Data
@@ -15,34 +39,212 @@ public class AnswerService {
 
     private final AnswerRepository answerRepository;
 
+    private final AnswerVoteRepository answerVoteRepository;
+
+    private final AnswerAttachmentRepository answerAttachmentRepository;
+
+    private final QuestionRepository questionRepository;
+
+    private final AnswerRanking answerRanking;
+
+    private final HotQuestions hotQuestions;
+
+    private final AnswerBroker answerBroker;
+
     private final EntityService entityService;
 
+    private final TransactionTemplate transactionTemplate;
+
+    private final ProjectionService projectionService;
+
+    private final Outbox outbox;
+
+    private final NearCache nearCache;
+
+    private final FragmentCache fragmentCache;
+
+    private final ExistenceIndex existenceIndex;
+
+    private final ShardRouting shardRouting;
+
+    private static final Comparator<Answer> BY_ID = Comparator.comparing(Answer::getAnsId);
+
+    private static final Set<String> PROJECTABLE_FIELDS = Set.of("ansId", "ans", "qnId", "userId", "score", "created");
+
     public Answer getAnswer(Long id) {
-        return answerRepository.findById(id).orElseThrow(() -> new ServiceException(ServiceError.ENTITY_NOT_FOUND));
+        if (existenceIndex.isAbsent(ExistenceIndex.Kind.ANSWER, id)) throw ServiceException.of(ServiceError.ENTITY_NOT_FOUND);
+        return shardRouting.on(shardRouting.shardOf(id), () -> nearCache.getAnswers().get(id, answerRepository::findById))
+                .orElseThrow(() -> ServiceException.of(ServiceError.ENTITY_NOT_FOUND));
+    }
+
+    private Answer findAnswer(Long id) {
+        return answerRepository.findById(id).orElseThrow(() -> ServiceException.of(ServiceError.ENTITY_NOT_FOUND));
     }
 
     public List<Answer> getAllAnswers() {
-        return answerRepository.findAll();
+        return shardRouting.gather(shard -> answerRepository.findAll(Sort.by("ansId")), BY_ID, Long.MAX_VALUE);
+    }
+
+    public List<Answer> getAnswersAfter(Long ansId, int limit) {
+        return shardRouting.gather(shard -> answerRepository.findByAnsIdGreaterThanOrderByAnsId(ansId, Limit.of(limit)),
+                BY_ID, limit);
+    }
+
+    public List<Map<String, Object>> getAnswerFields(Set<String> fields, int limit) {
+        return projectionService.project(Answer.class, PROJECTABLE_FIELDS, fields, null, Sort.by("ansId"), limit);
+    }
+
+    public List<Answer> getAnswersForQuestion(Long qnId, String sort, int limit) {
+        boolean byScore = "score".equals(sort);
+        if (!byScore && sort != null && !"id".equals(sort)) throw new ServiceException(ServiceError.INVALID_PARAMETER);
+        return shardRouting.on(shardRouting.shardOf(qnId), () -> {
+            List<Answer> answers = byScore ? topAnswers(qnId, limit)
+                    : answerRepository.findByQnIdOrderByAnsId(qnId, Limit.of(limit));
+            if (!answers.isEmpty()) return answers;
+            // the question may have been archived, its answers moved to answers_archive with it
+            return byScore ? answerRepository.findArchivedByQnIdOrderByScore(qnId, limit)
+                    : answerRepository.findArchivedByQnId(qnId, limit);
+        });
+    }
+
+    private List<Answer> topAnswers(Long qnId, int limit) {
+        List<Long> ids = answerRanking.topAnswerIds(qnId, limit);
+        Map<Long, Answer> answers = answerRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Answer::getAnsId, Function.identity()));
+        return ids.stream().map(answers::get).filter(Objects::nonNull).toList();
+    }
+
+    public SseEmitter streamAnswers(Long qnId) {
+        if (existenceIndex.isAbsent(ExistenceIndex.Kind.QUESTION, qnId)
+                || !shardRouting.on(shardRouting.shardOf(qnId), () -> questionRepository.existsById(qnId))) {
+            throw ServiceException.of(ServiceError.ENTITY_NOT_FOUND);
+        }
+        return answerBroker.subscribe(qnId);
     }
 
+    // an answer lives on the shard of its question, so its id ends in that shard's index
     public Answer createAnswer(Answer answer) {
-        Long currentSequenceValue = entityService.getCurrentSequenceValue("answers_seq");
-        try {
-            return answerRepository.save(answer);
-        } catch (Exception e) {
-            entityService.resetSequenceValue("answers_seq", currentSequenceValue);
-            throw e;
+        Answer createdAnswer = shardRouting.on(shardRouting.shardOf(answer.getQnId()), () -> {
+            Long currentSequenceValue = entityService.getCurrentSequenceValue("answers_seq");
+            try {
+                return transactionTemplate.execute(status -> {
+                    Answer savedAnswer = answerRepository.save(answer);
+                    if (savedAnswer.getQnId() != null) {
+                        questionRepository.recordAnswerAdded(savedAnswer.getQnId(), savedAnswer.getCreated());
+                        nearCache.invalidate(nearCache.getQuestions(), savedAnswer.getQnId());
+                        fragmentCache.answersChanged(savedAnswer.getQnId());
+                    }
+                    outbox.record("answer", savedAnswer.getAnsId(), "AnswerCreated", savedAnswer);
+                    existenceIndex.created(ExistenceIndex.Kind.ANSWER, savedAnswer.getAnsId());
+                    return savedAnswer;
+                });
+            } catch (Exception e) {
+                entityService.resetSequenceValue("answers_seq", currentSequenceValue);
+                throw e;
+            }
+        });
+        if (createdAnswer.getQnId() != null) {
+            answerRanking.answerAdded(createdAnswer.getQnId(), createdAnswer.getAnsId());
+            hotQuestions.record(createdAnswer.getQnId(), HotQuestions.Activity.ANSWER);
+            answerBroker.publish(createdAnswer);
         }
+        return createdAnswer;
     }
 
-    public Answer updateAnswer(Long id, Answer answer) {
-        Answer existingAnswer = getAnswer(id);
-        answer.setAnsId(id);
-        return answerRepository.save(answer);
+    public Answer updateAnswer(Long id, Answer answer, Long callerId) {
+        int shard = shardRouting.shardOf(id);
+        // moving an answer to a question on another shard would change its id
+        if (answer.getQnId() != null && shardRouting.shardOf(answer.getQnId()) != shard) {
+            throw new ServiceException(ServiceError.INVALID_PARAMETER);
+        }
+        return shardRouting.on(shard, () -> transactionTemplate.execute(status -> {
+            Answer existingAnswer = findAnswer(id);
+            Ownership.check(callerId, existingAnswer.getUserId());
+            if (callerId != null) answer.setUserId(existingAnswer.getUserId());
+            Long previousQnId = existingAnswer.getQnId();
+            long score = existingAnswer.getScore();
+            Instant created = existingAnswer.getCreated();
+            answer.setAnsId(id);
+            Answer updatedAnswer = answerRepository.save(answer);
+            updatedAnswer.setScore(score);
+            updatedAnswer.setCreated(created);
+            Long qnId = updatedAnswer.getQnId();
+            if (previousQnId != null) fragmentCache.answersChanged(previousQnId);
+            if (qnId != null && !qnId.equals(previousQnId)) fragmentCache.answersChanged(qnId);
+            if (!Objects.equals(previousQnId, qnId)) {
+                if (previousQnId != null) questionRepository.recordAnswerRemoved(previousQnId);
+                if (qnId != null) questionRepository.recordAnswerAdded(qnId, created);
+                nearCache.invalidate(nearCache.getQuestions(), Stream.of(previousQnId, qnId).filter(Objects::nonNull).toList());
+                afterCommit(() -> {
+                    answerRanking.answerRemoved(previousQnId, id);
+                    answerRanking.answerAdded(qnId, id);
+                });
+            }
+            outbox.record("answer", id, "AnswerUpdated", updatedAnswer);
+            nearCache.invalidate(nearCache.getAnswers(), id);
+            return updatedAnswer;
+        }));
     }
 
-    public void deleteAnswer(Long id) {
-        Answer existingAnswer = getAnswer(id);
-        answerRepository.deleteById(id);
+    public void deleteAnswer(Long id, Long callerId) {
+        shardRouting.run(shardRouting.shardOf(id), () -> transactionTemplate.executeWithoutResult(status -> {
+            Answer existingAnswer = findAnswer(id);
+            Ownership.check(callerId, existingAnswer.getUserId());
+            answerVoteRepository.deleteByAnsId(id);
+            answerAttachmentRepository.deleteByAnsId(id);
+            answerRepository.deleteById(id);
+            Long qnId = existingAnswer.getQnId();
+            if (qnId != null) {
+                questionRepository.recordAnswerRemoved(qnId);
+                nearCache.invalidate(nearCache.getQuestions(), qnId);
+                fragmentCache.answersChanged(qnId);
+            }
+            outbox.record("answer", id, "AnswerDeleted", Map.of("ansId", id));
+            nearCache.invalidate(nearCache.getAnswers(), id);
+            existenceIndex.deleted(ExistenceIndex.Kind.ANSWER, id);
+            afterCommit(() -> answerRanking.answerRemoved(qnId, id));
+        }));
+    }
+
+    public Answer vote(Long id, Vote vote) {
+        return shardRouting.on(shardRouting.shardOf(id), () -> transactionTemplate.execute(status -> {
+            Answer answer = findAnswer(id);
+            long delta = recordVote(id, vote.getUserId(), vote.getValue());
+            if (delta != 0) {
+                answerRepository.addScore(id, delta);
+                answer.setScore(answer.getScore() + delta);
+                outbox.record("answer", id, "AnswerScoreChanged", Map.of("ansId", id, "score", answer.getScore()));
+                nearCache.invalidate(nearCache.getAnswers(), id);
+                Long qnId = answer.getQnId();
+                if (qnId != null) fragmentCache.answersChanged(qnId);
+                afterCommit(() -> {
+                    answerRanking.scoreChanged(qnId, id, delta);
+                    if (qnId != null) hotQuestions.record(qnId, HotQuestions.Activity.VOTE);
+                });
+            }
+            return answer;
+        }));
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // returns how much the answer's score changes; relies on the (ansId, userId) primary key of
+    // answer_votes so that concurrent votes of the same user are serialized by the database
+    private long recordVote(Long ansId, Long userId, int value) {
+        if (value == 0) {
+            if (answerVoteRepository.deleteVote(ansId, userId, 1) == 1) return -1;
+            if (answerVoteRepository.deleteVote(ansId, userId, -1) == 1) return 1;
+            return 0;
+        }
+        if (answerVoteRepository.insertVote(ansId, userId, value) == 1) return value;
+        if (answerVoteRepository.flipVote(ansId, userId, value) == 1) return 2L * value;
+        return 0;
     }
 }
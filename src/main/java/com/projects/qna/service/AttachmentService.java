@@ -0,0 +1,63 @@
+package com.projects.qna.service;
+
+import com.projects.qna.auth.Ownership;
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import com.projects.qna.model.Answer;
+import com.projects.qna.model.AnswerAttachment;
+import com.projects.qna.model.AnswerAttachmentRepository;
+import com.projects.qna.model.AnswerRepository;
+import com.projects.qna.sharding.ShardRouting;
+import lombok.Data;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+@Service
+@Data
+public class AttachmentService {
+
+    private final AnswerRepository answerRepository;
+
+    private final AnswerAttachmentRepository attachmentRepository;
+
+    private final AttachmentStore attachmentStore;
+
+    private final ShardRouting shardRouting;
+
+    /**
+     * Stores the upload of the answer's owner. Meant for the request thread, which is held by a
+     * slow client anyway; the row is added afterwards by {@link #attach}.
+     */
+    public AttachmentStore.Blob upload(Long ansId, InputStream body, Long callerId) throws IOException {
+        Answer answer = shardRouting.on(shardRouting.shardOf(ansId), () -> answerRepository.findById(ansId))
+                .orElseThrow(() -> new ServiceException(ServiceError.ENTITY_NOT_FOUND));
+        Ownership.check(callerId, answer.getUserId());
+        return attachmentStore.store(body);
+    }
+
+    public AnswerAttachment attach(Long ansId, String name, String contentType, AttachmentStore.Blob blob) {
+        // attaching the same bytes again keeps the first attachment
+        AnswerAttachment.Key key = new AnswerAttachment.Key(ansId, blob.sha256());
+        return shardRouting.on(shardRouting.shardOf(ansId), () -> attachmentRepository.findById(key).orElseGet(
+                () -> attachmentRepository.save(
+                        new AnswerAttachment(ansId, blob.sha256(), name, contentType, blob.size(), null))));
+    }
+
+    public List<AnswerAttachment> getAttachments(Long ansId) {
+        return shardRouting.on(shardRouting.shardOf(ansId), () -> attachmentRepository.findByAnsIdOrderByCreated(ansId));
+    }
+
+    public AnswerAttachment getAttachment(Long ansId, String sha256) {
+        return shardRouting.on(shardRouting.shardOf(ansId),
+                        () -> attachmentRepository.findById(new AnswerAttachment.Key(ansId, sha256)))
+                .orElseThrow(() -> new ServiceException(ServiceError.ENTITY_NOT_FOUND));
+    }
+
+    public Path file(AnswerAttachment attachment) {
+        return attachmentStore.path(attachment.getSha256());
+    }
+}
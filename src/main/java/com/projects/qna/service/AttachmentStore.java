@@ -0,0 +1,112 @@
+package com.projects.qna.service;
+
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Attachment files outside the database, named by the SHA-256 of their content. Uploads are
+ * streamed into a temporary file while they are hashed and then renamed into place, so a file is
+ * either complete or absent and identical uploads share one file.
+ */
+@Component
+public class AttachmentStore {
+
+    public record Blob(String sha256, long size) {
+    }
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    public AttachmentStore(@Value("${qna.attachments.directory}") Path directory,
+                           @Value("${qna.attachments.max-size}") DataSize maxSize) {
+        this.directory = directory.toAbsolutePath();
+        this.maxSize = maxSize.toBytes();
+    }
+
+    public Blob store(InputStream in) throws IOException {
+        Path incoming = directory.resolve("incoming");
+        Files.createDirectories(incoming);
+        Path temp = Files.createTempFile(incoming, "upload-", null);
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                for (int n; (n = in.read(buffer)) != -1; ) {
+                    size += n;
+                    if (size > maxSize) throw new ServiceException(ServiceError.ATTACHMENT_TOO_LARGE);
+                    digest.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                }
+            }
+            if (size == 0) throw new ServiceException(ServiceError.INVALID_PARAMETER);
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            Path target = path(sha256);
+            Files.createDirectories(target.getParent());
+            // replaces a file with the same content when the same bytes are uploaded concurrently
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            return new Blob(sha256, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Deletes the files last written before {@code before} whose hash is not referenced, as well
+     * as uploads left in the incoming directory by a crash. Storing the same bytes again rewrites
+     * the file, so a file about to be attached is never older than the upload adding its row.
+     */
+    public int removeUnreferenced(Set<String> referenced, Instant before) throws IOException {
+        if (!Files.isDirectory(directory)) return 0;
+        List<Path> unreferenced;
+        try (Stream<Path> files = Files.walk(directory)) {
+            unreferenced = files.filter(file -> SHA256.matcher(file.getFileName().toString()).matches()
+                            ? !referenced.contains(file.getFileName().toString())
+                            : file.getParent().endsWith("incoming"))
+                    .toList();
+        }
+        int removed = 0;
+        for (Path file : unreferenced) {
+            // checked last, an upload may have rewritten the file since the references were read
+            if (Files.getLastModifiedTime(file).toInstant().isBefore(before) && Files.deleteIfExists(file)) removed++;
+        }
+        return removed;
+    }
+
+    // two levels of directories keep any one of them small
+    public Path path(String sha256) {
+        if (!SHA256.matcher(sha256).matches()) throw new ServiceException(ServiceError.INVALID_PARAMETER);
+        return directory.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
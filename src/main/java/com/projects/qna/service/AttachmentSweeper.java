@@ -0,0 +1,51 @@
+package com.projects.qna.service;
+
+import com.projects.qna.sharding.ShardRouting;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Removes attachment files that no answer_attachments row on any shard references any more, left
+ * behind by archived answers, restored snapshots and uploads whose row was never added. Files
+ * younger than {@code qna.attachments.orphans-after} are kept for uploads still in progress.
+ */
+@Slf4j
+@Component
+public class AttachmentSweeper {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AttachmentStore attachmentStore;
+
+    private final ShardRouting shardRouting;
+
+    private final Duration orphansAfter;
+
+    public AttachmentSweeper(JdbcTemplate jdbcTemplate, AttachmentStore attachmentStore, ShardRouting shardRouting,
+                             @Value("${qna.attachments.orphans-after}") Duration orphansAfter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.attachmentStore = attachmentStore;
+        this.shardRouting = shardRouting;
+        this.orphansAfter = orphansAfter;
+    }
+
+    @Scheduled(fixedDelayString = "${qna.attachments.sweep-interval}", initialDelayString = "${qna.attachments.sweep-interval}")
+    public void sweep() throws IOException {
+        // taken before the references are read, so every file written after they were is spared
+        Instant before = Instant.now().minus(orphansAfter);
+        Set<String> referenced = new HashSet<>();
+        shardRouting.forEachShard(() -> referenced.addAll(
+                jdbcTemplate.queryForList("SELECT DISTINCT sha256 FROM answer_attachments", String.class)));
+        int removed = attachmentStore.removeUnreferenced(referenced, before);
+        if (removed > 0) log.info("Removed {} unreferenced attachment files", removed);
+    }
+}
@@ -0,0 +1,85 @@
+package com.projects.qna.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+
+/**
+ * Bloom filter of the normalized emails of all users, loaded once at startup. A miss proves an
+ * email is unused, so signups only pay for the indexed lookup when the filter reports a possible
+ * duplicate. Until loading has finished every check is reported as a possible duplicate.
+ */
+@Slf4j
+@Component
+public class EmailFilter {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BloomFilter filter;
+
+    private volatile boolean loaded;
+
+    private final Counter definitelyNew;
+
+    private final Counter possibleDuplicates;
+
+    private final Counter falsePositives;
+
+    public EmailFilter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                       @Value("${qna.users.email-filter.expected-users}") long expectedUsers,
+                       @Value("${qna.users.email-filter.false-positive-probability}") double falsePositiveProbability) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        // only honoured inside a transaction: streams the emails instead of loading them all at once
+        this.jdbcTemplate.setFetchSize(10_000);
+        this.transactionTemplate = transactionTemplate;
+        this.filter = new BloomFilter(expectedUsers, falsePositiveProbability);
+        this.definitelyNew = meterRegistry.counter("qna.users.email-filter.checks", "result", "new");
+        this.possibleDuplicates = meterRegistry.counter("qna.users.email-filter.checks", "result", "possible-duplicate");
+        this.falsePositives = meterRegistry.counter("qna.users.email-filter.false-positives");
+        Gauge.builder("qna.users.email-filter.expected-fpp", filter, BloomFilter::expectedFalsePositiveProbability)
+                .register(meterRegistry);
+    }
+
+    public static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                "SELECT lower(email) FROM users WHERE email IS NOT NULL",
+                (RowCallbackHandler) rs -> filter.put(rs.getString(1))));
+        loaded = true;
+        log.info("Loaded user emails into the signup filter in {} ms", System.currentTimeMillis() - start);
+    }
+
+    public boolean mightExist(String normalizedEmail) {
+        if (loaded && !filter.mightContain(normalizedEmail)) {
+            definitelyNew.increment();
+            return false;
+        }
+        possibleDuplicates.increment();
+        return true;
+    }
+
+    public void falsePositive() {
+        falsePositives.increment();
+    }
+
+    public void add(String normalizedEmail) {
+        filter.put(normalizedEmail);
+    }
+}
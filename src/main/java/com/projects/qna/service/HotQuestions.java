@@ -0,0 +1,127 @@
+package com.projects.qna.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Bounded leaderboard of trending questions with exponential time decay.
+ * <p>
+ * Instead of decaying every score as time passes, each activity is weighted by
+ * {@code e^(lambda * (t - epoch))}: later events count exponentially more, which ranks the same
+ * as decaying older ones, so recording an activity is a single add to the question's own
+ * accumulator and takes no lock. A periodic {@link #sweep} trims the candidates back to
+ * {@code 4 * size} and, before the weights grow too large for a double, moves the scores to a
+ * new epoch. An activity racing with that move may be dropped, which a leaderboard can afford.
+ */
+@Component
+public class HotQuestions {
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Activity {
+        VIEW(1), VOTE(2), ANSWER(5);
+        private final double weight;
+    }
+
+    private static final double MAX_EXPONENT = 50;
+
+    private static final Comparator<Entry> BY_SCORE_DESC = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparingLong(Entry::qnId);
+
+    private final int size;
+
+    private final int capacity;
+
+    private final double lambda;
+
+    private final ConcurrentHashMap<Long, Score> scores = new ConcurrentHashMap<>();
+
+    private volatile long epochMillis = System.currentTimeMillis();
+
+    // the score a newcomer has to beat once the candidates are full, as of the last sweep
+    private volatile double admission = 0;
+
+    public HotQuestions(@Value("${qna.hot.size}") int size,
+                        @Value("${qna.hot.half-life}") Duration halfLife) {
+        this.size = size;
+        // keep more candidates than are shown so questions just below the cut can climb back in
+        this.capacity = size * 4;
+        this.lambda = Math.log(2) / halfLife.toMillis();
+    }
+
+    public void record(Long qnId, Activity activity) {
+        long now = System.currentTimeMillis();
+        Score score = scores.get(qnId);
+        if (score == null) {
+            double increment = activity.getWeight() * Math.exp(lambda * (now - epochMillis));
+            // between sweeps the candidates may grow to four times their bound, newcomers have to be warmer
+            // than the coldest candidate kept by the last sweep
+            if (scores.size() >= capacity && (increment <= admission || scores.size() >= capacity * 4)) return;
+            score = scores.computeIfAbsent(qnId, id -> new Score(epochMillis));
+        }
+        score.adder().add(activity.getWeight() * Math.exp(lambda * (now - score.epochMillis())));
+    }
+
+    public void remove(Long qnId) {
+        scores.remove(qnId);
+    }
+
+    public synchronized List<Long> top(int limit) {
+        return entries().stream().limit(Math.min(limit, size)).map(Entry::qnId).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${qna.hot.sweep-interval}", initialDelayString = "${qna.hot.sweep-interval}")
+    public synchronized void sweep() {
+        long now = System.currentTimeMillis();
+        if (lambda * (now - epochMillis) > MAX_EXPONENT) rescale(now);
+        List<Entry> entries = entries();
+        for (Entry cold : entries.subList(Math.min(capacity, entries.size()), entries.size())) {
+            scores.remove(cold.qnId());
+        }
+        admission = entries.size() < capacity ? 0 : entries.get(capacity - 1).score();
+    }
+
+    int candidates() {
+        return scores.size();
+    }
+
+    // scores recorded against an older epoch are brought to the current one
+    private List<Entry> entries() {
+        long epoch = epochMillis;
+        List<Entry> entries = new ArrayList<>(scores.size());
+        scores.forEach((qnId, score) -> entries.add(
+                new Entry(score.adder().sum() * Math.exp(-lambda * (epoch - score.epochMillis())), qnId)));
+        entries.sort(BY_SCORE_DESC);
+        return entries;
+    }
+
+    private void rescale(long now) {
+        epochMillis = now;
+        scores.replaceAll((qnId, score) -> {
+            Score rescaled = new Score(now);
+            rescaled.adder().add(score.adder().sum() * Math.exp(-lambda * (now - score.epochMillis())));
+            return rescaled;
+        });
+        admission = 0;
+    }
+
+    private record Score(long epochMillis, DoubleAdder adder) {
+
+        Score(long epochMillis) {
+            this(epochMillis, new DoubleAdder());
+        }
+    }
+
+    private record Entry(double score, long qnId) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.projects.qna.service;
+
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import com.projects.qna.sharding.ShardRouting;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * Selects only the requested columns of an entity as tuples. Tuples are plain values, so nothing
+ * is hydrated into or tracked by the persistence context.
+ */
+@Service
+public class ProjectionService {
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    ShardRouting shardRouting;
+
+    public <T> List<Map<String, Object>> project(Class<T> entityClass, Set<String> allowedFields, Set<String> fields,
+                                                 BiFunction<CriteriaBuilder, Root<T>, Predicate> filter,
+                                                 Sort sort, int limit) {
+        if (fields.isEmpty() || !allowedFields.containsAll(fields)) {
+            throw new ServiceException(ServiceError.INVALID_PARAMETER);
+        }
+        List<String> columns = List.copyOf(fields);
+        // the sort columns are selected as well so that the pages of all shards can be merged
+        List<String> selected = Stream.concat(columns.stream(), sort.stream().map(Sort.Order::getProperty))
+                .distinct().toList();
+        List<Map<String, Object>> rows = shardRouting.gather(shard -> {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+            Root<T> root = query.from(entityClass);
+            List<Selection<?>> selections = selected.stream().<Selection<?>>map(c -> root.get(c).alias(c)).toList();
+            query.multiselect(selections);
+            if (filter != null) query.where(filter.apply(criteriaBuilder, root));
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+            TypedQuery<Tuple> typedQuery = entityManager.createQuery(query).setMaxResults(limit);
+            return typedQuery.getResultList().stream().map(tuple -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                selected.forEach(c -> row.put(c, tuple.get(c)));
+                return row;
+            }).toList();
+        }, order(sort), limit);
+        if (selected.size() == columns.size()) return rows;
+        return rows.stream().map(row -> {
+            Map<String, Object> projected = new LinkedHashMap<>();
+            columns.forEach(c -> projected.put(c, row.get(c)));
+            return projected;
+        }).toList();
+    }
+
+    private static Comparator<Map<String, Object>> order(Sort sort) {
+        Comparator<Map<String, Object>> order = (a, b) -> 0;
+        for (Sort.Order o : sort) {
+            String property = o.getProperty();
+            Comparator<Map<String, Object>> column = (a, b) -> compare(a.get(property), b.get(property));
+            order = order.thenComparing(o.isAscending() ? column : column.reversed());
+        }
+        return order;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object a, Object b) {
+        if (a == null || b == null) return a == null ? (b == null ? 0 : 1) : -1;
+        return ((Comparable) a).compareTo(b);
+    }
+}
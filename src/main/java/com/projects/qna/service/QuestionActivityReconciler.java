@@ -0,0 +1,82 @@
+package com.projects.qna.service;
+
+import com.projects.qna.sharding.ShardRouting;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Repairs drift in the denormalized questions.answerCount / questions.lastActivityAt columns.
+ * Each run recomputes a bounded number of qnId ranges and continues where the previous run
+ * stopped, wrapping around once it passes the highest id. A batch locks its questions before
+ * counting, so an answer committing in between is either counted or waits for the repair.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuestionActivityReconciler {
+
+    private static final String LOCK_SQL = "SELECT qnId FROM questions WHERE qnId > ? AND qnId <= ? " +
+            "ORDER BY qnId FOR UPDATE";
+
+    private static final String RECONCILE_SQL = "UPDATE questions q " +
+            "SET answerCount = s.cnt, lastActivityAt = GREATEST(q.created, s.latest) " +
+            "FROM (SELECT q2.qnId, count(a.ansId) AS cnt, max(a.created) AS latest " +
+            "      FROM questions q2 LEFT JOIN answers a ON a.qnId = q2.qnId " +
+            "      WHERE q2.qnId > ? AND q2.qnId <= ? GROUP BY q2.qnId) s " +
+            "WHERE q.qnId = s.qnId " +
+            "AND (q.answerCount <> s.cnt OR q.lastActivityAt IS DISTINCT FROM GREATEST(q.created, s.latest))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${qna.reconcile.batch-size}")
+    private long batchSize;
+
+    @Value("${qna.reconcile.batches-per-run}")
+    private int batchesPerRun;
+
+    private final ShardRouting shardRouting;
+
+    // per shard, as every shard has its own id range
+    private final Map<Integer, Long> lastReconciledIds = new HashMap<>();
+
+    @Scheduled(fixedDelayString = "${qna.reconcile.interval}", initialDelayString = "${qna.reconcile.interval}")
+    public synchronized void reconcile() {
+        for (int shard = 0; shard < shardRouting.count(); shard++) {
+            int current = shard;
+            shardRouting.run(shard, () -> reconcile(current));
+        }
+    }
+
+    private void reconcile(int shard) {
+        long lastReconciledId = lastReconciledIds.getOrDefault(shard, 0L);
+        Long maxId = jdbcTemplate.queryForObject("SELECT max(qnId) FROM questions", Long.class);
+        if (maxId == null) return;
+        int repaired = 0;
+        for (int batch = 0; batch < batchesPerRun; batch++) {
+            if (lastReconciledId >= maxId) {
+                lastReconciledId = 0;
+                break;
+            }
+            long lower = lastReconciledId;
+            long upper = lastReconciledId + batchSize;
+            // the update counts in a snapshot taken after the locks, so no answer commits unseen in between
+            repaired += transactionTemplate.execute(status -> {
+                jdbcTemplate.queryForList(LOCK_SQL, Long.class, lower, upper);
+                return jdbcTemplate.update(RECONCILE_SQL, lower, upper);
+            });
+            lastReconciledId = upper;
+        }
+        lastReconciledIds.put(shard, lastReconciledId);
+        if (repaired > 0) log.info("Repaired answer count / last activity of {} questions", repaired);
+    }
+}
@@ -0,0 +1,133 @@
+package com.projects.qna.service;
+
+import com.projects.qna.cache.FragmentCache;
+import com.projects.qna.cache.NearCache;
+import com.projects.qna.cache.TagIndex;
+import com.projects.qna.cache.TitleIndex;
+import com.projects.qna.outbox.Outbox;
+import com.projects.qna.sharding.ShardRouting;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves questions without activity for {@code qna.archive.inactive-for}, together with their
+ * answers, into the compressed archive tables. Archived questions stay readable through
+ * {@link QuestionService#getQuestion}; their votes are dropped, the scores are kept. Attachments
+ * of their answers are dropped too, {@link AttachmentSweeper} removes the files later.
+ */
+@Slf4j
+@Component
+public class QuestionArchiver {
+
+    private static final String CLAIM_SQL = "SELECT qnId FROM questions WHERE lastActivityAt < ? " +
+            "ORDER BY lastActivityAt LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String DELETE_VOTES_SQL = "DELETE FROM answer_votes WHERE ansId IN " +
+            "(SELECT ansId FROM answers WHERE qnId = ANY(?))";
+
+    private static final String DELETE_ATTACHMENTS_SQL = "DELETE FROM answer_attachments WHERE ansId IN " +
+            "(SELECT ansId FROM answers WHERE qnId = ANY(?))";
+
+    private static final String ARCHIVE_ANSWERS_SQL = "WITH moved AS (DELETE FROM answers WHERE qnId = ANY(?) " +
+            "RETURNING ansId, ans, qnId, userId, score, created) " +
+            "INSERT INTO answers_archive (ansId, ans, qnId, userId, score, created) SELECT * FROM moved";
+
+    private static final String ARCHIVE_QUESTIONS_SQL = "WITH moved AS (DELETE FROM questions WHERE qnId = ANY(?) " +
+            "RETURNING qnId, qn, userId, views, created, answerCount, lastActivityAt, tags) " +
+            "INSERT INTO questions_archive (qnId, qn, userId, views, created, answerCount, lastActivityAt, tags) " +
+            "SELECT * FROM moved";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Outbox outbox;
+
+    private final HotQuestions hotQuestions;
+
+    private final NearCache nearCache;
+
+    private final FragmentCache fragmentCache;
+
+    private final TagIndex tagIndex;
+
+    private final TitleIndex titleIndex;
+
+    private final ShardRouting shardRouting;
+
+    private final Duration inactiveFor;
+
+    private final int batchSize;
+
+    private final int batchesPerRun;
+
+    public QuestionArchiver(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, Outbox outbox,
+                            HotQuestions hotQuestions, NearCache nearCache, FragmentCache fragmentCache,
+                            TagIndex tagIndex,
+                            TitleIndex titleIndex, ShardRouting shardRouting,
+                            @Value("${qna.archive.inactive-for}") Duration inactiveFor,
+                            @Value("${qna.archive.batch-size}") int batchSize,
+                            @Value("${qna.archive.batches-per-run}") int batchesPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.outbox = outbox;
+        this.hotQuestions = hotQuestions;
+        this.nearCache = nearCache;
+        this.fragmentCache = fragmentCache;
+        this.tagIndex = tagIndex;
+        this.titleIndex = titleIndex;
+        this.shardRouting = shardRouting;
+        this.inactiveFor = inactiveFor;
+        this.batchSize = batchSize;
+        this.batchesPerRun = batchesPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${qna.archive.interval}", initialDelayString = "${qna.archive.interval}")
+    public void archive() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(inactiveFor));
+        shardRouting.forEachShard(() -> archive(cutoff));
+    }
+
+    private void archive(Timestamp cutoff) {
+        int archived = 0;
+        for (int batch = 0; batch < batchesPerRun; batch++) {
+            List<Long> ids = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            ids.forEach(hotQuestions::remove);
+            archived += ids.size();
+            if (ids.size() < batchSize) break;
+        }
+        if (archived > 0) log.info("Archived {} inactive questions", archived);
+    }
+
+    private List<Long> archiveBatch(Timestamp cutoff) {
+        List<Long> ids = jdbcTemplate.queryForList(CLAIM_SQL, Long.class, cutoff, batchSize);
+        if (ids.isEmpty()) return ids;
+        Long[] idArray = ids.toArray(Long[]::new);
+        for (String sql : List.of(DELETE_VOTES_SQL, DELETE_ATTACHMENTS_SQL, ARCHIVE_ANSWERS_SQL,
+                ARCHIVE_QUESTIONS_SQL)) {
+            jdbcTemplate.update((Connection connection) -> {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setArray(1, connection.createArrayOf("bigint", idArray));
+                return statement;
+            });
+        }
+        ids.forEach(qnId -> outbox.record("question", qnId, "QuestionArchived", Map.of("qnId", qnId)));
+        nearCache.invalidate(nearCache.getQuestions(), ids);
+        fragmentCache.removed(ids);
+        tagIndex.removed(ids);
+        titleIndex.removed(ids);
+        return ids;
+    }
+}
@@ -1,13 +1,38 @@
 package com.projects.qna.service;
 
+import com.projects.qna.auth.Ownership;
+import com.projects.qna.cache.ExistenceIndex;
+import com.projects.qna.cache.FragmentCache;
+import com.projects.qna.cache.NearCache;
+import com.projects.qna.cache.TagIndex;
+import com.projects.qna.cache.TitleIndex;
 import com.projects.qna.exceptions.ServiceError;
 import com.projects.qna.exceptions.ServiceException;
 import com.projects.qna.model.Question;
 import com.projects.qna.model.QuestionRepository;
+import com.projects.qna.outbox.Outbox;
+import com.projects.qna.sharding.ShardRouting;
 import lombok.Data;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Data
@@ -17,32 +42,194 @@ public class QuestionService {
 
     private final EntityService entityService;
 
+    private final QuestionViewCounter viewCounter;
+
+    private final HotQuestions hotQuestions;
+
+    private final ProjectionService projectionService;
+
+    private final Outbox outbox;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final NearCache nearCache;
+
+    private final FragmentCache fragmentCache;
+
+    private final ExistenceIndex existenceIndex;
+
+    private final ShardRouting shardRouting;
+
+    private final TagIndex tagIndex;
+
+    private final TitleIndex titleIndex;
+
+    private static final Comparator<Question> BY_ID = Comparator.comparing(Question::getQnId);
+
+    private static final Set<String> PROJECTABLE_FIELDS =
+            Set.of("qnId", "qn", "userId", "views", "created", "answerCount", "lastActivityAt", "tags");
+
     public Question getQuestion(Long id) {
-        return questionRepository.findById(id).orElseThrow(() -> new ServiceException(ServiceError.ENTITY_NOT_FOUND));
+        if (existenceIndex.isAbsent(ExistenceIndex.Kind.QUESTION, id)) throw ServiceException.of(ServiceError.ENTITY_NOT_FOUND);
+        Optional<Question> liveQuestion = shardRouting.on(shardRouting.shardOf(id),
+                () -> nearCache.getQuestions().get(id, questionRepository::findById));
+        if (liveQuestion.isEmpty()) {
+            // archived questions are read-only: no view counting, no trending
+            return shardRouting.on(shardRouting.shardOf(id), () -> questionRepository.findArchivedById(id))
+                    .orElseThrow(() -> ServiceException.of(ServiceError.ENTITY_NOT_FOUND));
+        }
+        Question question = liveQuestion.get();
+        question.setViews(question.getViews() + viewCounter.pending(id));
+        viewCounter.increment(id);
+        hotQuestions.record(id, HotQuestions.Activity.VIEW);
+        return question;
+    }
+
+    private Question findQuestion(Long id) {
+        return questionRepository.findById(id).orElseThrow(() -> ServiceException.of(ServiceError.ENTITY_NOT_FOUND));
     }
 
     public List<Question> getAllQuestions() {
-        return questionRepository.findAll();
+        return shardRouting.gather(shard -> questionRepository.findAll(Sort.by("qnId")), BY_ID, Long.MAX_VALUE);
     }
 
-    public Question createQuestion(Question question) {
-        Long currentSequenceValue = entityService.getCurrentSequenceValue("questions_seq");
-        try {
-            return questionRepository.save(question);
-        } catch (Exception e) {
-            entityService.resetSequenceValue("questions_seq", currentSequenceValue);
-            throw e;
+    public List<Question> getQuestionsAfter(Long qnId, int limit) {
+        return shardRouting.gather(shard -> questionRepository.findByQnIdGreaterThanOrderByQnId(qnId, Limit.of(limit)),
+                BY_ID, limit);
+    }
+
+    public List<Question> getQuestions(String sort, boolean unanswered, int limit) {
+        PageRequest page = PageRequest.of(0, limit, questionSort(sort));
+        return shardRouting.gather(shard -> unanswered ? questionRepository.findUnansweredPage(page)
+                : questionRepository.findPage(page), questionOrder(sort), limit);
+    }
+
+    public List<Map<String, Object>> getQuestionFields(Set<String> fields, String sort, boolean unanswered, int limit) {
+        return projectionService.project(Question.class, PROJECTABLE_FIELDS, fields,
+                unanswered ? (cb, root) -> cb.equal(root.get("answerCount"), 0) : null, questionSort(sort), limit);
+    }
+
+    private Sort questionSort(String sort) {
+        if (sort == null || "id".equals(sort)) return Sort.by("qnId");
+        if ("activity".equals(sort)) return Sort.by(Sort.Direction.DESC, "lastActivityAt", "qnId");
+        if ("answers".equals(sort)) return Sort.by(Sort.Direction.DESC, "answerCount", "qnId");
+        throw new ServiceException(ServiceError.INVALID_PARAMETER);
+    }
+
+    // the order of questionSort, for merging the pages of several shards
+    private static Comparator<Question> questionOrder(String sort) {
+        if ("activity".equals(sort)) {
+            return Comparator.comparing(Question::getLastActivityAt).thenComparing(BY_ID).reversed();
+        }
+        if ("answers".equals(sort)) {
+            return Comparator.comparingLong(Question::getAnswerCount).thenComparing(BY_ID).reversed();
         }
+        return BY_ID;
+    }
+
+    public List<Question> getHotQuestions(int limit) {
+        return findAllInOrder(hotQuestions.top(limit));
+    }
+
+    public List<TitleIndex.Suggestion> suggestQuestions(String prefix, int limit) {
+        return titleIndex.suggest(prefix, limit);
+    }
+
+    public TaggedQuestions getTaggedQuestions(Set<String> all, Set<String> any, Set<String> none, Long before,
+                                              int limit, int facets) {
+        Set<String> allTags = normalize(all);
+        Set<String> anyTags = normalize(any);
+        if (allTags.isEmpty() && anyTags.isEmpty()) throw new ServiceException(ServiceError.INVALID_PARAMETER);
+        Roaring64Bitmap matching = tagIndex.matching(allTags, anyTags, normalize(none));
+        // newest first: from the highest id below before downwards
+        long end = before == null ? matching.getLongCardinality() : before <= 1 ? 0 : matching.rankLong(before - 1);
+        List<Long> ids = new ArrayList<>(limit);
+        for (long rank = end - 1; rank >= 0 && ids.size() < limit; rank--) ids.add(matching.select(rank));
+        Long next = end > ids.size() ? ids.get(ids.size() - 1) : null;
+        return new TaggedQuestions(findAllInOrder(ids), matching.getLongCardinality(),
+                facets == 0 ? Map.of() : tagIndex.facets(matching, allTags, facets), next);
+    }
+
+    // one batched fetch per shard; ids of questions that are gone by now are skipped
+    private List<Question> findAllInOrder(List<Long> ids) {
+        Map<Long, Question> questions = shardRouting.scatter(shard -> questionRepository.findAllById(
+                        ids.stream().filter(id -> shardRouting.shardOf(id) == shard).toList())).stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toMap(Question::getQnId, Function.identity()));
+        return ids.stream().map(questions::get).filter(Objects::nonNull).toList();
+    }
+
+    private static Set<String> normalize(Collection<String> tags) {
+        if (tags == null) return Set.of();
+        return tags.stream().map(tag -> tag.trim().toLowerCase(Locale.ROOT)).filter(tag -> !tag.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static void normalizeTags(Question question) {
+        if (question.getTags() != null) question.setTags(List.copyOf(normalize(question.getTags())));
+    }
+
+    public Question createQuestion(Question question) {
+        normalizeTags(question);
+        return shardRouting.on(shardRouting.next(), () -> {
+            Long currentSequenceValue = entityService.getCurrentSequenceValue("questions_seq");
+            try {
+                return transactionTemplate.execute(status -> {
+                    Question createdQuestion = questionRepository.save(question);
+                    outbox.record("question", createdQuestion.getQnId(), "QuestionCreated", createdQuestion);
+                    existenceIndex.created(ExistenceIndex.Kind.QUESTION, createdQuestion.getQnId());
+                    titleIndex.changed(createdQuestion.getQnId(), createdQuestion.getQn(), 0);
+                    if (createdQuestion.getTags() != null && !createdQuestion.getTags().isEmpty()) {
+                        tagIndex.changed(createdQuestion.getQnId(), createdQuestion.getTags());
+                    }
+                    return createdQuestion;
+                });
+            } catch (Exception e) {
+                entityService.resetSequenceValue("questions_seq", currentSequenceValue);
+                throw e;
+            }
+        });
     }
 
-    public Question updateQuestion(Long id, Question question) {
-        Question existingQuestion = getQuestion(id);
-        question.setQnId(id);
-        return questionRepository.save(question);
+    public Question updateQuestion(Long id, Question question, Long callerId) {
+        normalizeTags(question);
+        return shardRouting.on(shardRouting.shardOf(id), () -> transactionTemplate.execute(status -> {
+            Question existingQuestion = findQuestion(id);
+            Ownership.check(callerId, existingQuestion.getUserId());
+            if (callerId != null) question.setUserId(existingQuestion.getUserId());
+            String previousQn = existingQuestion.getQn();
+            List<String> previousTags = existingQuestion.getTags();
+            question.setQnId(id);
+            long views = existingQuestion.getViews();
+            long answerCount = existingQuestion.getAnswerCount();
+            Instant created = existingQuestion.getCreated();
+            Instant lastActivityAt = existingQuestion.getLastActivityAt();
+            Question updatedQuestion = questionRepository.save(question);
+            updatedQuestion.setViews(views);
+            updatedQuestion.setAnswerCount(answerCount);
+            updatedQuestion.setCreated(created);
+            updatedQuestion.setLastActivityAt(lastActivityAt);
+            outbox.record("question", id, "QuestionUpdated", updatedQuestion);
+            nearCache.invalidate(nearCache.getQuestions(), id);
+            fragmentCache.questionChanged(id);
+            if (!previousQn.equals(updatedQuestion.getQn())) titleIndex.changed(id, updatedQuestion.getQn(), views);
+            if (!Objects.equals(previousTags, updatedQuestion.getTags())) tagIndex.changed(id, updatedQuestion.getTags());
+            return updatedQuestion;
+        }));
     }
 
-    public void deleteQuestion(Long id) {
-        Question existingQuestion = getQuestion(id);
-        questionRepository.deleteById(id);
+    public void deleteQuestion(Long id, Long callerId) {
+        shardRouting.run(shardRouting.shardOf(id), () -> transactionTemplate.executeWithoutResult(status -> {
+            Question existingQuestion = findQuestion(id);
+            Ownership.check(callerId, existingQuestion.getUserId());
+            questionRepository.deleteById(id);
+            outbox.record("question", id, "QuestionDeleted", Map.of("qnId", id));
+            nearCache.invalidate(nearCache.getQuestions(), id);
+            fragmentCache.questionChanged(id);
+            existenceIndex.deleted(ExistenceIndex.Kind.QUESTION, id);
+            tagIndex.removed(List.of(id));
+            titleIndex.removed(List.of(id));
+        }));
+        hotQuestions.remove(id);
     }
 }
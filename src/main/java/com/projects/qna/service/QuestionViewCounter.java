@@ -0,0 +1,96 @@
+package com.projects.qna.service;
+
+import com.projects.qna.cache.NearCache;
+import com.projects.qna.sharding.ShardRouting;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates question views in memory and writes them to the database as one batched
+ * statement per flush, so reads never take a row lock on the question they are viewing.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuestionViewCounter {
+
+    private static final String FLUSH_SQL = "UPDATE questions SET views = views + d.delta " +
+            "FROM unnest(?::bigint[], ?::bigint[]) AS d(qnId, delta) WHERE questions.qnId = d.qnId";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NearCache nearCache;
+
+    private final ShardRouting shardRouting;
+
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    public void increment(Long qnId) {
+        LongAdder adder = pending.computeIfAbsent(qnId, id -> new LongAdder());
+        adder.increment();
+        // a flush dropped the adder as idle before the increment landed: move the view to the current one
+        if (pending.get(qnId) != adder) {
+            long views = adder.sumThenReset();
+            if (views > 0) pending.computeIfAbsent(qnId, id -> new LongAdder()).add(views);
+        }
+    }
+
+    public long pending(Long qnId) {
+        LongAdder adder = pending.get(qnId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${qna.views.flush-interval}", initialDelayString = "${qna.views.flush-interval}")
+    public void flush() {
+        // sorted so that concurrent flushes from several instances lock rows in the same order
+        Map<Long, Long> deltas = new TreeMap<>();
+        pending.forEach((qnId, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta > 0) deltas.put(qnId, delta);
+            // idle since the last flush: drop it so the map only tracks recently viewed questions,
+            // unless a view came in meanwhile
+            else pending.computeIfPresent(qnId,
+                    (id, current) -> current == adder && current.sum() == 0 ? null : current);
+        });
+        if (deltas.isEmpty()) return;
+
+        Map<Integer, Map<Long, Long>> byShard = new TreeMap<>();
+        deltas.forEach((qnId, delta) ->
+                byShard.computeIfAbsent(shardRouting.shardOf(qnId), shard -> new TreeMap<>()).put(qnId, delta));
+        byShard.forEach((shard, shardDeltas) -> shardRouting.run(shard, () -> write(shardDeltas)));
+    }
+
+    private void write(Map<Long, Long> deltas) {
+        Long[] ids = deltas.keySet().toArray(Long[]::new);
+        Long[] values = deltas.values().toArray(Long[]::new);
+        try {
+            jdbcTemplate.update((Connection connection) -> {
+                PreparedStatement statement = connection.prepareStatement(FLUSH_SQL);
+                statement.setArray(1, connection.createArrayOf("bigint", ids));
+                statement.setArray(2, connection.createArrayOf("bigint", values));
+                return statement;
+            });
+            // the flushed views are no longer pending here; other instances see them once their entries expire
+            nearCache.getQuestions().evict(deltas.keySet());
+        } catch (RuntimeException e) {
+            log.warn("Could not flush views for {} questions, retrying on next flush", ids.length, e);
+            deltas.forEach((qnId, delta) -> pending.computeIfAbsent(qnId, id -> new LongAdder()).add(delta));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
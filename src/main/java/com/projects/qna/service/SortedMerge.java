@@ -0,0 +1,47 @@
+package com.projects.qna.service;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Lazily merges sources that are each sorted by the same order into one sorted iterator. Only the
+ * current head of every source is held, so the sources may themselves be streams of pages.
+ * Equal elements are taken from the earlier source first.
+ */
+public final class SortedMerge<T> implements Iterator<T> {
+
+    private record Head<T>(T value, int source) {
+    }
+
+    private final List<? extends Iterator<? extends T>> sources;
+
+    private final PriorityQueue<Head<T>> heads;
+
+    public SortedMerge(List<? extends Iterator<? extends T>> sources, Comparator<? super T> order) {
+        this.sources = sources;
+        Comparator<Head<T>> byValue = (a, b) -> order.compare(a.value(), b.value());
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()), byValue.thenComparingInt(Head::source));
+        for (int i = 0; i < sources.size(); i++) advance(i);
+    }
+
+    private void advance(int source) {
+        Iterator<? extends T> iterator = sources.get(source);
+        if (iterator.hasNext()) heads.add(new Head<>(iterator.next(), source));
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        Head<T> head = heads.poll();
+        if (head == null) throw new NoSuchElementException();
+        advance(head.source());
+        return head.value();
+    }
+}
@@ -0,0 +1,10 @@
+package com.projects.qna.service;
+
+import com.projects.qna.model.Question;
+
+import java.util.List;
+import java.util.Map;
+
+// next is the before of the following page, null on the last one
+public record TaggedQuestions(List<Question> questions, long total, Map<String, Long> facets, Long next) {
+}
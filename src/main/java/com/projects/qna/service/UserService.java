@@ -1,13 +1,30 @@
 package com.projects.qna.service;
 
+import com.projects.qna.auth.Ownership;
+import com.projects.qna.auth.PasswordHasher;
+import com.projects.qna.cache.ExistenceIndex;
+import com.projects.qna.cache.NearCache;
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
 import com.projects.qna.model.User;
 import com.projects.qna.model.UserRepository;
+import com.projects.qna.outbox.Outbox;
 import lombok.Data;
+import org.postgresql.util.PSQLException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @Service
 @Data
@@ -15,26 +32,131 @@ public class UserService {
 
     private final UserRepository userRepository;
 
+    private final PasswordHasher passwordHasher;
+
+    private final EmailFilter emailFilter;
+
+    private final ProjectionService projectionService;
+
+    private final Outbox outbox;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final NearCache nearCache;
+
+    private final ExistenceIndex existenceIndex;
+
+    private static final String EMAIL_INDEX = "users_email_normalized_idx";
+
+    // password is deliberately not projectable
+    private static final Set<String> PROJECTABLE_FIELDS = Set.of("userId", "name", "email", "phone");
+
+    // thrown for every unknown user id, so it is allocated once and without a stack trace
+    private static final ResponseStatusException USER_NOT_FOUND =
+            new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found") {
+                @Override
+                public synchronized Throwable fillInStackTrace() {
+                    return this;
+                }
+            };
+
     public User getUser(Long id) {
-        return userRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+        if (existenceIndex.isAbsent(ExistenceIndex.Kind.USER, id)) throw USER_NOT_FOUND;
+        return nearCache.getUsers().get(id, userRepository::findById).orElseThrow(() -> USER_NOT_FOUND);
     }
 
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
 
+    public List<User> getUsersAfter(Long userId, int limit) {
+        return userRepository.findByUserIdGreaterThanOrderByUserId(userId, Limit.of(limit));
+    }
+
+    public List<Map<String, Object>> getUserFields(Set<String> fields, int limit) {
+        return projectionService.project(User.class, PROJECTABLE_FIELDS, fields, null, Sort.by("userId"), limit);
+    }
+
     public User createUser(User user) {
-        return userRepository.save(user);
+        String email = EmailFilter.normalize(user.getEmail());
+        if (email != null) {
+            user.setEmail(user.getEmail().trim());
+            checkEmailUnused(email);
+        }
+        user.setPassword(passwordHasher.hash(user.getPassword()));
+        user.setPasswordHashed(true);
+        // hashed before the transaction starts so no connection is held while bcrypt runs
+        User createdUser = withUniqueEmail(email, () -> transactionTemplate.execute(status -> {
+            User savedUser = userRepository.save(user);
+            outbox.record("user", savedUser.getUserId(), "UserCreated", eventPayload(savedUser));
+            existenceIndex.created(ExistenceIndex.Kind.USER, savedUser.getUserId());
+            return savedUser;
+        }));
+        if (email != null) emailFilter.add(email);
+        return createdUser;
     }
 
-    public User updateUser(Long id, User user) {
+    public User updateUser(Long id, User user, Long callerId) {
+        Ownership.check(callerId, id);
         User existingUser = getUser(id);
+        String email = EmailFilter.normalize(user.getEmail());
+        if (email != null && !email.equals(EmailFilter.normalize(existingUser.getEmail()))) {
+            user.setEmail(user.getEmail().trim());
+            checkEmailUnused(email);
+        }
         user.setUserId(id);
-        return userRepository.save(user);
+        user.setPassword(passwordHasher.hash(user.getPassword()));
+        user.setPasswordHashed(true);
+        User updatedUser = withUniqueEmail(email, () -> transactionTemplate.execute(status -> {
+            User savedUser = userRepository.save(user);
+            outbox.record("user", id, "UserUpdated", eventPayload(savedUser));
+            nearCache.invalidate(nearCache.getUsers(), id);
+            return savedUser;
+        }));
+        if (email != null) emailFilter.add(email);
+        return updatedUser;
+    }
+
+    // everything but the password hash
+    private static Map<String, Object> eventPayload(User user) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("userId", user.getUserId());
+        payload.put("name", user.getName());
+        payload.put("email", user.getEmail());
+        payload.put("phone", user.getPhone());
+        return payload;
+    }
+
+    // the unique index on lower(email) still guards against concurrent signups with the same email
+    private void checkEmailUnused(String normalizedEmail) {
+        if (!emailFilter.mightExist(normalizedEmail)) return;
+        if (userRepository.existsByNormalizedEmail(normalizedEmail)) {
+            throw new ServiceException(ServiceError.DUPLICATE_EMAIL);
+        }
+        emailFilter.falsePositive();
+    }
+
+    // emails registered on another instance or by a concurrent signup are only caught by the index
+    private User withUniqueEmail(String normalizedEmail, Supplier<User> save) {
+        try {
+            return save.get();
+        } catch (DataIntegrityViolationException e) {
+            if (e.getRootCause() instanceof PSQLException sqlEx && sqlEx.getServerErrorMessage() != null
+                    && EMAIL_INDEX.equals(sqlEx.getServerErrorMessage().getConstraint())) {
+                emailFilter.add(normalizedEmail);
+                throw new ServiceException(ServiceError.DUPLICATE_EMAIL);
+            }
+            throw e;
+        }
     }
 
-    public void deleteUser(Long id) {
+    @Transactional
+    public void deleteUser(Long id, Long callerId) {
+        Ownership.check(callerId, id);
         User existingUser = getUser(id);
         userRepository.deleteById(id);
+        outbox.record("user", id, "UserDeleted", Map.of("userId", id));
+        nearCache.invalidate(nearCache.getUsers(), id);
+        existenceIndex.deleted(ExistenceIndex.Kind.USER, id);
     }
 }
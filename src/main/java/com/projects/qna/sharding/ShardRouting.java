@@ -0,0 +1,131 @@
+package com.projects.qna.sharding;
+
+import com.projects.qna.service.SortedMerge;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Decides which database a question, its answers and their votes live in, and points the routing
+ * DataSource at it for the work run inside {@link #on}. Question and answer ids end in the index of
+ * their shard: every shard's questions_seq and answers_seq count in steps of {@link #MAX_SHARDS}
+ * from the shard index, and answers are created on the shard of their question.
+ * <p>
+ * Without {@code qna.sharding.enabled} there is a single shard and routing changes nothing.
+ */
+@Component
+public class ShardRouting {
+
+    public static final int SHARD_BITS = 8;
+
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final int count;
+
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardRouting(ShardingProperties properties) {
+        this.count = properties.enabled() ? properties.shards().size() + 1 : 1;
+        if (count > MAX_SHARDS) throw new IllegalStateException("At most " + MAX_SHARDS + " shards are supported");
+    }
+
+    static Integer current() {
+        return CURRENT.get();
+    }
+
+    // shard 0's own DataSource for tables that only live on the primary: unlike on(0, ...) it is not
+    // affected by a transaction already bound to another shard's connection
+    public static DataSource primary(DataSource dataSource) {
+        return dataSource instanceof ShardRoutingDataSource routing ? routing.shard(0) : dataSource;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int shardOf(Long id) {
+        if (count == 1 || id == null) return 0;
+        int shard = (int) (id & (MAX_SHARDS - 1));
+        // not an id this deployment handed out, look for it where nothing is found
+        return shard < count ? shard : 0;
+    }
+
+    // shard for a new question
+    public int next() {
+        return Math.floorMod(nextShard.getAndIncrement(), count);
+    }
+
+    public <T> T on(int shard, Supplier<T> work) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        }
+    }
+
+    public void run(int shard, Runnable work) {
+        on(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // for maintenance jobs, one shard after the other
+    public void forEachShard(Runnable work) {
+        for (int shard = 0; shard < count; shard++) run(shard, work);
+    }
+
+    /**
+     * Runs the query on every shard at once and returns the results in shard order.
+     */
+    public <T> List<T> scatter(IntFunction<T> query) {
+        if (count == 1) return Collections.singletonList(on(0, () -> query.apply(0)));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<T>> futures = IntStream.range(0, count)
+                    .mapToObj(shard -> executor.submit(() -> on(shard, () -> query.apply(shard))))
+                    .toList();
+            List<T> results = new ArrayList<>(count);
+            for (Future<T> future : futures) results.add(future.get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Scatters a query whose per-shard results are sorted by order and merges them into the first
+     * limit elements of the overall order.
+     */
+    public <T> List<T> gather(IntFunction<List<T>> query, Comparator<? super T> order, long limit) {
+        List<List<T>> results = scatter(query);
+        if (results.size() == 1) return results.get(0);
+        List<Iterator<T>> sources = results.stream().map(List::iterator).toList();
+        SortedMerge<T> merged = new SortedMerge<>(sources, order);
+        List<T> items = new ArrayList<>();
+        while (items.size() < limit && merged.hasNext()) items.add(merged.next());
+        return items;
+    }
+}
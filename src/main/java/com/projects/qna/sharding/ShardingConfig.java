@@ -0,0 +1,88 @@
+package com.projects.qna.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured DataSource with one that routes to the shard selected by
+ * {@link ShardRouting} when {@code qna.sharding.enabled} is set. Every shard gets the full schema
+ * and its sequences are renumbered so that the ids they hand out end in the shard index.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    private static final List<String> SEQUENCES = List.of("questions_seq", "answers_seq");
+
+    @Bean
+    @ConditionalOnProperty("qna.sharding.enabled")
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, ShardingProperties sharding,
+                                 Environment environment,
+                                 @Value("${spring.sql.init.mode:embedded}") String initMode) {
+        List<HikariDataSource> shards = new ArrayList<>();
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("shard-0");
+        shards.add(primary);
+        for (ShardingProperties.Shard shard : sharding.shards()) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(shard.url())
+                    .username(shard.username())
+                    .password(shard.password())
+                    .build();
+            dataSource.setPoolName("shard-" + shards.size());
+            dataSource.setMaximumPoolSize(sharding.poolSize());
+            shards.add(dataSource);
+        }
+        if (!"never".equals(initMode)) {
+            for (int shard = 0; shard < shards.size(); shard++) initialize(shards.get(shard), shard);
+        }
+
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) targets.put(shard, shards.get(shard));
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shards);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        log.info("Sharding questions and answers over {} databases", shards.size());
+        return routing;
+    }
+
+    private static void initialize(DataSource dataSource, int shard) {
+        // shard 0 is initialized again by spring.sql.init, the schema is idempotent
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+        if (shard > 0) populator.addScript(new ClassPathResource("db/shard.sql"));
+        populator.execute(dataSource);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String sequence : SEQUENCES) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + ShardRouting.MAX_SHARDS);
+            Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM " + sequence, Long.class);
+            if (Math.floorMod(lastValue, ShardRouting.MAX_SHARDS) != shard) {
+                long next = (lastValue / ShardRouting.MAX_SHARDS + 1) * ShardRouting.MAX_SHARDS + shard;
+                jdbcTemplate.queryForObject("SELECT setval(?::regclass, ?, false)", Long.class, sequence, next);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.projects.qna.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * Databases that questions and answers are spread over when {@code qna.sharding.enabled} is set.
+ * Shard 0 is always {@code spring.datasource}; the shards listed here are numbered from 1.
+ */
+@ConfigurationProperties("qna.sharding")
+public record ShardingProperties(boolean enabled, int poolSize, List<Shard> shards) {
+
+    public record Shard(String url, String username, String password) {
+    }
+
+    public List<Shard> shards() {
+        return shards == null ? List.of() : shards;
+    }
+}
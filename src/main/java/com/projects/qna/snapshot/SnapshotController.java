@@ -0,0 +1,61 @@
+package com.projects.qna.snapshot;
+
+import com.projects.qna.auth.AdminAccess;
+import com.projects.qna.auth.AuthInterceptor;
+import com.projects.qna.controllers.Bulkheads;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.Data;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Only mapped with {@code qna.admin.snapshots.enabled}, and then only for the users in
+ * {@code qna.admin.user-ids}.
+ */
+@RestController
+@Data
+@RequestMapping("/admin/snapshots")
+@ConditionalOnProperty(name = "qna.admin.snapshots.enabled", havingValue = "true")
+public class SnapshotController {
+
+    private final SnapshotService snapshotService;
+
+    private final Bulkheads bulkheads;
+
+    private final AdminAccess adminAccess;
+
+    @GetMapping
+    @Operation(summary = "List snapshots", description = "Names of the snapshot files in the snapshot directory")
+    public DeferredResult<List<String>> listSnapshots(
+            @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false) Long callerId) {
+        adminAccess.check(callerId);
+        return bulkheads.submit(Bulkheads.Workload.ADMIN, snapshotService::listSnapshots);
+    }
+
+    @PostMapping
+    @Operation(summary = "Take a snapshot", description = "Dump users, questions, answers, votes and the archive " +
+            "as of one point in time into a compressed, checksummed snapshot file")
+    public DeferredResult<ResponseEntity<SnapshotSummary>> backup(
+            @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false) Long callerId) {
+        adminAccess.check(callerId);
+        return bulkheads.submit(Bulkheads.Workload.ADMIN, () -> {
+            SnapshotSummary summary = snapshotService.backup();
+            return ResponseEntity.created(URI.create("/admin/snapshots/" + summary.name())).body(summary);
+        });
+    }
+
+    @PostMapping("/{name}/restore")
+    @Operation(summary = "Restore a snapshot", description = "Replace users, questions, answers, votes and the archive " +
+            "with the content of a snapshot file. Login tokens are revoked")
+    public DeferredResult<SnapshotSummary> restore(@PathVariable String name,
+                                                   @RequestAttribute(name = AuthInterceptor.USER_ID_ATTRIBUTE, required = false)
+                                                   Long callerId) {
+        adminAccess.check(callerId);
+        return bulkheads.submit(Bulkheads.Workload.ADMIN, () -> snapshotService.restore(name));
+    }
+}
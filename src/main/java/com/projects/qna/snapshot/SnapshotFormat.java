@@ -0,0 +1,124 @@
+package com.projects.qna.snapshot;
+
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshot file layout: a header listing every table section (name, columns, row count, raw and
+ * compressed size, SHA-256 of the compressed bytes), followed by the sections in the same order.
+ * Each section is a gzip member holding the table in COPY binary format.
+ */
+final class SnapshotFormat {
+
+    private static final long MAGIC = 0x514E41534E415031L; // "QNASNAP1"
+
+    private static final int VERSION = 1;
+
+    private SnapshotFormat() {
+    }
+
+    record Section(String table, List<String> columns, long rows, long bytes, long compressedBytes, byte[] sha256) {
+    }
+
+    static void writeHeader(OutputStream out, List<Section> sections) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeLong(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(sections.size());
+        for (Section section : sections) {
+            data.writeUTF(section.table());
+            data.writeInt(section.columns().size());
+            for (String column : section.columns()) data.writeUTF(column);
+            data.writeLong(section.rows());
+            data.writeLong(section.bytes());
+            data.writeLong(section.compressedBytes());
+            data.write(section.sha256());
+        }
+        data.flush();
+    }
+
+    static List<Section> readHeader(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readLong() != MAGIC || data.readInt() != VERSION) {
+            throw new ServiceException(ServiceError.SNAPSHOT_CORRUPT);
+        }
+        int count = data.readInt();
+        List<Section> sections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String table = data.readUTF();
+            int columnCount = data.readInt();
+            List<String> columns = new ArrayList<>(columnCount);
+            for (int c = 0; c < columnCount; c++) columns.add(data.readUTF());
+            long rows = data.readLong();
+            long bytes = data.readLong();
+            long compressedBytes = data.readLong();
+            byte[] sha256 = new byte[32];
+            data.readFully(sha256);
+            sections.add(new Section(table, columns, rows, bytes, compressedBytes, sha256));
+        }
+        return sections;
+    }
+
+    // reads one section and then reports end of stream, leaving the rest of the file in place
+    static InputStream section(InputStream in, long length) {
+        return new FilterInputStream(in) {
+            private long remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining == 0) return -1;
+                int b = super.read();
+                if (b >= 0) remaining--;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int len) throws IOException {
+                if (remaining == 0) return -1;
+                int read = super.read(buffer, offset, (int) Math.min(len, remaining));
+                if (read > 0) remaining -= read;
+                return read;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(Math.min(n, remaining));
+                remaining -= skipped;
+                return skipped;
+            }
+
+            @Override
+            public int available() throws IOException {
+                return (int) Math.min(super.available(), remaining);
+            }
+
+            @Override
+            public void close() {
+                // the underlying file stays open for the next section
+            }
+        };
+    }
+
+    static final class CompressingOutputStream extends GZIPOutputStream {
+
+        CompressingOutputStream(OutputStream out) throws IOException {
+            super(out, 1 << 16);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+
+        long uncompressedBytes() {
+            return def.getBytesRead();
+        }
+    }
+}
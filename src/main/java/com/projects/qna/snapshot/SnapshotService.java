@@ -0,0 +1,335 @@
+package com.projects.qna.snapshot;
+
+import com.projects.qna.cache.ExistenceIndex;
+import com.projects.qna.cache.FragmentCache;
+import com.projects.qna.cache.NearCache;
+import com.projects.qna.cache.TagIndex;
+import com.projects.qna.cache.TitleIndex;
+import com.projects.qna.compression.TextCodec;
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import com.projects.qna.service.EmailFilter;
+import com.projects.qna.sharding.ShardRouting;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Backs up and restores the Q&A tables as one snapshot file.
+ * <p>
+ * A backup exports the snapshot of one repeatable read transaction and copies every table on its
+ * own connection that imports that snapshot, so all tables are dumped concurrently yet see the
+ * same point in time. Each table is compressed on its own thread into a part file while it is
+ * copied out; the parts are then concatenated behind a checksummed header. A restore replaces the
+ * tables in one transaction, streaming each section through gunzip into {@code COPY FROM}, and
+ * moves the id sequences past the restored ids. Both only cover a single database, so they are
+ * refused while questions and answers are sharded.
+ */
+@Slf4j
+@Component
+public class SnapshotService {
+
+    // in restore order, referenced tables first
+    // answer_attachments holds the rows only, the files stay in qna.attachments.directory;
+    // text_dictionaries goes first, compressed bodies refer to its ids
+    static final List<String> TABLES = List.of("text_dictionaries", "users", "questions", "answers", "answer_votes",
+            "answer_attachments", "questions_archive", "answers_archive");
+
+    private static final List<String> FIX_SEQUENCES_SQL = List.of(
+            "SELECT setval('users_seq', COALESCE(max(userId), 0) + 1, false) FROM users",
+            "SELECT setval('questions_seq', COALESCE(max(qnId), 0) + 1, false) FROM questions",
+            "SELECT setval('answers_seq', COALESCE(max(ansId), 0) + 1, false) FROM answers");
+
+    // snapshots taken before users.passwordHashed existed, recognised the way schema.sql does when adding it
+    private static final String FLAG_HASHED_PASSWORDS_SQL =
+            "UPDATE users SET passwordHashed = true WHERE password ~ '^\\$2[aby]\\$[0-9]{2}\\$[./A-Za-z0-9]{53}$'";
+
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("[A-Za-z0-9_.-]+\\.qsnap");
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EmailFilter emailFilter;
+
+    private final NearCache nearCache;
+
+    private final FragmentCache fragmentCache;
+
+    private final ExistenceIndex existenceIndex;
+
+    private final TagIndex tagIndex;
+
+    private final TitleIndex titleIndex;
+
+    private final TextCodec textCodec;
+
+    private final ShardRouting shardRouting;
+
+    private final Path directory;
+
+    public SnapshotService(DataSource dataSource, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                           EmailFilter emailFilter, NearCache nearCache, FragmentCache fragmentCache,
+                           ExistenceIndex existenceIndex, TagIndex tagIndex, TitleIndex titleIndex,
+                           TextCodec textCodec, ShardRouting shardRouting,
+                           @Value("${qna.snapshot.directory}") Path directory) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.emailFilter = emailFilter;
+        this.nearCache = nearCache;
+        this.fragmentCache = fragmentCache;
+        this.existenceIndex = existenceIndex;
+        this.tagIndex = tagIndex;
+        this.titleIndex = titleIndex;
+        this.textCodec = textCodec;
+        this.shardRouting = shardRouting;
+        this.directory = directory.toAbsolutePath();
+    }
+
+    public List<String> listSnapshots() throws IOException {
+        if (!Files.isDirectory(directory)) return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> SNAPSHOT_NAME.matcher(name).matches())
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public SnapshotSummary backup() throws IOException, SQLException {
+        checkNotSharded();
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        String name = "qna-" + LocalDateTime.now().format(TIMESTAMP) + ".qsnap";
+        Path parts = Files.createTempDirectory(directory, "backup-");
+        try {
+            List<SnapshotFormat.Section> sections = dumpTables(parts);
+            Path partial = directory.resolve(name + ".partial");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), 1 << 16)) {
+                SnapshotFormat.writeHeader(out, sections);
+                for (SnapshotFormat.Section section : sections) {
+                    Files.copy(parts.resolve(section.table()), out);
+                }
+            }
+            Files.move(partial, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+            return summary("Backed up", name, sections, start);
+        } finally {
+            try (Stream<Path> files = Files.list(parts)) {
+                for (Path part : files.toList()) Files.deleteIfExists(part);
+            }
+            Files.deleteIfExists(parts);
+        }
+    }
+
+    private List<SnapshotFormat.Section> dumpTables(Path parts) throws IOException, SQLException {
+        try (Connection coordinator = dataSource.getConnection()) {
+            coordinator.setAutoCommit(false);
+            coordinator.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            coordinator.setReadOnly(true);
+            try (Statement statement = coordinator.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT pg_export_snapshot()")) {
+                rs.next();
+                String snapshotId = rs.getString(1);
+                // the exported snapshot stays importable while the coordinator's transaction is open
+                List<SnapshotFormat.Section> sections = new ArrayList<>();
+                try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+                    List<Future<SnapshotFormat.Section>> dumps = TABLES.stream()
+                            .map(table -> workers.submit(() -> dumpTable(table, snapshotId, parts.resolve(table))))
+                            .toList();
+                    for (Future<SnapshotFormat.Section> dump : dumps) sections.add(await(dump));
+                }
+                return sections;
+            } finally {
+                coordinator.rollback();
+            }
+        }
+    }
+
+    private SnapshotFormat.Section dumpTable(String table, String snapshotId, Path part) throws IOException, SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            connection.setReadOnly(true);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET TRANSACTION SNAPSHOT '" + snapshotId + "'");
+                }
+                List<String> columns = columns(connection, table);
+                MessageDigest sha256 = sha256();
+                long rows;
+                long bytes;
+                try (SnapshotFormat.CompressingOutputStream out = new SnapshotFormat.CompressingOutputStream(
+                        new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(part), 1 << 16), sha256))) {
+                    rows = copyManager(connection).copyOut(
+                            "COPY " + table + " (" + String.join(", ", columns) + ") TO STDOUT WITH (FORMAT binary)", out);
+                    out.finish();
+                    bytes = out.uncompressedBytes();
+                }
+                return new SnapshotFormat.Section(table, columns, rows, bytes, Files.size(part), sha256.digest());
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    private static List<String> columns(Connection connection, String table) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT column_name FROM information_schema.columns " +
+                "WHERE table_schema = current_schema() AND table_name = ? ORDER BY ordinal_position")) {
+            statement.setString(1, table);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) columns.add(rs.getString(1));
+            }
+        }
+        return columns;
+    }
+
+    public SnapshotSummary restore(String name) {
+        checkNotSharded();
+        if (!SNAPSHOT_NAME.matcher(name).matches()) throw new ServiceException(ServiceError.INVALID_PARAMETER);
+        Path file = directory.resolve(name);
+        if (!Files.isRegularFile(file)) throw new ServiceException(ServiceError.ENTITY_NOT_FOUND);
+        long start = System.nanoTime();
+        List<SnapshotFormat.Section> sections = transactionTemplate.execute(status ->
+                jdbcTemplate.execute((ConnectionCallback<List<SnapshotFormat.Section>>) connection -> {
+                    try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+                        return restoreTables(connection, in);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+        textCodec.reloaded();
+        // restored users may have emails the signup filter has not seen yet
+        emailFilter.load();
+        nearCache.invalidateAll();
+        fragmentCache.invalidateAll();
+        for (ExistenceIndex.Kind kind : ExistenceIndex.Kind.values()) existenceIndex.reloaded(kind);
+        tagIndex.reloaded();
+        titleIndex.reloaded();
+        return summary("Restored", name, sections, start);
+    }
+
+    private List<SnapshotFormat.Section> restoreTables(Connection connection, InputStream in) throws IOException, SQLException {
+        List<SnapshotFormat.Section> sections = SnapshotFormat.readHeader(in);
+        for (SnapshotFormat.Section section : sections) {
+            // the header ends up in SQL, only accept what a backup of this schema can contain
+            if (!TABLES.contains(section.table()) || !section.columns().stream().allMatch(c -> IDENTIFIER.matcher(c).matches())) {
+                throw new ServiceException(ServiceError.SNAPSHOT_CORRUPT);
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE " + String.join(", ", TABLES) + " CASCADE");
+        }
+        CopyManager copyManager = copyManager(connection);
+        for (SnapshotFormat.Section section : sections) {
+            MessageDigest sha256 = sha256();
+            InputStream compressed = new DigestInputStream(SnapshotFormat.section(in, section.compressedBytes()), sha256);
+            long rows = copyManager.copyIn("COPY " + section.table() + " (" + String.join(", ", section.columns()) +
+                    ") FROM STDIN WITH (FORMAT binary)", new GZIPInputStream(compressed, 1 << 16));
+            compressed.transferTo(OutputStream.nullOutputStream());
+            if (rows != section.rows() || !MessageDigest.isEqual(sha256.digest(), section.sha256())) {
+                throw new ServiceException(ServiceError.SNAPSHOT_CORRUPT);
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : FIX_SEQUENCES_SQL) statement.execute(sql);
+            if (sections.stream().anyMatch(s -> s.table().equals("users") && !s.columns().contains("passwordhashed"))) {
+                statement.execute(FLAG_HASHED_PASSWORDS_SQL);
+            }
+        }
+        return sections;
+    }
+
+    // a backup would miss the other shards and a restore would leave their rows in place
+    private void checkNotSharded() {
+        if (shardRouting.count() > 1) throw new ServiceException(ServiceError.NOT_SHARDED);
+    }
+
+    private static SnapshotSummary summary(String action, String name, List<SnapshotFormat.Section> sections, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Map<String, Long> rows = new LinkedHashMap<>();
+        long bytes = 0;
+        long compressedBytes = 0;
+        for (SnapshotFormat.Section section : sections) {
+            rows.put(section.table(), section.rows());
+            bytes += section.bytes();
+            compressedBytes += section.compressedBytes();
+        }
+        double megabytesPerSecond = bytes / 1e6 / Math.max(seconds, 1e-3);
+        log.info("{} snapshot {}: {} MB ({} MB compressed) in {} s, {} MB/s", action, name,
+                String.format("%.1f", bytes / 1e6), String.format("%.1f", compressedBytes / 1e6),
+                String.format("%.1f", seconds), String.format("%.1f", megabytesPerSecond));
+        return new SnapshotSummary(name, rows, bytes, compressedBytes, seconds, megabytesPerSecond);
+    }
+
+    private static CopyManager copyManager(Connection connection) throws SQLException {
+        return connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException, SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while taking snapshot", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) throw ioException;
+            if (e.getCause() instanceof SQLException sqlException) throw sqlException;
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
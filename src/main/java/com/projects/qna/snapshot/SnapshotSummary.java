@@ -0,0 +1,7 @@
+package com.projects.qna.snapshot;
+
+import java.util.Map;
+
+public record SnapshotSummary(String name, Map<String, Long> rows, long bytes, long compressedBytes,
+                              double seconds, double megabytesPerSecond) {
+}
@@ -0,0 +1,35 @@
+package com.projects.qna.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reports how long after JVM start the first request was answered, which is what the autoscaler
+ * waits for (logged and exposed as {@code qna.startup.first-request}).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FirstRequestTimer {
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean served = new AtomicBoolean();
+
+    @EventListener
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (served.get() || !served.compareAndSet(false, true)) return;
+        long millis = event.getTimestamp() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        log.info("First request ({} {}) answered {} ms after JVM start", event.getMethod(), event.getRequestUrl(), millis);
+        TimeGauge.builder("qna.startup.first-request", () -> millis, TimeUnit.MILLISECONDS).register(meterRegistry);
+    }
+}
@@ -0,0 +1,39 @@
+package com.projects.qna.startup;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Marks beans that API traffic does not need (OpenAPI docs, the custom actuator endpoint,
+ * Thymeleaf) as lazy, so they are created on first use instead of while the pod is starting.
+ * Runs during AOT processing as well, so the lazy flags end up in the generated bean definitions.
+ */
+@Component
+public class LazyBeans implements BeanFactoryPostProcessor, EnvironmentAware {
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        Binder binder = Binder.get(environment);
+        if (!binder.bind("qna.startup.lazy-beans.enabled", Boolean.class).orElse(false)) return;
+        List<String> names = binder.bind("qna.startup.lazy-beans.names", Bindable.listOf(String.class)).orElse(List.of());
+        for (String name : names) {
+            if (beanFactory.containsBeanDefinition(name)) {
+                beanFactory.getBeanDefinition(name).setLazyInit(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.projects.qna.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.exporter.FinishedSpan;
+import io.micrometer.tracing.exporter.SpanReporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the spans of sampled requests in memory instead of exporting them to a collector. Every
+ * finished span goes into a ring of {@code qna.tracing.spans}; when the server span of a request
+ * lasted at least {@code qna.tracing.slow-threshold}, the spans of its trace are copied out of the
+ * ring into the most recent {@code qna.tracing.slow-traces}. The other spans of a request end
+ * before its server span does, so they are still in the ring unless it wrapped around meanwhile.
+ */
+@Component
+public class TraceRing implements SpanReporter {
+
+    public record TraceSpan(String traceId, String spanId, String parentId, String name, Instant start,
+                            Duration duration, String error, Map<String, String> tags) {
+    }
+
+    public record SlowTrace(String traceId, Instant start, Duration duration, List<TraceSpan> spans) {
+    }
+
+    private final AtomicReferenceArray<TraceSpan> spans;
+
+    private final AtomicLong next = new AtomicLong();
+
+    // newest first, guarded by itself
+    private final Deque<SlowTrace> slowTraces = new ArrayDeque<>();
+
+    private final int maxSlowTraces;
+
+    private final Duration slowThreshold;
+
+    public TraceRing(@Value("${qna.tracing.spans}") int spans,
+                     @Value("${qna.tracing.slow-traces}") int slowTraces,
+                     @Value("${qna.tracing.slow-threshold}") Duration slowThreshold) {
+        this.spans = new AtomicReferenceArray<>(spans);
+        this.maxSlowTraces = slowTraces;
+        this.slowThreshold = slowThreshold;
+    }
+
+    @Override
+    public void report(FinishedSpan finished) {
+        Instant start = finished.getStartTimestamp();
+        Throwable error = finished.getError();
+        TraceSpan span = new TraceSpan(finished.getTraceId(), finished.getSpanId(), finished.getParentId(),
+                finished.getName(), start, Duration.between(start, finished.getEndTimestamp()),
+                error == null ? null : error.toString(), Map.copyOf(finished.getTags()));
+        spans.set((int) (next.getAndIncrement() % spans.length()), span);
+        if (finished.getKind() == Span.Kind.SERVER && span.duration().compareTo(slowThreshold) >= 0) {
+            SlowTrace trace = new SlowTrace(span.traceId(), start, span.duration(), spansOf(span.traceId()));
+            synchronized (slowTraces) {
+                if (slowTraces.size() == maxSlowTraces) slowTraces.removeLast();
+                slowTraces.addFirst(trace);
+            }
+        }
+    }
+
+    public List<SlowTrace> getSlowTraces() {
+        synchronized (slowTraces) {
+            return List.copyOf(slowTraces);
+        }
+    }
+
+    private List<TraceSpan> spansOf(String traceId) {
+        List<TraceSpan> trace = new ArrayList<>();
+        for (int i = 0; i < spans.length(); i++) {
+            TraceSpan span = spans.get(i);
+            if (span != null && span.traceId().equals(traceId)) trace.add(span);
+        }
+        trace.sort(Comparator.comparing(TraceSpan::start));
+        return trace;
+    }
+}
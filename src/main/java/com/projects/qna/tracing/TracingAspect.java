@@ -0,0 +1,83 @@
+package com.projects.qna.tracing;
+
+import com.projects.qna.controllers.Bulkheads;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps controllers, services (including the native queries of {@code EntityService}) and Spring
+ * Data repositories in spans named after the class and method, such as
+ * {@code QuestionService.getQuestion}. Only calls made for a sampled request are traced: without a
+ * current span, or with the noop span of an unsampled request, the call goes straight through.
+ * <p>
+ * Work handed to the {@link Bulkheads} runs under the span that submitted it, after a
+ * {@code bulkhead.queue} span covering the time it waited for a thread.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class TracingAspect {
+
+    private final Tracer tracer;
+
+    private final Map<Class<?>, String> typeNames = new ConcurrentHashMap<>();
+
+    @Around("execution(public * com.projects.qna..*Controller.*(..))"
+            + " || execution(public * com.projects.qna..*Service.*(..))"
+            + " || execution(public * org.springframework.data.repository.Repository+.*(..))")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        Span parent = tracer.currentSpan();
+        if (parent == null || parent.isNoop()) return joinPoint.proceed();
+        Span span = tracer.nextSpan(parent)
+                .name(typeName(joinPoint.getTarget()) + "." + joinPoint.getSignature().getName())
+                .start();
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    @Around("execution(* com.projects.qna.controllers.Bulkheads.submit(..)) && args(workload, task)")
+    public Object traceBulkhead(ProceedingJoinPoint joinPoint, Bulkheads.Workload workload, Callable<?> task)
+            throws Throwable {
+        Span parent = tracer.currentSpan();
+        if (parent == null || parent.isNoop()) return joinPoint.proceed();
+        Span queued = tracer.nextSpan(parent).name("bulkhead.queue").tag("workload", workload.name()).start();
+        Callable<Object> traced = () -> {
+            queued.end();
+            try (Tracer.SpanInScope scope = tracer.withSpan(parent)) {
+                return task.call();
+            }
+        };
+        DeferredResult<?> result = (DeferredResult<?>) joinPoint.proceed(new Object[]{workload, traced});
+        // rejected, so the task never ends it; ending it twice is harmless
+        if (result.hasResult()) queued.end();
+        return result;
+    }
+
+    // repositories are JDK proxies, named after their repository interface
+    private String typeName(Object target) {
+        return typeNames.computeIfAbsent(target.getClass(), type -> Arrays.stream(type.getInterfaces())
+                .filter(Repository.class::isAssignableFrom)
+                .findFirst()
+                .orElse(ClassUtils.getUserClass(type))
+                .getSimpleName());
+    }
+}
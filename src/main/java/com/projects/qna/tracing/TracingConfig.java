@@ -0,0 +1,78 @@
+package com.projects.qna.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.valves.ValveBase;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Tags the server span of a request with how long it took from Tomcat reading the request line
+ * until the application got to see it: header parsing, valves and the filters ahead of the
+ * observation filter, which starts the span. Tomcat does not read the request until a thread has
+ * picked up the connection, so waiting for one shows up in the client's latency, not here; the
+ * queues of the bulkheads the work then moves to are traced by {@link TracingAspect}.
+ */
+@Configuration
+public class TracingConfig {
+
+    private static final String RECEIVED = TracingConfig.class.getName() + ".received";
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> receivedValve() {
+        return factory -> factory.addEngineValves(new ReceivedValve());
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReceivedFilter> receivedFilter(Tracer tracer) {
+        FilterRegistrationBean<ReceivedFilter> registration = new FilterRegistrationBean<>(new ReceivedFilter(tracer));
+        // right after ServerHttpObservationFilter
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+
+    static class ReceivedValve extends ValveBase {
+
+        ReceivedValve() {
+            super(true);
+        }
+
+        @Override
+        public void invoke(Request request, Response response) throws IOException, ServletException {
+            request.setAttribute(RECEIVED, request.getCoyoteRequest().getStartTimeNanos());
+            getNext().invoke(request, response);
+        }
+    }
+
+    static class ReceivedFilter extends OncePerRequestFilter {
+
+        private final Tracer tracer;
+
+        ReceivedFilter(Tracer tracer) {
+            this.tracer = tracer;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            Span span = tracer.currentSpan();
+            if (span != null && !span.isNoop() && request.getAttribute(RECEIVED) instanceof Long received) {
+                span.tag("received.micros", Long.toString((System.nanoTime() - received) / 1000));
+            }
+            chain.doFilter(request, response);
+        }
+    }
+}
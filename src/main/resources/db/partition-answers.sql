@@ -0,0 +1,35 @@
+-- One-off conversion of an existing unpartitioned answers table into the partitioned layout of
+-- schema.sql. Run with psql during a maintenance window, the table is locked while rows are copied:
+--   psql -d qna -v ON_ERROR_STOP=1 -f partition-answers.sql
+-- The range size has to match qna.partitions.answers-range.
+\set answers_range 100000
+
+BEGIN;
+
+LOCK TABLE answers IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE answer_votes DROP CONSTRAINT IF EXISTS answer_votes_ansid_fkey;
+ALTER TABLE answers RENAME TO answers_unpartitioned;
+
+CREATE TABLE answers (LIKE answers_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (qnId);
+ALTER TABLE answers ADD FOREIGN KEY (qnId) REFERENCES questions (qnId);
+ALTER TABLE answers ADD FOREIGN KEY (userId) REFERENCES users (userId);
+CREATE TABLE answers_default PARTITION OF answers DEFAULT;
+
+SELECT format('CREATE TABLE answers_p%s PARTITION OF answers FOR VALUES FROM (%s) TO (%s)',
+              n, n * :answers_range, (n + 1) * :answers_range)
+FROM generate_series(0, (SELECT last_value FROM questions_seq) / :answers_range + 2) AS n
+\gexec
+
+INSERT INTO answers SELECT * FROM answers_unpartitioned;
+DROP TABLE answers_unpartitioned;
+
+CREATE INDEX answers_ansid_idx ON answers (ansId);
+CREATE INDEX answers_qnid_score_idx ON answers (qnId, score DESC, ansId);
+CREATE INDEX answers_qnid_created_idx ON answers (qnId, created);
+CREATE INDEX answers_userid_created_idx ON answers (userId, created, ansId);
+
+COMMIT;
+
+ANALYZE answers;
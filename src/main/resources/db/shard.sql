@@ -0,0 +1,5 @@
+-- Run after schema.sql on every shard but shard 0. Users live on shard 0 only, so references to
+-- them cannot be enforced on the other shards.
+ALTER TABLE questions DROP CONSTRAINT IF EXISTS questions_userid_fkey;
+ALTER TABLE answers DROP CONSTRAINT IF EXISTS answers_userid_fkey;
+ALTER TABLE answer_votes DROP CONSTRAINT IF EXISTS answer_votes_userid_fkey;
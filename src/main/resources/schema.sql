@@ -0,0 +1,141 @@
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE IF NOT EXISTS questions_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE IF NOT EXISTS answers_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE IF NOT EXISTS users (
+    userId BIGINT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    email VARCHAR(255),
+    phone VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS questions (
+    qnId BIGINT PRIMARY KEY,
+    qn TEXT NOT NULL,
+    userId BIGINT REFERENCES users (userId)
+);
+
+-- range partitioned by qnId so that reads of one question's answers touch a single partition;
+-- partitions are created ahead of questions_seq by AnswerPartitionMaintenance, answers without a
+-- question land in the default partition. A primary key would have to include qnId, so ansId is
+-- only indexed (it comes from answers_seq). Existing unpartitioned tables are converted with
+-- db/partition-answers.sql.
+CREATE TABLE IF NOT EXISTS answers (
+    ansId BIGINT NOT NULL,
+    ans TEXT NOT NULL,
+    qnId BIGINT REFERENCES questions (qnId),
+    userId BIGINT REFERENCES users (userId)
+) PARTITION BY RANGE (qnId);
+-- skipped while an existing answers table has not been converted yet
+DO 'BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = ''answers''::regclass) = ''p'' THEN
+        CREATE TABLE IF NOT EXISTS answers_default PARTITION OF answers DEFAULT;
+    END IF;
+END';
+CREATE INDEX IF NOT EXISTS answers_ansid_idx ON answers (ansId);
+
+ALTER TABLE questions ADD COLUMN IF NOT EXISTS views BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE answers ADD COLUMN IF NOT EXISTS score BIGINT NOT NULL DEFAULT 0;
+CREATE INDEX IF NOT EXISTS answers_qnid_score_idx ON answers (qnId, score DESC, ansId);
+
+-- no foreign key to the partitioned answers table, votes are deleted together with their answer
+CREATE TABLE IF NOT EXISTS answer_votes (
+    ansId BIGINT NOT NULL,
+    userId BIGINT NOT NULL REFERENCES users (userId) ON DELETE CASCADE,
+    value SMALLINT NOT NULL,
+    PRIMARY KEY (ansId, userId)
+);
+
+-- no foreign key to the partitioned answers table either; the files live in qna.attachments.directory,
+-- named by their SHA-256, see AttachmentStore
+CREATE TABLE IF NOT EXISTS answer_attachments (
+    ansId BIGINT NOT NULL,
+    sha256 CHAR(64) NOT NULL,
+    name TEXT NOT NULL,
+    contentType TEXT NOT NULL,
+    size BIGINT NOT NULL,
+    created TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (ansId, sha256)
+);
+
+ALTER TABLE questions ADD COLUMN IF NOT EXISTS created TIMESTAMPTZ NOT NULL DEFAULT now();
+ALTER TABLE questions ADD COLUMN IF NOT EXISTS answerCount BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE questions ADD COLUMN IF NOT EXISTS lastActivityAt TIMESTAMPTZ NOT NULL DEFAULT now();
+ALTER TABLE answers ADD COLUMN IF NOT EXISTS created TIMESTAMPTZ NOT NULL DEFAULT now();
+CREATE INDEX IF NOT EXISTS questions_activity_idx ON questions (lastActivityAt DESC, qnId DESC);
+CREATE INDEX IF NOT EXISTS questions_answer_count_idx ON questions (answerCount DESC, qnId DESC);
+CREATE INDEX IF NOT EXISTS questions_unanswered_idx ON questions (lastActivityAt DESC, qnId DESC) WHERE answerCount = 0;
+CREATE INDEX IF NOT EXISTS answers_qnid_created_idx ON answers (qnId, created);
+-- keyset pages of a user's activity feed, see ActivityService
+CREATE INDEX IF NOT EXISTS questions_userid_created_idx ON questions (userId, created, qnId);
+CREATE INDEX IF NOT EXISTS answers_userid_created_idx ON answers (userId, created, ansId);
+-- queried through the in-memory TagIndex, not through SQL
+ALTER TABLE questions ADD COLUMN IF NOT EXISTS tags TEXT[];
+
+CREATE TABLE IF NOT EXISTS user_tokens (
+    tokenHash VARCHAR(64) PRIMARY KEY,
+    userId BIGINT NOT NULL REFERENCES users (userId) ON DELETE CASCADE,
+    expiresAt TIMESTAMPTZ NOT NULL
+);
+CREATE INDEX IF NOT EXISTS user_tokens_expires_idx ON user_tokens (expiresAt);
+
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_normalized_idx ON users (lower(email));
+-- whether users.password is a bcrypt hash. When the column is added, rows written since hashing was
+-- introduced are recognised by their full bcrypt format once; from then on only the flag decides
+DO 'BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = current_schema() AND table_name = ''users'' AND column_name = ''passwordhashed'') THEN
+        ALTER TABLE users ADD COLUMN passwordHashed BOOLEAN NOT NULL DEFAULT false;
+        UPDATE users SET passwordHashed = true WHERE password ~ ''^\$2[aby]\$[0-9]{2}\$[./A-Za-z0-9]{53}$'';
+    END IF;
+END';
+
+CREATE TABLE IF NOT EXISTS outbox (
+    id BIGSERIAL PRIMARY KEY,
+    aggregateType VARCHAR(32) NOT NULL,
+    aggregateId BIGINT NOT NULL,
+    eventType VARCHAR(64) NOT NULL,
+    payload JSONB NOT NULL,
+    created TIMESTAMPTZ NOT NULL DEFAULT now(),
+    delivered TIMESTAMPTZ
+);
+CREATE INDEX IF NOT EXISTS outbox_pending_idx ON outbox (id) WHERE delivered IS NULL;
+CREATE INDEX IF NOT EXISTS outbox_delivered_idx ON outbox (delivered) WHERE delivered IS NOT NULL;
+
+-- read-only copies of questions without activity for qna.archive.inactive-for, see QuestionArchiver
+CREATE TABLE IF NOT EXISTS questions_archive (
+    qnId BIGINT PRIMARY KEY,
+    qn TEXT NOT NULL,
+    userId BIGINT,
+    views BIGINT NOT NULL,
+    created TIMESTAMPTZ NOT NULL,
+    answerCount BIGINT NOT NULL,
+    lastActivityAt TIMESTAMPTZ NOT NULL,
+    archivedAt TIMESTAMPTZ NOT NULL DEFAULT now()
+) WITH (toast_tuple_target = 256);
+CREATE TABLE IF NOT EXISTS answers_archive (
+    ansId BIGINT PRIMARY KEY,
+    ans TEXT NOT NULL,
+    qnId BIGINT,
+    userId BIGINT,
+    score BIGINT NOT NULL,
+    created TIMESTAMPTZ NOT NULL,
+    archivedAt TIMESTAMPTZ NOT NULL DEFAULT now()
+) WITH (toast_tuple_target = 256);
+CREATE INDEX IF NOT EXISTS answers_archive_qnid_idx ON answers_archive (qnId);
+-- lz4 needs PostgreSQL 14 built with lz4, otherwise the archive keeps the default pglz compression
+DO 'BEGIN
+    ALTER TABLE questions_archive ALTER COLUMN qn SET COMPRESSION lz4;
+    ALTER TABLE answers_archive ALTER COLUMN ans SET COMPRESSION lz4;
+EXCEPTION WHEN OTHERS THEN NULL;
+END';
+ALTER TABLE questions_archive ADD COLUMN IF NOT EXISTS tags TEXT[];
+
+-- zstd dictionaries of the compressed question and answer bodies, kept on the primary only, see TextCodec
+CREATE TABLE IF NOT EXISTS text_dictionaries (
+    id INT PRIMARY KEY,
+    dictionary BYTEA NOT NULL,
+    created TIMESTAMPTZ NOT NULL DEFAULT now()
+);
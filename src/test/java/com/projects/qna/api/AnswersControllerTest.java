@@ -2,12 +2,15 @@ package com.projects.qna.api;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projects.qna.controllers.AnswersController;
+import com.projects.qna.controllers.Bulkheads;
 import com.projects.qna.model.Answer;
+import com.projects.qna.model.Vote;
 import com.projects.qna.service.AnswerService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -16,6 +19,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import java.util.Arrays;
 import java.util.List;
 
+import static com.projects.qna.api.MockMvcAsync.performAsync;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
@@ -25,6 +29,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AnswersController.class)
+@Import(Bulkheads.class)
 public class AnswersControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -43,7 +48,7 @@ public class AnswersControllerTest {
                 new Answer("newOne", 46L, 32L)
         );
         when(answerService.getAllAnswers()).thenReturn(answerList);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/answers")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/answers")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -58,7 +63,7 @@ public class AnswersControllerTest {
     public void verifyGetAnswer_answerExists() throws Exception {
         Answer answer = new Answer("the answer", 99L, 99L);
         when(answerService.getAnswer(1L)).thenReturn(answer);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/answers/{id}", 1L)
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/answers/{id}", 1L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -85,7 +90,7 @@ public class AnswersControllerTest {
     public void verifyCreateAnswer_ValidBody() throws Exception {
         Answer answer = new Answer(12L, "The answer", 99L, 99L);
         when(answerService.createAnswer(answer)).thenReturn(answer);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/answers")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.post("/answers")
                         .content(answer.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -107,15 +112,15 @@ public class AnswersControllerTest {
                 .andExpect(status().isBadRequest())
                 .andReturn();
         assertThat(mvcResult.getResponse().getContentType()).isEqualTo("application/json");
-        verify(answerService, times(0)).updateAnswer(any(Long.class), any(Answer.class));
+        verify(answerService, times(0)).updateAnswer(any(Long.class), any(Answer.class), any());
         assertThat(mvcResult.getResponse().getContentAsString()).contains("\"ans\":\"must not be blank\"");
     }
 
     @Test
     public void verifyUpdateAnswer_ValidBody() throws Exception {
         Answer answer = new Answer(99L, "The answer", 99L, 99L);
-        when(answerService.updateAnswer(99L, answer)).thenReturn(answer);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/answers/{id}", 99L)
+        when(answerService.updateAnswer(99L, answer, null)).thenReturn(answer);
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.put("/answers/{id}", 99L)
                         .content(answer.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -128,8 +133,8 @@ public class AnswersControllerTest {
 
     @Test
     public void verifyDeleteAnswer_IdExists() throws Exception {
-        doNothing().when(answerService).deleteAnswer(99L);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.delete("/answers/{id}", 99L)
+        doNothing().when(answerService).deleteAnswer(99L, null);
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.delete("/answers/{id}", 99L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -137,4 +142,33 @@ public class AnswersControllerTest {
         assertThat(mvcResult.getResponse().getContentType()).isEqualTo("text/plain;charset=UTF-8");
         assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo("Answer with id : 99 deleted");
     }
+
+    @Test
+    public void verifyVoteAnswer_ValidBody() throws Exception {
+        Answer answer = new Answer(99L, "The answer", 99L, 99L);
+        answer.setScore(1);
+        Vote vote = new Vote(5L, 1);
+        when(answerService.vote(99L, vote)).thenReturn(answer);
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.put("/answers/{id}/vote", 99L)
+                        .content(objectMapper.writeValueAsString(vote))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.score").value(1))
+                .andReturn();
+        assertThat(mvcResult.getResponse().getContentType()).isEqualTo("application/json");
+    }
+
+    @Test
+    public void verifyVoteAnswer_InvalidValue() throws Exception {
+        Vote vote = new Vote(5L, 2);
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/answers/{id}/vote", 99L)
+                        .content(objectMapper.writeValueAsString(vote))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andReturn();
+        verify(answerService, times(0)).vote(any(Long.class), any(Vote.class));
+        assertThat(mvcResult.getResponse().getContentAsString()).contains("\"value\":\"must be less than or equal to 1\"");
+    }
 }
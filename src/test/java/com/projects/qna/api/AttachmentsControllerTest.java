@@ -0,0 +1,123 @@
+package com.projects.qna.api;
+
+import com.projects.qna.controllers.AttachmentsController;
+import com.projects.qna.controllers.Bulkheads;
+import com.projects.qna.model.AnswerAttachment;
+import com.projects.qna.service.AttachmentService;
+import com.projects.qna.service.AttachmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static com.projects.qna.api.MockMvcAsync.performAsync;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AttachmentsController.class)
+@Import(Bulkheads.class)
+public class AttachmentsControllerTest {
+
+    private static final String SHA256 = "a".repeat(64);
+
+    private static final String ETAG = "\"" + SHA256 + "\"";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AttachmentService attachmentService;
+
+    @TempDir
+    private Path directory;
+
+    private final AnswerAttachment attachment =
+            new AnswerAttachment(7L, SHA256, "build.log", "text/plain", 10, Instant.parse("2024-01-01T00:00:00Z"));
+
+    @BeforeEach
+    public void file() throws IOException {
+        Path file = Files.writeString(directory.resolve(SHA256), "0123456789");
+        when(attachmentService.getAttachment(7L, SHA256)).thenReturn(attachment);
+        when(attachmentService.file(attachment)).thenReturn(file);
+    }
+
+    @Test
+    public void verifyAttach() throws Exception {
+        AttachmentStore.Blob blob = new AttachmentStore.Blob(SHA256, 10);
+        when(attachmentService.upload(eq(7L), any(InputStream.class), isNull())).thenReturn(blob);
+        when(attachmentService.attach(7L, "build.log", "text/plain", blob)).thenReturn(attachment);
+        performAsync(mockMvc, MockMvcRequestBuilders.post("/answers/{ansId}/attachments", 7L)
+                        .param("name", "build.log")
+                        .contentType("text/plain")
+                        .content("0123456789"))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/answers/7/attachments/" + SHA256))
+                .andExpect(jsonPath("$.size").value(10));
+    }
+
+    @Test
+    public void verifyDownloadWholeFile() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/answers/{ansId}/attachments/{sha256}", 7L, SHA256))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, startsWith("attachment;")))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    public void verifyDownloadRange() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/answers/{ansId}/attachments/{sha256}", 7L, SHA256)
+                        .header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/answers/{ansId}/attachments/{sha256}", 7L, SHA256)
+                        .header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("789"));
+    }
+
+    @Test
+    public void verifyUnsatisfiableAndStaleRanges() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/answers/{ansId}/attachments/{sha256}", 7L, SHA256)
+                        .header(HttpHeaders.RANGE, "bytes=10-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/answers/{ansId}/attachments/{sha256}", 7L, SHA256)
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    public void verifyNotModified() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/answers/{ansId}/attachments/{sha256}", 7L, SHA256)
+                        .header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+}
@@ -0,0 +1,75 @@
+package com.projects.qna.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projects.qna.auth.AuthController;
+import com.projects.qna.auth.LoginRequest;
+import com.projects.qna.auth.LoginResponse;
+import com.projects.qna.auth.TokenService;
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AuthController.class)
+public class AuthControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TokenService tokenService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void verifyLogin_validCredentials() throws Exception {
+        LoginRequest request = new LoginRequest("mail1@mail.com", "pass1");
+        when(tokenService.login(request)).thenReturn(new LoginResponse("token", 1L, Instant.now()));
+        mockMvc.perform(MockMvcRequestBuilders.post("/auth/login")
+                        .content(objectMapper.writeValueAsString(request))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("token"))
+                .andExpect(jsonPath("$.userId").value(1));
+    }
+
+    @Test
+    public void verifyLogin_invalidCredentials() throws Exception {
+        LoginRequest request = new LoginRequest("mail1@mail.com", "wrong");
+        when(tokenService.login(request)).thenThrow(new ServiceException(ServiceError.INVALID_CREDENTIALS));
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/auth/login")
+                        .content(objectMapper.writeValueAsString(request))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isUnauthorized())
+                .andReturn();
+        assertThat(mvcResult.getResponse().getContentAsString()).contains("INVALID_CREDENTIALS");
+    }
+
+    @Test
+    public void verifyLogin_invalidBody() throws Exception {
+        LoginRequest request = new LoginRequest("mail1", "");
+        mockMvc.perform(MockMvcRequestBuilders.post("/auth/login")
+                        .content(objectMapper.writeValueAsString(request))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+        verify(tokenService, times(0)).login(any(LoginRequest.class));
+    }
+}
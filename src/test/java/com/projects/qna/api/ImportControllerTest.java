@@ -0,0 +1,75 @@
+package com.projects.qna.api;
+
+import com.projects.qna.auth.AdminAccess;
+import com.projects.qna.auth.AuthInterceptor;
+import com.projects.qna.bulkimport.BulkImporter;
+import com.projects.qna.bulkimport.ImportController;
+import com.projects.qna.bulkimport.ImportFormat;
+import com.projects.qna.bulkimport.ImportSummary;
+import com.projects.qna.bulkimport.ImportTable;
+import com.projects.qna.controllers.Bulkheads;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.InputStream;
+
+import static com.projects.qna.api.MockMvcAsync.performAsync;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = ImportController.class, properties = "qna.admin.user-ids=1")
+@Import({Bulkheads.class, AdminAccess.class})
+public class ImportControllerTest {
+
+    private static final String CSV = "name,password\nname1,$2a$10$abcdefghijklmnopqrstuuABCDEFGHIJKLMNOPQRSTUVWXYZ01234\n";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BulkImporter bulkImporter;
+
+    @Test
+    public void verifyImportByAdmin() throws Exception {
+        when(bulkImporter.importRows(eq(ImportTable.USERS), eq(ImportFormat.CSV), any(InputStream.class)))
+                .thenReturn(new ImportSummary(ImportTable.USERS, 1, 0.5, 2));
+        performAsync(mockMvc, MockMvcRequestBuilders.post("/admin/import/{table}", "users")
+                        .requestAttr(AuthInterceptor.USER_ID_ATTRIBUTE, 1L)
+                        .contentType("text/csv")
+                        .content(CSV))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(1));
+    }
+
+    @Test
+    public void verifyImportByOtherUserIsForbidden() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/admin/import/{table}", "users")
+                        .requestAttr(AuthInterceptor.USER_ID_ATTRIBUTE, 5L)
+                        .contentType("text/csv")
+                        .content(CSV))
+                .andDo(print())
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(bulkImporter);
+    }
+
+    @Test
+    public void verifyImportWithoutAuthenticationIsForbidden() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/admin/import/{table}", "users")
+                        .contentType("text/csv")
+                        .content(CSV))
+                .andDo(print())
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(bulkImporter);
+    }
+}
@@ -0,0 +1,26 @@
+package com.projects.qna.api;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+public final class MockMvcAsync {
+
+    private MockMvcAsync() {
+    }
+
+    // the controllers hand requests to a bulkhead executor, so responses arrive on an async dispatch
+    public static ResultActions performAsync(MockMvc mockMvc, RequestBuilder requestBuilder) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+        ResultActions dispatched = mockMvc.perform(asyncDispatch(mvcResult));
+        // a streamed body handed back by a bulkhead starts another async round
+        while (dispatched.andReturn().getRequest().isAsyncStarted()) {
+            dispatched = mockMvc.perform(asyncDispatch(dispatched.andReturn()));
+        }
+        return dispatched;
+    }
+}
@@ -0,0 +1,90 @@
+package com.projects.qna.api;
+
+import com.projects.qna.cache.FragmentCache;
+import com.projects.qna.controllers.Bulkheads;
+import com.projects.qna.controllers.QuestionPages;
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import com.projects.qna.model.Answer;
+import com.projects.qna.model.Question;
+import com.projects.qna.service.AnswerService;
+import com.projects.qna.service.QuestionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.Instant;
+import java.util.List;
+
+import static com.projects.qna.api.MockMvcAsync.performAsync;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(QuestionPages.class)
+@Import({FragmentCache.class, Bulkheads.class, SimpleMeterRegistry.class})
+public class QuestionPagesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private QuestionService questionService;
+
+    @MockBean
+    private AnswerService answerService;
+
+    private final Instant created = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    public void verifyQuestionsPage() throws Exception {
+        when(questionService.getQuestions("activity", false, 50)).thenReturn(List.of(
+                new Question(1L, "What is qn ?", 1L, 0, created, 1, created, List.of()),
+                new Question(2L, "qn2", 1L, 0, created, 0, created, List.of())));
+        performAsync(mockMvc, MockMvcRequestBuilders.get("/pages/questions"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/html;charset=UTF-8"))
+                .andExpect(content().string(allOf(
+                        containsString("<title>Recently active questions - QnA</title>"),
+                        containsString("<a href=\"/pages/questions/1\">What is qn ?</a>"),
+                        containsString("<a href=\"/pages/questions/2\">qn2</a>"),
+                        endsWith("</html>"))));
+    }
+
+    @Test
+    public void verifyQuestionPageRendersFragmentsOnce() throws Exception {
+        Question question = new Question(1L, "What is qn ?", 1L, 0, created, 1, created, List.of("java"));
+        when(questionService.getQuestion(1L)).thenReturn(question);
+        when(answerService.getAnswersForQuestion(1L, "score", 100))
+                .thenReturn(List.of(new Answer(5L, "ans", 1L, 2L, 4, created)));
+        for (int i = 0; i < 2; i++) {
+            performAsync(mockMvc, MockMvcRequestBuilders.get("/pages/questions/{id}", 1L))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(allOf(
+                            containsString("<title>What is qn ? - QnA</title>"),
+                            containsString("#java"),
+                            containsString("<pre>ans</pre>"),
+                            containsString("4 votes"))));
+        }
+        verify(answerService, times(1)).getAnswersForQuestion(1L, "score", 100);
+    }
+
+    @Test
+    public void verifyMissingQuestionPage() throws Exception {
+        when(questionService.getQuestion(3L)).thenThrow(new ServiceException(ServiceError.ENTITY_NOT_FOUND));
+        performAsync(mockMvc, MockMvcRequestBuilders.get("/pages/questions/{id}", 3L))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -1,16 +1,23 @@
 package com.projects.qna.api;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.projects.qna.auth.AuthInterceptor;
+import com.projects.qna.cache.TitleIndex;
+import com.projects.qna.controllers.Bulkheads;
 import com.projects.qna.controllers.QuestionsController;
 import com.projects.qna.exceptions.ServiceError;
 import com.projects.qna.exceptions.ServiceException;
 import com.projects.qna.exceptions.ServiceExceptionHandler;
 import com.projects.qna.model.Question;
 import com.projects.qna.service.QuestionService;
+import com.projects.qna.service.TaggedQuestions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -18,7 +25,10 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import static com.projects.qna.api.MockMvcAsync.performAsync;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
@@ -28,6 +38,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(QuestionsController.class)
+@Import(Bulkheads.class)
 public class QuestionsControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -51,7 +62,7 @@ public class QuestionsControllerTest {
                 new Question("What is qn ?", 2L)
         );
         when(questionService.getAllQuestions()).thenReturn(expectedList);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/questions")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/questions")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -62,11 +73,43 @@ public class QuestionsControllerTest {
                 .isEqualTo(objectMapper.writeValueAsString(expectedList));
     }
 
+    @Test
+    public void verifyGetQuestions_unansweredByActivity() throws Exception {
+        List<Question> expectedList = List.of(new Question(2L, "What is qn ?", 2L));
+        when(questionService.getQuestions("activity", true, 10)).thenReturn(expectedList);
+        performAsync(mockMvc, MockMvcRequestBuilders.get("/questions")
+                        .param("sort", "activity")
+                        .param("unanswered", "true")
+                        .param("limit", "10")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].qnId").value(2));
+        verify(questionService, times(0)).getAllQuestions();
+    }
+
+    @Test
+    public void verifyGetAllQuestions_cborIsStreamedByPage() throws Exception {
+        List<Question> expectedList = List.of(new Question(1L, "qn1", 1L), new Question(2L, "qn2", 2L));
+        when(questionService.getQuestionsAfter(0L, 500)).thenReturn(expectedList);
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/questions")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertThat(mvcResult.getResponse().getContentType()).isEqualTo("application/cbor");
+        List<Question> actualList = new CBORMapper().findAndRegisterModules()
+                .readValue(mvcResult.getResponse().getContentAsByteArray(), new TypeReference<List<Question>>() {
+                });
+        assertThat(actualList).isEqualTo(expectedList);
+        verify(questionService, never()).getAllQuestions();
+    }
+
     @Test
     public void verifyGetQuestion_questionExists() throws Exception {
         Question question = new Question(1L, "qn1", 1L);
         when(questionService.getQuestion(1L)).thenReturn(question);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/questions/{id}", 1L)
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/questions/{id}", 1L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -78,7 +121,7 @@ public class QuestionsControllerTest {
     @Test
     public void verifyGetQuestion_questionDoesNotExist() throws Exception {
         when(questionService.getQuestion(1L)).thenThrow(new ServiceException(ServiceError.ENTITY_NOT_FOUND));
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/questions/{id}", 1L)
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/questions/{id}", 1L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isNotFound())
@@ -109,7 +152,7 @@ public class QuestionsControllerTest {
     public void verifyCreateQuestion_ValidBody() throws Exception {
         Question question = new Question(99L, "New question, isn't it ?", 99L);
         when(questionService.createQuestion(question)).thenReturn(question);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/questions")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.post("/questions")
                         .content(question.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -131,15 +174,45 @@ public class QuestionsControllerTest {
                 .andExpect(status().isBadRequest())
                 .andReturn();
         assertThat(mvcResult.getResponse().getContentType()).isEqualTo("application/json");
-        verify(questionService, times(0)).updateQuestion(any(Long.class), any(Question.class));
+        verify(questionService, times(0)).updateQuestion(any(Long.class), any(Question.class), any());
         assertThat(mvcResult.getResponse().getContentAsString()).contains("\"qn\":\"must not be blank\"");
     }
 
+    @Test
+    public void verifySuggestQuestions() throws Exception {
+        when(questionService.suggestQuestions("how to", 10))
+                .thenReturn(List.of(new TitleIndex.Suggestion(7L, "How to map a List in JPA ?")));
+        performAsync(mockMvc, MockMvcRequestBuilders.get("/questions/suggest").param("prefix", "how to"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].qnId").value(7))
+                .andExpect(jsonPath("$[0].qn").value("How to map a List in JPA ?"));
+    }
+
+    @Test
+    public void verifyGetTaggedQuestions() throws Exception {
+        TaggedQuestions tagged = new TaggedQuestions(List.of(new Question(7L, "Why jpa ?", 1L)), 3,
+                Map.of("spring", 2L), 7L);
+        when(questionService.getTaggedQuestions(Set.of("java"), null, Set.of("kotlin"), null, 1, 10))
+                .thenReturn(tagged);
+        performAsync(mockMvc, MockMvcRequestBuilders.get("/questions/tagged")
+                        .param("all", "java")
+                        .param("not", "kotlin")
+                        .param("limit", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.questions", hasSize(1)))
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.facets.spring").value(2))
+                .andExpect(jsonPath("$.next").value(7));
+    }
+
     @Test
     public void verifyUpdateQuestion_ValidBody() throws Exception {
         Question question = new Question(99L, "New question, isn't it ?", 99L);
-        when(questionService.updateQuestion(99L, question)).thenReturn(question);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/questions/{id}", 99L)
+        when(questionService.updateQuestion(99L, question, null)).thenReturn(question);
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.put("/questions/{id}", 99L)
                         .content(question.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -152,8 +225,8 @@ public class QuestionsControllerTest {
 
     @Test
     public void verifyDeleteQuestion_IdExists() throws Exception {
-        doNothing().when(questionService).deleteQuestion(99L);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.delete("/questions/{id}", 99L)
+        doNothing().when(questionService).deleteQuestion(99L, null);
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.delete("/questions/{id}", 99L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -161,4 +234,30 @@ public class QuestionsControllerTest {
         assertThat(mvcResult.getResponse().getContentType()).isEqualTo("text/plain;charset=UTF-8");
         assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo("Question with id : 99 deleted");
     }
+
+    @Test
+    public void verifyDeleteQuestion_NotOwner() throws Exception {
+        doThrow(ServiceException.of(ServiceError.FORBIDDEN)).when(questionService).deleteQuestion(99L, 5L);
+        performAsync(mockMvc, MockMvcRequestBuilders.delete("/questions/{id}", 99L)
+                        .requestAttr(AuthInterceptor.USER_ID_ATTRIBUTE, 5L))
+                .andDo(print())
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void verifyCreateQuestion_AuthorIsTheCaller() throws Exception {
+        Question question = new Question("What is qn ?", 99L);
+        when(questionService.createQuestion(any(Question.class))).thenAnswer(invocation -> {
+            Question created = invocation.getArgument(0);
+            created.setQnId(1L);
+            return created;
+        });
+        performAsync(mockMvc, MockMvcRequestBuilders.post("/questions")
+                        .requestAttr(AuthInterceptor.USER_ID_ATTRIBUTE, 5L)
+                        .content(question.toString())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.userId").value(5));
+    }
 }
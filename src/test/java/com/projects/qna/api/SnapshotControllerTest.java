@@ -0,0 +1,81 @@
+package com.projects.qna.api;
+
+import com.projects.qna.auth.AdminAccess;
+import com.projects.qna.auth.AuthInterceptor;
+import com.projects.qna.controllers.Bulkheads;
+import com.projects.qna.snapshot.SnapshotController;
+import com.projects.qna.snapshot.SnapshotService;
+import com.projects.qna.snapshot.SnapshotSummary;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.Map;
+
+import static com.projects.qna.api.MockMvcAsync.performAsync;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = SnapshotController.class, properties = "qna.admin.user-ids=1")
+@Import({Bulkheads.class, AdminAccess.class})
+public class SnapshotControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private SnapshotService snapshotService;
+
+    @Test
+    public void verifyRestoreIsNotMappedByDefault() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/admin/snapshots/{name}/restore", "qna-1.snapshot")
+                        .requestAttr(AuthInterceptor.USER_ID_ATTRIBUTE, 1L))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(snapshotService);
+    }
+
+    @Nested
+    @TestPropertySource(properties = "qna.admin.snapshots.enabled=true")
+    public class Enabled {
+
+        @Test
+        public void verifyRestoreByAdmin() throws Exception {
+            when(snapshotService.restore("qna-1.snapshot"))
+                    .thenReturn(new SnapshotSummary("qna-1.snapshot", Map.of("users", 2L), 100, 40, 0.5, 0.1));
+            performAsync(mockMvc, MockMvcRequestBuilders.post("/admin/snapshots/{name}/restore", "qna-1.snapshot")
+                            .requestAttr(AuthInterceptor.USER_ID_ATTRIBUTE, 1L))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.rows.users").value(2));
+        }
+
+        @Test
+        public void verifyRestoreByOtherUserIsForbidden() throws Exception {
+            mockMvc.perform(MockMvcRequestBuilders.post("/admin/snapshots/{name}/restore", "qna-1.snapshot")
+                            .requestAttr(AuthInterceptor.USER_ID_ATTRIBUTE, 5L))
+                    .andDo(print())
+                    .andExpect(status().isForbidden());
+            verifyNoInteractions(snapshotService);
+        }
+
+        @Test
+        public void verifyRestoreWithoutAuthenticationIsForbidden() throws Exception {
+            mockMvc.perform(MockMvcRequestBuilders.post("/admin/snapshots/{name}/restore", "qna-1.snapshot"))
+                    .andDo(print())
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(MockMvcRequestBuilders.get("/admin/snapshots"))
+                    .andExpect(status().isForbidden());
+            verifyNoInteractions(snapshotService);
+        }
+    }
+}
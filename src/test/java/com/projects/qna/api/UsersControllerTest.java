@@ -1,13 +1,19 @@
 package com.projects.qna.api;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.projects.qna.controllers.Bulkheads;
 import com.projects.qna.controllers.UsersController;
 import com.projects.qna.model.User;
+import com.projects.qna.service.ActivityItem;
+import com.projects.qna.service.ActivityPage;
+import com.projects.qna.service.ActivityService;
 import com.projects.qna.service.UserService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
@@ -15,9 +21,13 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import static com.projects.qna.api.MockMvcAsync.performAsync;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.*;
@@ -26,6 +36,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UsersController.class)
+@Import(Bulkheads.class)
 public class UsersControllerTest {
 
     @Autowired
@@ -34,6 +45,15 @@ public class UsersControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private ActivityService activityService;
+
+    // password is write-only, so it is added back to the serialized user for request bodies
+    private static String requestBody(User user) {
+        ObjectNode node = new ObjectMapper().valueToTree(user);
+        return node.put("password", user.getPassword()).toString();
+    }
+
     @Test
     public void verifyApplicationContext() {
         assertThat(mockMvc).isNotNull();
@@ -49,22 +69,66 @@ public class UsersControllerTest {
                 new User(2L, "name 2", "123pass", "login@mail.com", "+991234500000")
         );
         when(userService.getAllUsers()).thenReturn(expectedList);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/users")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/users")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].password").doesNotExist())
                 .andReturn();
         assertThat(mvcResult.getResponse().getContentType()).isEqualTo("application/json");
         assertThat(mvcResult.getResponse().getContentAsString())
                 .isEqualTo(new ObjectMapper().writeValueAsString(expectedList));
     }
 
+    @Test
+    public void verifyGetAllUsers_withFields() throws Exception {
+        when(userService.getUserFields(Set.of("userId", "name"), 10))
+                .thenReturn(List.of(Map.of("userId", 1L, "name", "name1")));
+        performAsync(mockMvc, MockMvcRequestBuilders.get("/users")
+                        .param("fields", "userId,name")
+                        .param("limit", "10"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("name1"))
+                .andExpect(jsonPath("$[0].password").doesNotExist());
+        verify(userService, never()).getAllUsers();
+    }
+
+    @Test
+    public void verifyGetActivity() throws Exception {
+        ActivityPage page = new ActivityPage(List.of(
+                new ActivityItem("answer", 5L, 2L, "ans", Instant.parse("2024-05-02T10:00:00Z")),
+                new ActivityItem("question", 2L, 2L, "qn", Instant.parse("2024-05-01T10:00:00Z"))), "next-cursor");
+        when(activityService.getActivity(1L, "cursor", 2)).thenReturn(page);
+        performAsync(mockMvc, MockMvcRequestBuilders.get("/users/1/activity")
+                        .param("cursor", "cursor")
+                        .param("limit", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].type").value("answer"))
+                .andExpect(jsonPath("$.items[1].id").value(2))
+                .andExpect(jsonPath("$.next").value("next-cursor"));
+    }
+
+    @Test
+    public void verifyGetUser_passwordNotSerialized() throws Exception {
+        when(userService.getUser(1L)).thenReturn(new User(1L, "name1", "pass1", "mail1@mail.com", "+991111122222"));
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("name1"))
+                .andExpect(jsonPath("$.password").doesNotExist())
+                .andReturn();
+        assertThat(mvcResult.getResponse().getContentAsString()).doesNotContain("pass1");
+    }
+
     @Test
     public void verifyGetUser_userExists() throws Exception {
         User user = new User(1L, "name1", "pass1", "mail1@mail.com", "+991111122222");
         when(userService.getUser(1L)).thenReturn(user);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/users/1")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/users/1")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -76,7 +140,7 @@ public class UsersControllerTest {
     @Test
     public void verifyGetUser_userDoesNotExist() throws Exception {
         when(userService.getUser(1L)).thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/users/1")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/users/1")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isNotFound())
@@ -89,8 +153,8 @@ public class UsersControllerTest {
     public void verifyPostUser_validBody() throws Exception {
         User user = new User(1L, "name1", "pass1", "mail1@mail.com", "+991111122222");
         when(userService.createUser(user)).thenReturn(user);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/users")
-                        .content(user.toString())
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.post("/users")
+                        .content(requestBody(user))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isCreated())
@@ -105,7 +169,7 @@ public class UsersControllerTest {
     public void verifyPostUser_invalidBody() throws Exception {
         User user = new User("", "", "mail1", "+991111122222");
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/users")
-                        .content(user.toString())
+                        .content(requestBody(user))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isBadRequest())
@@ -120,9 +184,9 @@ public class UsersControllerTest {
     @Test
     public void verifyUpdateUser_validBody() throws Exception {
         User user = new User(1L, "name1", "pass1", "mail1@mail.com", "+991111122222");
-        when(userService.updateUser(1L, user)).thenReturn(user);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/users/{id}", "1")
-                        .content(user.toString())
+        when(userService.updateUser(1L, user, null)).thenReturn(user);
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.put("/users/{id}", "1")
+                        .content(requestBody(user))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -135,13 +199,13 @@ public class UsersControllerTest {
     public void verifyUpdateUser_invalidBody() throws Exception {
         User user = new User(1L, "", "", "mail1", "+991111122222");
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/users/{id}", "1")
-                        .content(user.toString())
+                        .content(requestBody(user))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isBadRequest())
                 .andReturn();
         assertThat(mvcResult.getResponse().getContentType()).isEqualTo("application/json");
-        verify(userService, times(0)).updateUser(any(Long.class), any(User.class));
+        verify(userService, times(0)).updateUser(any(Long.class), any(User.class), any());
         String responseBody = mvcResult.getResponse().getContentAsString();
         assertThat(responseBody).contains("password", "name", "must not be blank");
         assertThat(responseBody).contains("\"email\":\"must be a well-formed email address\"");
@@ -150,10 +214,10 @@ public class UsersControllerTest {
     @Test
     public void verifyUpdateUser_IdNotFound() throws Exception {
         User user = new User(1L, "name1", "pass1", "mail1@mail.com", "+991111122222");
-        when(userService.updateUser(1L, user))
+        when(userService.updateUser(1L, user, null))
                 .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/users/{id}", "1")
-                        .content(user.toString())
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.put("/users/{id}", "1")
+                        .content(requestBody(user))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isNotFound())
@@ -164,8 +228,8 @@ public class UsersControllerTest {
 
     @Test
     public void verifyDeleteUser_IdFound() throws Exception {
-        doNothing().when(userService).deleteUser(1L);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.delete("/users/{id}", "1")
+        doNothing().when(userService).deleteUser(1L, null);
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.delete("/users/{id}", "1")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -177,8 +241,8 @@ public class UsersControllerTest {
     @Test
     public void verifyDeleteUser_IdNotFound() throws Exception {
         doThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"))
-                .when(userService).deleteUser(1L);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.delete("/users/{id}", "1")
+                .when(userService).deleteUser(1L, null);
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.delete("/users/{id}", "1")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isNotFound())
@@ -0,0 +1,29 @@
+package com.projects.qna.bulkimport;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CsvReaderTest {
+
+    @Test
+    public void verifyQuotedFieldsAndNulls() throws Exception {
+        CsvReader csv = new CsvReader(new StringReader("qn,userId\r\n\"Why, \"\"really\"\"?\nTwo lines\",7\n\"\",\n"));
+        assertThat(csv.next()).containsExactly("qn", "userId");
+        assertThat(csv.next()).containsExactly("Why, \"really\"?\nTwo lines", "7");
+        assertThat(csv.next()).isEqualTo(Arrays.asList("", null));
+        assertThat(csv.next()).isNull();
+        assertThat(csv.line()).isEqualTo(5);
+    }
+
+    @Test
+    public void verifyUnterminatedQuoteIsRejected() throws Exception {
+        CsvReader csv = new CsvReader(new StringReader("qn\n\"open"));
+        csv.next();
+        assertThatThrownBy(csv::next).hasMessageContaining("line 2");
+    }
+}
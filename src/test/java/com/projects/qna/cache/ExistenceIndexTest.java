@@ -0,0 +1,114 @@
+package com.projects.qna.cache;
+
+import com.projects.qna.sharding.ShardRouting;
+import com.projects.qna.sharding.ShardingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ExistenceIndexTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final ExistenceIndex index = new ExistenceIndex(jdbcTemplate, new SimpleMeterRegistry(),
+            new ShardRouting(new ShardingProperties(false, 10, List.of())));
+
+    // every kind is loaded with the same ids
+    private static Connection connection(Long... ids) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenAnswer(invocation -> {
+            Iterator<Long> rows = List.of(ids).iterator();
+            ResultSet resultSet = mock(ResultSet.class);
+            Long[] current = new Long[1];
+            when(resultSet.next()).thenAnswer(next -> {
+                current[0] = rows.hasNext() ? rows.next() : null;
+                return current[0] != null;
+            });
+            when(resultSet.getLong(anyInt())).thenAnswer(get -> current[0]);
+            return resultSet;
+        });
+        return connection;
+    }
+
+    private void advanceTwice() {
+        index.advanceWatermarks();
+        index.advanceWatermarks();
+    }
+
+    @Test
+    public void verifyNothingIsAbsentBeforeTheWatermarkCatchesUp() throws SQLException {
+        index.load(connection(1L, 2L, 5L));
+        assertThat(index.isAbsent(ExistenceIndex.Kind.QUESTION, 3L)).isFalse();
+        index.advanceWatermarks();
+        assertThat(index.isAbsent(ExistenceIndex.Kind.QUESTION, 3L)).isFalse();
+
+        index.advanceWatermarks();
+        assertThat(index.isAbsent(ExistenceIndex.Kind.QUESTION, 3L)).isTrue();
+        assertThat(index.isAbsent(ExistenceIndex.Kind.QUESTION, 2L)).isFalse();
+        assertThat(index.isAbsent(ExistenceIndex.Kind.QUESTION, 6L)).isFalse();
+    }
+
+    @Test
+    public void verifyIdsAnnouncedOutOfOrderAreNotReportedAbsent() throws SQLException {
+        Connection connection = connection(1L, 2L, 5L);
+        index.load(connection);
+        advanceTwice();
+        index.onNotification(connection, "question:+:9");
+        // 7 may belong to a transaction that has not committed yet
+        assertThat(index.isAbsent(ExistenceIndex.Kind.QUESTION, 7L)).isFalse();
+        index.onNotification(connection, "question:+:7");
+        advanceTwice();
+        assertThat(index.isAbsent(ExistenceIndex.Kind.QUESTION, 7L)).isFalse();
+        assertThat(index.isAbsent(ExistenceIndex.Kind.QUESTION, 8L)).isTrue();
+    }
+
+    @Test
+    public void verifyCreatedIdIsKnownLocallyAndAnnounced() throws SQLException {
+        index.load(connection(1L, 2L, 5L));
+        advanceTwice();
+        index.created(ExistenceIndex.Kind.ANSWER, 4L);
+        assertThat(index.isAbsent(ExistenceIndex.Kind.ANSWER, 4L)).isFalse();
+        assertThat(index.isAbsent(ExistenceIndex.Kind.ANSWER, 3L)).isTrue();
+        verify(jdbcTemplate).queryForList("SELECT pg_notify(?, ?)", ExistenceIndex.CHANNEL, "answer:+:4");
+    }
+
+    @Test
+    public void verifyDeletedIdIsAbsent() throws SQLException {
+        index.load(connection(1L, 2L, 5L));
+        advanceTwice();
+        index.deleted(ExistenceIndex.Kind.USER, 2L);
+        assertThat(index.isAbsent(ExistenceIndex.Kind.USER, 2L)).isTrue();
+        verify(jdbcTemplate).queryForList("SELECT pg_notify(?, ?)", ExistenceIndex.CHANNEL, "user:-:2");
+    }
+
+    @Test
+    public void verifyShardsHaveTheirOwnWatermark() throws SQLException {
+        ShardingProperties.Shard shard = new ShardingProperties.Shard("jdbc:postgresql://localhost/qna", "admin", "password");
+        ExistenceIndex sharded = new ExistenceIndex(jdbcTemplate, new SimpleMeterRegistry(),
+                new ShardRouting(new ShardingProperties(true, 10, List.of(shard))));
+        // shard 0 handed out 256 and 768, shard 1 only 1
+        sharded.load(connection(1L, 256L, 768L));
+        sharded.advanceWatermarks();
+        sharded.advanceWatermarks();
+        assertThat(sharded.isAbsent(ExistenceIndex.Kind.QUESTION, 512L)).isTrue();
+        assertThat(sharded.isAbsent(ExistenceIndex.Kind.QUESTION, 1024L)).isFalse();
+        // below shard 0's newest id, but shard 1 has not got that far yet
+        assertThat(sharded.isAbsent(ExistenceIndex.Kind.QUESTION, 257L)).isFalse();
+    }
+}
@@ -0,0 +1,91 @@
+package com.projects.qna.cache;
+
+import com.projects.qna.model.Answer;
+import com.projects.qna.model.Question;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FragmentCacheTest {
+
+    private final FragmentCache fragmentCache = new FragmentCache(templateEngine(), new SimpleMeterRegistry(),
+            100, Duration.ofMinutes(1));
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private static SpringTemplateEngine templateEngine() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        return templateEngine;
+    }
+
+    private static Question question(String qn) {
+        Instant created = Instant.parse("2024-01-01T00:00:00Z");
+        return new Question(1L, qn, 1L, 0, created, 2, created, List.of("java"));
+    }
+
+    private List<Answer> answers() {
+        loads.incrementAndGet();
+        return List.of(new Answer(5L, "Use <b>final</b>", 1L, 1L, 3, Instant.parse("2024-01-02T00:00:00Z")));
+    }
+
+    @Test
+    public void verifyQuestionCardIsEscapedAndCached() {
+        String card = fragmentCache.questionCard(question("Why <script>?"));
+        assertThat(card).contains("Why &lt;script&gt;?", "href=\"/pages/questions/1\"", "2 answers", "#java");
+        assertThat(fragmentCache.questionCard(question("changed"))).isEqualTo(card);
+    }
+
+    @Test
+    public void verifyQuestionChangedEvictsCard() {
+        fragmentCache.questionCard(question("first"));
+        fragmentCache.questionChanged(1L);
+        assertThat(fragmentCache.questionCard(question("second"))).contains("second");
+    }
+
+    @Test
+    public void verifyAnswersChangedEvictsAnswerListAndCard() {
+        String answers = fragmentCache.answerList(1L, this::answers);
+        assertThat(answers).contains("Use &lt;b&gt;final&lt;/b&gt;", "3 votes", "id=\"answer-5\"");
+        fragmentCache.answerList(1L, this::answers);
+        fragmentCache.questionCard(question("first"));
+        fragmentCache.answersChanged(1L);
+        fragmentCache.answerList(1L, this::answers);
+        assertThat(loads).hasValue(2);
+        assertThat(fragmentCache.questionCard(question("second"))).contains("second");
+    }
+
+    @Test
+    public void verifyRemovedEvictsEverythingOfTheQuestion() {
+        fragmentCache.answerList(1L, this::answers);
+        fragmentCache.questionCard(question("first"));
+        fragmentCache.removed(List.of(1L));
+        fragmentCache.answerList(1L, this::answers);
+        assertThat(loads).hasValue(2);
+        assertThat(fragmentCache.questionCard(question("second"))).contains("second");
+    }
+
+    @Test
+    public void verifyEmptyAnswerList() {
+        assertThat(fragmentCache.answerList(2L, List::of)).contains("No answers yet.");
+    }
+
+    @Test
+    public void verifyPageHasOneContentMarker() {
+        String page = fragmentCache.page("1", "Why <script>?");
+        assertThat(page).contains("<title>Why &lt;script&gt;? - QnA</title>");
+        assertThat(page.indexOf(FragmentCache.CONTENT)).isPositive()
+                .isEqualTo(page.lastIndexOf(FragmentCache.CONTENT));
+    }
+}
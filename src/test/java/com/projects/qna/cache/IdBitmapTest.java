@@ -0,0 +1,49 @@
+package com.projects.qna.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdBitmapTest {
+
+    @Test
+    public void verifyAddedIdsAreContainedAcrossPages() {
+        IdBitmap bitmap = new IdBitmap();
+        bitmap.add(1L);
+        bitmap.add(63L);
+        bitmap.add(64L);
+        bitmap.add(65_536L);
+        bitmap.add((1L << 40) + 7);
+        assertThat(bitmap.contains(1L)).isTrue();
+        assertThat(bitmap.contains(63L)).isTrue();
+        assertThat(bitmap.contains(64L)).isTrue();
+        assertThat(bitmap.contains(65_536L)).isTrue();
+        assertThat(bitmap.contains((1L << 40) + 7)).isTrue();
+        assertThat(bitmap.contains(2L)).isFalse();
+        assertThat(bitmap.contains(65_537L)).isFalse();
+        assertThat(bitmap.contains(1L << 40)).isFalse();
+        assertThat(bitmap.max()).isEqualTo((1L << 40) + 7);
+    }
+
+    @Test
+    public void verifyRemovedIdIsNoLongerContained() {
+        IdBitmap bitmap = new IdBitmap();
+        bitmap.add(5L);
+        bitmap.add(6L);
+        bitmap.remove(5L);
+        bitmap.remove(1_000_000L);
+        assertThat(bitmap.contains(5L)).isFalse();
+        assertThat(bitmap.contains(6L)).isTrue();
+        assertThat(bitmap.max()).isEqualTo(6L);
+    }
+
+    @Test
+    public void verifyNonPositiveIdsAreIgnored() {
+        IdBitmap bitmap = new IdBitmap();
+        bitmap.add(0L);
+        bitmap.add(-3L);
+        assertThat(bitmap.contains(0L)).isFalse();
+        assertThat(bitmap.contains(-3L)).isFalse();
+        assertThat(bitmap.max()).isZero();
+    }
+}
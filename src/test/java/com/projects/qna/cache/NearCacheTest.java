@@ -0,0 +1,86 @@
+package com.projects.qna.cache;
+
+import com.projects.qna.model.Question;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class NearCacheTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final NearCache nearCache = new NearCache(jdbcTemplate, meterRegistry, 100, Duration.ofMinutes(1));
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    public void listen() {
+        nearCache.setListening(true);
+    }
+
+    private Optional<Question> load(Long id) {
+        loads.incrementAndGet();
+        return Optional.of(new Question(id, "qn", 1L));
+    }
+
+    @Test
+    public void verifyReadsAreServedFromDetachedCopies() {
+        Question first = nearCache.getQuestions().get(1L, this::load).orElseThrow();
+        first.setQn("changed by caller");
+        Question second = nearCache.getQuestions().get(1L, this::load).orElseThrow();
+        assertThat(second.getQn()).isEqualTo("qn");
+        assertThat(second).isNotSameAs(first);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    public void verifyNotificationEvictsAndRecordsLag() {
+        nearCache.getQuestions().get(1L, this::load);
+        nearCache.getQuestions().get(2L, this::load);
+        nearCache.onNotification("question:" + System.currentTimeMillis() + ":1,3");
+        nearCache.getQuestions().get(1L, this::load);
+        nearCache.getQuestions().get(2L, this::load);
+        assertThat(loads).hasValue(3);
+        assertThat(meterRegistry.get("qna.cache.invalidation.lag").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void verifyMalformedNotificationIsIgnored() {
+        nearCache.getQuestions().get(1L, this::load);
+        nearCache.onNotification("question:not-a-time:1");
+        nearCache.onNotification("unknown:0:1");
+        nearCache.getQuestions().get(1L, this::load);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    public void verifyInvalidateAnnouncesAndEvicts() {
+        nearCache.getQuestions().get(1L, this::load);
+        nearCache.invalidate(nearCache.getQuestions(), List.of(1L, 2L));
+        verify(jdbcTemplate).queryForList(eq("SELECT pg_notify(?, ?)"), eq(NearCache.CHANNEL), anyString());
+        nearCache.getQuestions().get(1L, this::load);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void verifyCacheIsBypassedWhileNotListening() {
+        nearCache.setListening(false);
+        nearCache.getQuestions().get(1L, this::load);
+        nearCache.getQuestions().get(1L, this::load);
+        assertThat(loads).hasValue(2);
+    }
+}
@@ -0,0 +1,64 @@
+package com.projects.qna.cache;
+
+import com.projects.qna.sharding.ShardRouting;
+import com.projects.qna.sharding.ShardingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class TagIndexTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final TagIndex tagIndex = new TagIndex(jdbcTemplate, mock(TransactionTemplate.class),
+            new ShardRouting(new ShardingProperties(false, 10, List.of())));
+
+    // outside of a transaction changes are applied right away
+    @BeforeEach
+    public void tag() {
+        tagIndex.changed(1L, List.of("java", "spring"));
+        tagIndex.changed(2L, List.of("java", "jpa"));
+        tagIndex.changed(3L, List.of("java", "spring", "jpa"));
+        tagIndex.changed(4L, List.of("python"));
+    }
+
+    @Test
+    public void verifyBooleanTagQueries() {
+        assertThat(tagIndex.matching(Set.of("java", "spring"), Set.of(), Set.of()).toArray()).containsExactly(1L, 3L);
+        assertThat(tagIndex.matching(Set.of("java"), Set.of(), Set.of("jpa")).toArray()).containsExactly(1L);
+        assertThat(tagIndex.matching(Set.of(), Set.of("jpa", "python"), Set.of()).toArray()).containsExactly(2L, 3L, 4L);
+        assertThat(tagIndex.matching(Set.of("java"), Set.of("python"), Set.of()).isEmpty()).isTrue();
+        assertThat(tagIndex.matching(Set.of("unknown"), Set.of(), Set.of()).isEmpty()).isTrue();
+        assertThat(tagIndex.matching(Set.of(), Set.of(), Set.of("java")).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void verifyFacetsCountTheOtherTagsMostFrequentFirst() {
+        assertThat(tagIndex.facets(tagIndex.matching(Set.of("java"), Set.of(), Set.of()), Set.of("java"), 10))
+                .containsExactly(Map.entry("jpa", 2L), Map.entry("spring", 2L));
+        assertThat(tagIndex.facets(tagIndex.matching(Set.of("java"), Set.of(), Set.of()), Set.of("java"), 1))
+                .containsOnlyKeys("jpa");
+    }
+
+    @Test
+    public void verifyChangesReplaceTheTagsAndAreAnnounced() {
+        tagIndex.changed(1L, List.of("kotlin"));
+        tagIndex.removed(List.of(4L));
+        assertThat(tagIndex.matching(Set.of("spring"), Set.of(), Set.of()).toArray()).containsExactly(3L);
+        assertThat(tagIndex.matching(Set.of("kotlin"), Set.of(), Set.of()).toArray()).containsExactly(1L);
+        // the last question with a tag takes the tag along
+        assertThat(tagIndex.size()).isEqualTo(4);
+        verify(jdbcTemplate).queryForList(anyString(), eq(TagIndex.CHANNEL), eq("4"));
+    }
+}
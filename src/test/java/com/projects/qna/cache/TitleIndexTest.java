@@ -0,0 +1,75 @@
+package com.projects.qna.cache;
+
+import com.projects.qna.compression.TextCodec;
+import com.projects.qna.sharding.ShardRouting;
+import com.projects.qna.sharding.ShardingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class TitleIndexTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final TitleIndex titleIndex = new TitleIndex(mock(JdbcTemplate.class), mock(TransactionTemplate.class),
+            new ShardRouting(new ShardingProperties(false, 10, List.of())), mock(TextCodec.class), meterRegistry);
+
+    // outside of a transaction changes are applied right away
+    @BeforeEach
+    public void index() {
+        titleIndex.changed(1L, "How to map a List in JPA ?", 50);
+        titleIndex.changed(2L, "How  to test Spring controllers ?", 10);
+        titleIndex.changed(3L, "However large the table", 99);
+        titleIndex.changed(4L, "What is a radix trie ?", 5);
+        titleIndex.changed(5L, "How to map a Set in JPA ?", 50);
+    }
+
+    private List<Long> suggest(String prefix, int limit) {
+        return titleIndex.suggest(prefix, limit).stream().map(TitleIndex.Suggestion::qnId).toList();
+    }
+
+    @Test
+    public void verifyMostViewedTitlesWithThePrefixComeFirst() {
+        assertThat(suggest("how", 10)).containsExactly(3L, 5L, 1L, 2L);
+        assertThat(suggest("HOW   to", 10)).containsExactly(5L, 1L, 2L);
+        assertThat(suggest("how ", 2)).containsExactly(5L, 1L);
+        assertThat(suggest("how to map a l", 10)).containsExactly(1L);
+        assertThat(suggest("why", 10)).isEmpty();
+        assertThat(suggest("how to mop", 10)).isEmpty();
+        assertThat(suggest("  ", 10)).isEmpty();
+        assertThat(titleIndex.suggest("what", 1)).containsExactly(new TitleIndex.Suggestion(4L, "What is a radix trie ?"));
+    }
+
+    @Test
+    public void verifyChangesAndRemovalsKeepTheCachedTopTitlesRight() {
+        titleIndex.removed(List.of(3L, 5L));
+        assertThat(suggest("how", 10)).containsExactly(1L, 2L);
+        titleIndex.changed(1L, "Why map a List in JPA ?", 50);
+        assertThat(suggest("how", 10)).containsExactly(2L);
+        assertThat(suggest("why", 10)).containsExactly(1L);
+        titleIndex.removed(List.of(2L));
+        assertThat(suggest("h", 10)).isEmpty();
+        assertThat(titleIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void verifyOnlyTheTopTitlesAreCachedPerPrefix() {
+        for (long id = 10; id < 40; id++) titleIndex.changed(id, "Question number " + id, id);
+        assertThat(suggest("question", 20)).hasSize(TitleIndex.TOP_K).startsWith(39L, 38L);
+        for (long id = 30; id < 40; id++) titleIndex.removed(List.of(id));
+        assertThat(suggest("question", 20)).hasSize(TitleIndex.TOP_K).startsWith(29L, 28L);
+    }
+
+    @Test
+    public void verifyMemoryPerTitleIsReported() {
+        assertThat(meterRegistry.get("qna.suggest.titles").gauge().value()).isEqualTo(5);
+        assertThat(meterRegistry.get("qna.suggest.bytes.per.title").gauge().value()).isGreaterThan(0.0);
+    }
+}
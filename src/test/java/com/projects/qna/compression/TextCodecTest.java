@@ -0,0 +1,68 @@
+package com.projects.qna.compression;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TextCodecTest {
+
+    private static final String CODE = "public static void main(String[] args) {\n    System.out.println(args[0]);\n}\n";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final TextCodec codec = new TextCodec(mock(JdbcTemplate.class), mock(DataSource.class), meterRegistry, 64, 3, 1024, 100);
+
+    private final CompressedTextConverter converter = new CompressedTextConverter(codec);
+
+    @Test
+    public void verifyLongTextsAreCompressedAndShortOnesKept() {
+        String text = CODE.repeat(50);
+        String stored = codec.encode(text);
+        assertThat(stored).startsWith("\u00020:").hasSizeLessThan(text.length() / 4);
+        assertThat(codec.decode(stored)).isEqualTo(text);
+        assertThat(codec.encode("short")).isEqualTo("short");
+        assertThat(meterRegistry.get("qna.text.compressed.bytes").tag("form", "raw").counter().count())
+                .isEqualTo(text.length());
+    }
+
+    @Test
+    public void verifyRowsStoredUncompressedStillRead() {
+        assertThat(codec.decode(CODE.repeat(50))).isEqualTo(CODE.repeat(50));
+        assertThat(codec.decode("")).isEmpty();
+    }
+
+    @Test
+    public void verifyTextsStartingWithTheMarkerAreAlwaysCompressed() {
+        String marked = "\u0002not compressed";
+        assertThat(codec.encode(marked)).isNotEqualTo(marked);
+        assertThat(codec.decode(codec.encode(marked))).isEqualTo(marked);
+    }
+
+    @Test
+    public void verifyLoadedTextsAreOnlyDecompressedWhenRead() {
+        String stored = codec.encode(CODE.repeat(50));
+        CompressedText loaded = converter.convertToEntityAttribute(stored);
+        assertThat(converter.convertToDatabaseColumn(loaded)).isSameAs(stored);
+        assertThat(meterRegistry.get("qna.text.decode").timer().count()).isZero();
+
+        assertThat(loaded).isEqualTo(CompressedText.of(CODE.repeat(50)));
+        assertThat(loaded.text()).isEqualTo(CODE.repeat(50));
+        assertThat(meterRegistry.get("qna.text.decode").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void verifyReloadedWithoutDictionariesCompressesWithout() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenThrow(new SQLException("no database"));
+        TextCodec restored = new TextCodec(mock(JdbcTemplate.class), dataSource, meterRegistry, 64, 3, 1024, 100);
+        restored.reloaded();
+        assertThat(restored.encode(CODE.repeat(50))).startsWith("\u00020:");
+    }
+}
@@ -0,0 +1,129 @@
+package com.projects.qna.controllers;
+
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BulkheadsTest {
+
+    private static final BulkheadProperties.Limits ONE_AND_ONE =
+            new BulkheadProperties.Limits(1, 1, Duration.ofSeconds(5), BulkheadProperties.Rejection.REJECT);
+
+    private final Bulkheads bulkheads = new Bulkheads(new BulkheadProperties(
+            new BulkheadProperties.Limits(1, 1, Duration.ofSeconds(5), BulkheadProperties.Rejection.CALLER_RUNS),
+            ONE_AND_ONE, ONE_AND_ONE, ONE_AND_ONE));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    public void shutdown() {
+        release.countDown();
+        bulkheads.shutdown();
+    }
+
+    private String block() throws InterruptedException {
+        release.await();
+        return "done";
+    }
+
+    private static Object await(DeferredResult<?> result) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        result.setResultHandler(value -> done.countDown());
+        done.await();
+        return result.getResult();
+    }
+
+    @Test
+    public void verifyFullBulkheadRejectsWithoutAffectingOthers() throws InterruptedException {
+        bulkheads.bindTo(meterRegistry);
+        bulkheads.submit(Bulkheads.Workload.LIST, this::block);
+        bulkheads.submit(Bulkheads.Workload.LIST, this::block);
+
+        DeferredResult<String> rejected = bulkheads.submit(Bulkheads.Workload.LIST, this::block);
+        assertThat(rejected.getResult()).isInstanceOf(ServiceException.class)
+                .extracting(e -> ((ServiceException) e).getError()).isEqualTo(ServiceError.SERVICE_BUSY);
+        assertThat(meterRegistry.get("qna.bulkhead.rejected").tag("workload", "list").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("qna.bulkhead.saturation").tag("workload", "list").gauge().value())
+                .isGreaterThan(0.0);
+
+        assertThat(await(bulkheads.submit(Bulkheads.Workload.WRITE, () -> "written"))).isEqualTo("written");
+    }
+
+    @Test
+    public void verifyCallerRunsWhenConfigured() {
+        bulkheads.submit(Bulkheads.Workload.POINT_READ, this::block);
+        bulkheads.submit(Bulkheads.Workload.POINT_READ, this::block);
+
+        String caller = Thread.currentThread().getName();
+        DeferredResult<String> result = bulkheads.submit(Bulkheads.Workload.POINT_READ,
+                () -> Thread.currentThread().getName());
+        assertThat(result.getResult()).isEqualTo(caller);
+    }
+
+    @Test
+    public void verifyWritesOnlyTimeOutWhileQueued() throws InterruptedException {
+        Bulkheads fast = new Bulkheads(new BulkheadProperties(ONE_AND_ONE, ONE_AND_ONE,
+                new BulkheadProperties.Limits(1, 1, Duration.ofMillis(100), BulkheadProperties.Rejection.REJECT),
+                ONE_AND_ONE));
+        fast.bindTo(meterRegistry);
+        try {
+            AtomicBoolean queuedRan = new AtomicBoolean();
+            DeferredResult<String> started = fast.submit(Bulkheads.Workload.WRITE, this::block);
+            DeferredResult<String> queued = fast.submit(Bulkheads.Workload.WRITE, () -> {
+                queuedRan.set(true);
+                return "late";
+            });
+
+            assertThat(await(queued)).isInstanceOf(ServiceException.class)
+                    .extracting(e -> ((ServiceException) e).getError()).isEqualTo(ServiceError.SERVICE_BUSY);
+            assertThat(started.hasResult()).isFalse();
+            release.countDown();
+            assertThat(await(started)).isEqualTo("done");
+            // the executor is single threaded, so the cancelled write was skipped by the time this one runs
+            assertThat(await(fast.submit(Bulkheads.Workload.WRITE, () -> "next"))).isEqualTo("next");
+            assertThat(queuedRan).isFalse();
+            assertThat(meterRegistry.get("qna.bulkhead.timeouts").tag("workload", "write").functionCounter().count())
+                    .isEqualTo(1);
+        } finally {
+            fast.shutdown();
+        }
+    }
+
+    @Test
+    public void verifyTaskFailureBecomesErrorResult() throws InterruptedException {
+        DeferredResult<String> result = bulkheads.submit(Bulkheads.Workload.WRITE, () -> {
+            throw ServiceException.of(ServiceError.ENTITY_NOT_FOUND);
+        });
+        assertThat(await(result)).isSameAs(ServiceException.of(ServiceError.ENTITY_NOT_FOUND));
+    }
+
+    @Test
+    public void verifyCallWaitsOnTheBulkheadThread() {
+        String thread = bulkheads.call(Bulkheads.Workload.LIST, () -> Thread.currentThread().getName());
+        assertThat(thread).startsWith("bulkhead-list-");
+        assertThatThrownBy(() -> bulkheads.call(Bulkheads.Workload.LIST, () -> {
+            throw ServiceException.of(ServiceError.ENTITY_NOT_FOUND);
+        })).isSameAs(ServiceException.of(ServiceError.ENTITY_NOT_FOUND));
+    }
+
+    @Test
+    public void verifyCallRejectsWhenFull() {
+        bulkheads.submit(Bulkheads.Workload.LIST, this::block);
+        bulkheads.submit(Bulkheads.Workload.LIST, this::block);
+        assertThatThrownBy(() -> bulkheads.call(Bulkheads.Workload.LIST, () -> "late"))
+                .isSameAs(ServiceException.of(ServiceError.SERVICE_BUSY));
+    }
+}
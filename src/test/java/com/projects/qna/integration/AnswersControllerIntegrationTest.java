@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
+import static com.projects.qna.api.MockMvcAsync.performAsync;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -64,7 +65,6 @@ public class AnswersControllerIntegrationTest {
 
     private Answer answer;
 
-
     public void setup() throws Exception {
         curUserIndex = entityService.getCurrentSequenceValue("users_seq");
         curQnIndex = entityService.getCurrentSequenceValue("questions_seq");
@@ -77,9 +77,9 @@ public class AnswersControllerIntegrationTest {
     }
 
     public void reset(boolean deleteAnswer, boolean deleteQuestion, boolean deleteUser) throws Exception {
-        if (deleteAnswer) answerService.deleteAnswer(answer.getAnsId());
-        if (deleteQuestion) questionService.deleteQuestion(question.getQnId());
-        if (deleteUser) userService.deleteUser(user.getUserId());
+        if (deleteAnswer) answerService.deleteAnswer(answer.getAnsId(), null);
+        if (deleteQuestion) questionService.deleteQuestion(question.getQnId(), null);
+        if (deleteUser) userService.deleteUser(user.getUserId(), null);
 
         entityService.resetSequenceValue("users_seq", curUserIndex);
         entityService.resetSequenceValue("questions_seq", curQnIndex);
@@ -95,7 +95,7 @@ public class AnswersControllerIntegrationTest {
     @Test
     public void testGetAnswer() throws Exception {
         setup();
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/answers/{id}", answer.getAnsId())
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/answers/{id}", answer.getAnsId())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -108,7 +108,7 @@ public class AnswersControllerIntegrationTest {
     @Test
     public void testGetAnswer_invalidAnswerId() throws Exception {
         setup();
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/answers/{id}", 9999999L)
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/answers/{id}", 9999999L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isNotFound())
@@ -124,7 +124,7 @@ public class AnswersControllerIntegrationTest {
     @Test
     public void testGetAllAnswers() throws Exception {
         setup();
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/answers")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/answers")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -142,7 +142,7 @@ public class AnswersControllerIntegrationTest {
     public void testCreateAnswer_IdsDoNotExist() throws Exception {
         setup();
         Answer newAnswer = new Answer("New Test Answer", 9999999L, 999999L);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/answers")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.post("/answers")
                         .content(newAnswer.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -161,7 +161,7 @@ public class AnswersControllerIntegrationTest {
     public void testCreateAnswer_Success() throws Exception {
         setup();
         Answer newAnswer = new Answer("New Test Answer", question.getQnId(), user.getUserId());
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/answers")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.post("/answers")
                         .content(newAnswer.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -173,14 +173,14 @@ public class AnswersControllerIntegrationTest {
         assertThat(Objects.equals(createdAnswer, newAnswer)).isTrue();
         assertThat(mvcResult.getResponse().containsHeader("Location")).isTrue();
         assertThat(mvcResult.getResponse().getHeader("Location")).isEqualTo("/answers/" + newAnswer.getAnsId());
-        answerService.deleteAnswer(createdAnswer.getAnsId());
+        answerService.deleteAnswer(createdAnswer.getAnsId(), null);
         reset(true, true, true);
     }
 
     @Test
     public void testUpdateAnswer_AnsIdDoesNotExist() throws Exception {
         Answer newAnswer = new Answer("New Test Answer", 99999999L, 99999999L);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/answers/{id}", 9999999L)
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.put("/answers/{id}", 9999999L)
                         .content(newAnswer.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -197,7 +197,7 @@ public class AnswersControllerIntegrationTest {
     public void testUpdateAnswer_Success() throws Exception {
         setup();
         Answer newAnswer = new Answer("New Test Answer", question.getQnId(), user.getUserId());
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/answers/{id}", answer.getAnsId())
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.put("/answers/{id}", answer.getAnsId())
                         .content(newAnswer.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -214,7 +214,7 @@ public class AnswersControllerIntegrationTest {
 
     @Test
     public void testDeleteAnswer_IdNotFound() throws Exception {
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.delete("/answers/{id}", 999999L)
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.delete("/answers/{id}", 999999L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isNotFound())
@@ -229,7 +229,7 @@ public class AnswersControllerIntegrationTest {
     @Test
     public void testDeleteAnswer_Success() throws Exception {
         setup();
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.delete("/answers/{id}", answer.getAnsId())
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.delete("/answers/{id}", answer.getAnsId())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
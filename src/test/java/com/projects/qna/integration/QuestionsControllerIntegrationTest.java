@@ -2,6 +2,7 @@ package com.projects.qna.integration;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.projects.qna.QnaApplication;
 import com.projects.qna.exceptions.ServiceExceptionHandler;
 import com.projects.qna.model.Question;
@@ -24,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
+import static com.projects.qna.api.MockMvcAsync.performAsync;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -55,13 +57,15 @@ public class QuestionsControllerIntegrationTest {
 
     private User user;
 
-
     public void setup() throws Exception {
         currentUserIndex = entityService.getCurrentSequenceValue("users_seq");
         currentQuestionIndex = entityService.getCurrentSequenceValue("questions_seq");
         user = new User("QnTestUserName", "QnTestPassword", "QnEmail@email.com", "+991234554321");
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/users")
-                        .content(objectMapper.writeValueAsString(user))
+        // password is write-only, so it is added back to the serialized user for the request body
+        ObjectNode userBody = objectMapper.valueToTree(user);
+        userBody.put("password", user.getPassword());
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.post("/users")
+                        .content(userBody.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isCreated())
@@ -72,10 +76,9 @@ public class QuestionsControllerIntegrationTest {
     }
 
     public void resetSetup(boolean deleteQuestion) throws Exception {
-        if (deleteQuestion) questionService.deleteQuestion(question.getQnId());
-        MvcResult mvcResult = mockMvc.perform(
-                        MockMvcRequestBuilders.delete("/users/{id}", user.getUserId())
-                                .contentType(MediaType.APPLICATION_JSON))
+        if (deleteQuestion) questionService.deleteQuestion(question.getQnId(), null);
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.delete("/users/{id}", user.getUserId())
+                        .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andReturn();
@@ -96,7 +99,7 @@ public class QuestionsControllerIntegrationTest {
 
     @Test
     public void testGetAllQuestions() throws Exception {
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/questions")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/questions")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -111,7 +114,7 @@ public class QuestionsControllerIntegrationTest {
 
     @Test
     public void testGetQuestion_questionNotFound() throws Exception {
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/questions/{id}", 9999999999L)
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/questions/{id}", 9999999999L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isNotFound())
@@ -127,7 +130,7 @@ public class QuestionsControllerIntegrationTest {
     @Test
     public void testGetQuestion_questionFound() throws Exception {
         setup();
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/questions/{id}", question.getQnId())
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/questions/{id}", question.getQnId())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -159,7 +162,7 @@ public class QuestionsControllerIntegrationTest {
     public void testCreateQuestion_InvalidUserId() throws Exception {
         Long currentQnIndex = entityService.getCurrentSequenceValue("questions_seq");
         Question invalidQnBody = new Question("Nested Test Question", 9999999999L);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/questions")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.post("/questions")
                         .content(invalidQnBody.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -179,7 +182,7 @@ public class QuestionsControllerIntegrationTest {
     public void testCreateQuestion_Success() throws Exception {
         setup();
         Question newQn = new Question("New Integration Test question", user.getUserId());
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/questions")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.post("/questions")
                         .content(newQn.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -191,14 +194,14 @@ public class QuestionsControllerIntegrationTest {
         assertThat(Objects.equals(newQn, createdQuestion)).isTrue();
         assertThat(mvcResult.getResponse().containsHeader("Location")).isTrue();
         assertThat(mvcResult.getResponse().getHeader("Location")).isEqualTo("/questions/" + newQn.getQnId());
-        questionService.deleteQuestion(createdQuestion.getQnId());
+        questionService.deleteQuestion(createdQuestion.getQnId(), null);
         resetSetup(true);
     }
 
     @Test
     public void testUpdateQuestion_IdDoesNotExist() throws Exception {
         Question newQn = new Question(9999999999L, "Question ID does not exist", 9999999999L);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/questions/{id}", 9999999999L)
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.put("/questions/{id}", 9999999999L)
                         .content(newQn.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -215,7 +218,7 @@ public class QuestionsControllerIntegrationTest {
     public void testUpdateQuestion_UserIdDoesNotExist() throws Exception {
         setup();
         Question newQn = new Question(question.getQnId(), "User ID does not exist", 9999999999L);
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/questions/{id}", question.getQnId())
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.put("/questions/{id}", question.getQnId())
                         .content(newQn.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -235,7 +238,7 @@ public class QuestionsControllerIntegrationTest {
     public void testUpdateQuestion_Success() throws Exception {
         setup();
         Question newQn = new Question("Updated question", user.getUserId());
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/questions/{id}", question.getQnId())
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.put("/questions/{id}", question.getQnId())
                         .content(newQn.toString())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
@@ -252,7 +255,7 @@ public class QuestionsControllerIntegrationTest {
 
     @Test
     public void testDeleteQuestion_IdDoesNotExist() throws Exception {
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.delete("/questions/{id}", 9999999999L)
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.delete("/questions/{id}", 9999999999L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isNotFound())
@@ -267,7 +270,7 @@ public class QuestionsControllerIntegrationTest {
     @Test
     public void testDeleteQuestion_Success() throws Exception {
         setup();
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.delete("/questions/{id}", question.getQnId())
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.delete("/questions/{id}", question.getQnId())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -1,6 +1,7 @@
 package com.projects.qna.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.projects.qna.QnaApplication;
 import com.projects.qna.model.User;
 import com.projects.qna.service.EntityService;
@@ -11,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -21,6 +23,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
+import static com.projects.qna.api.MockMvcAsync.performAsync;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -45,6 +48,12 @@ public class UsersControllerIntegrationTest {
     @Autowired
     EntityService entityService;
 
+    // password is write-only, so it is added back to the serialized user for request bodies
+    private String requestBody(User user) {
+        ObjectNode node = objectMapper.valueToTree(user);
+        return node.put("password", user.getPassword()).toString();
+    }
+
     @BeforeEach
     public void setup() {
         //this.mockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
@@ -58,7 +67,7 @@ public class UsersControllerIntegrationTest {
 
     @Test
     public void testGetAllUsers() throws Exception {
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/users")
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/users")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -76,7 +85,7 @@ public class UsersControllerIntegrationTest {
         Long currentIndex = entityService.getCurrentSequenceValue("users_seq");
         User user = userService.createUser(
                 new User("userName", "password", "email@email.com", "+999999999999"));
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/users/{id}", user.getUserId())
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/users/{id}", user.getUserId())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
@@ -89,7 +98,7 @@ public class UsersControllerIntegrationTest {
 
     @Test
     public void testGetUser_userNotFound() throws Exception {
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/users/{id}", 9999999999L)
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.get("/users/{id}", 9999999999L)
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isNotFound())
@@ -103,16 +112,20 @@ public class UsersControllerIntegrationTest {
     public void testCreateUser() throws Exception {
         Long currentIndex = entityService.getCurrentSequenceValue("users_seq");
         User user = new User("userName", "password", "email@email.com", "+999999999999");
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/users")
-                        .content(objectMapper.writeValueAsString(user))
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.post("/users")
+                        .content(requestBody(user))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isCreated())
                 .andReturn();
-        entityService.resetSequenceValue("users_seq", currentIndex);
         user.setUserId(currentIndex + 1);
+        String storedPassword = userService.getUser(user.getUserId()).getPassword();
+        entityService.resetSequenceValue("users_seq", currentIndex);
         assertThat(mvcResult.getResponse().getContentType()).isEqualTo("application/json");
         String responseBody = mvcResult.getResponse().getContentAsString();
+        assertThat(responseBody).doesNotContain("password");
+        assertThat(storedPassword).isNotEqualTo(user.getPassword());
+        assertThat(new BCryptPasswordEncoder().matches(user.getPassword(), storedPassword)).isTrue();
         assertThat(responseBody).isEqualTo(objectMapper.writeValueAsString(user));
         assertThat(mvcResult.getResponse().containsHeader("Location")).isTrue();
         assertThat(mvcResult.getResponse().getHeader("Location")).isEqualTo("/users/" + user.getUserId());
@@ -122,7 +135,7 @@ public class UsersControllerIntegrationTest {
     public void testCreateUser_invalidBody() throws Exception {
         User user = new User("", "", "mail1", "+991111122222");
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/users")
-                        .content(objectMapper.writeValueAsString(user))
+                        .content(requestBody(user))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isBadRequest())
@@ -140,15 +153,18 @@ public class UsersControllerIntegrationTest {
         User user = userService.createUser(
                 new User("userName", "password", "email@email.com", "+999999999999"));
         user.setPassword("newPassword");
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/users/{id}", user.getUserId())
-                        .content(objectMapper.writeValueAsString(user))
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.put("/users/{id}", user.getUserId())
+                        .content(requestBody(user))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andReturn();
+        String storedPassword = userService.getUser(user.getUserId()).getPassword();
         entityService.resetSequenceValue("users_seq", currentIndex);
         assertThat(mvcResult.getResponse().getContentType()).isEqualTo("application/json");
         String responseBody = mvcResult.getResponse().getContentAsString();
+        assertThat(responseBody).doesNotContain("password");
+        assertThat(new BCryptPasswordEncoder().matches("newPassword", storedPassword)).isTrue();
         assertThat(responseBody).isEqualTo(objectMapper.writeValueAsString(user));
     }
 
@@ -156,8 +172,8 @@ public class UsersControllerIntegrationTest {
     public void testUpdateUser_userDoesNotExist() throws Exception {
         User user = userService.createUser(
                 new User(99999999L, "userName", "password", "email@email.com", "+999999999999"));
-        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/users/{id}", 99999999L)
-                        .content(objectMapper.writeValueAsString(user))
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.put("/users/{id}", 99999999L)
+                        .content(requestBody(user))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isNotFound())
@@ -171,7 +187,7 @@ public class UsersControllerIntegrationTest {
     public void testUpdateUser_invalidBody() throws Exception {
         User user = new User(1L, "", "", "mail1", "+991111122222");
         MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.put("/users/{id}", 99999999L)
-                        .content(objectMapper.writeValueAsString(user))
+                        .content(requestBody(user))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isBadRequest())
@@ -187,9 +203,8 @@ public class UsersControllerIntegrationTest {
         Long currentIndex = entityService.getCurrentSequenceValue("users_seq");
         User user = userService.createUser(
                 new User("userName", "password", "email@email.com", "+999999999999"));
-        MvcResult mvcResult = mockMvc.perform(
-                        MockMvcRequestBuilders.delete("/users/{id}", user.getUserId())
-                                .contentType(MediaType.APPLICATION_JSON))
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.delete("/users/{id}", user.getUserId())
+                        .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andReturn();
@@ -201,9 +216,8 @@ public class UsersControllerIntegrationTest {
 
     @Test
     public void testDeleteUser_userDoesNotExist() throws Exception {
-        MvcResult mvcResult = mockMvc.perform(
-                        MockMvcRequestBuilders.delete("/users/{id}", 999999L)
-                                .contentType(MediaType.APPLICATION_JSON))
+        MvcResult mvcResult = performAsync(mockMvc, MockMvcRequestBuilders.delete("/users/{id}", 999999L)
+                        .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isNotFound())
                 .andReturn();
@@ -0,0 +1,41 @@
+package com.projects.qna.outbox;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileOutboxSinkTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void verifyEventsAreAppendedAsJsonLines() throws Exception {
+        Path file = directory.resolve("outbox").resolve("events.jsonl");
+        FileOutboxSink sink = new FileOutboxSink(Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build(), file);
+        Instant created = Instant.parse("2024-05-01T10:00:00Z");
+
+        sink.deliver(List.of(
+                new OutboxEvent(1L, "question", 7L, "QuestionCreated", "{\"qnId\":7,\"title\":\"a\\nb\"}", created),
+                new OutboxEvent(2L, "question", 7L, "QuestionDeleted", "{\"qnId\":7}", created)));
+        sink.deliver(List.of(new OutboxEvent(3L, "user", 4L, "UserDeleted", "{\"userId\":4}", created)));
+
+        // payloads are embedded as JSON rather than as strings, and each event stays on its own line
+        assertThat(Files.readAllLines(file)).containsExactly(
+                "{\"id\":1,\"aggregateType\":\"question\",\"aggregateId\":7,\"eventType\":\"QuestionCreated\"," +
+                        "\"payload\":{\"qnId\":7,\"title\":\"a\\nb\"},\"created\":\"2024-05-01T10:00:00Z\"}",
+                "{\"id\":2,\"aggregateType\":\"question\",\"aggregateId\":7,\"eventType\":\"QuestionDeleted\"," +
+                        "\"payload\":{\"qnId\":7},\"created\":\"2024-05-01T10:00:00Z\"}",
+                "{\"id\":3,\"aggregateType\":\"user\",\"aggregateId\":4,\"eventType\":\"UserDeleted\"," +
+                        "\"payload\":{\"userId\":4},\"created\":\"2024-05-01T10:00:00Z\"}");
+    }
+}
@@ -0,0 +1,103 @@
+package com.projects.qna.outbox;
+
+import com.projects.qna.sharding.ShardRouting;
+import com.projects.qna.sharding.ShardingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OutboxRelayTest {
+
+    private static final List<OutboxEvent> EVENTS = List.of(
+            new OutboxEvent(1L, "question", 7L, "QuestionCreated", "{\"qnId\":7}", Instant.EPOCH),
+            new OutboxEvent(2L, "answer", 9L, "AnswerCreated", "{\"ansId\":9}", Instant.EPOCH));
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private final TransactionStatus transaction = mock(TransactionStatus.class);
+
+    private final OutboxSink sink = mock(OutboxSink.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final OutboxRelay relay = new OutboxRelay(jdbcTemplate, new TransactionTemplate(transactionManager), sink,
+            new ShardRouting(new ShardingProperties(false, 10, List.of())), meterRegistry,
+            10, 5, Duration.ofDays(7), 1000);
+
+    @SuppressWarnings("unchecked")
+    private void claimReturns(List<OutboxEvent> first, List<OutboxEvent> next) {
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        when(jdbcTemplate.query(contains("FOR UPDATE SKIP LOCKED"), any(RowMapper.class), eq(10)))
+                .thenReturn(first, next);
+    }
+
+    @Test
+    public void verifyClaimedBatchIsDeliveredAndMarkedInOneTransaction() throws Exception {
+        claimReturns(EVENTS, List.of());
+        relay.relay();
+
+        verify(sink).deliver(EVENTS);
+        ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbcTemplate).update(creator.capture());
+        Connection connection = mock(Connection.class, RETURNS_MOCKS);
+        creator.getValue().createPreparedStatement(connection);
+        verify(connection).prepareStatement(contains("SET delivered = now()"));
+        verify(connection).createArrayOf("bigint", new Long[]{1L, 2L});
+        // a short batch means the outbox is drained, so there is no second claim
+        verify(transactionManager).commit(transaction);
+        verify(transactionManager, never()).rollback(any());
+        assertThat(meterRegistry.get("qna.outbox.delivered").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void verifyFailedDeliveryIsRolledBackAndRetried() throws Exception {
+        claimReturns(EVENTS, EVENTS);
+        doThrow(new IOException("disk full")).doNothing().when(sink).deliver(EVENTS);
+
+        relay.relay();
+        verify(jdbcTemplate, never()).update(any(PreparedStatementCreator.class));
+        verify(transactionManager).rollback(transaction);
+        assertThat(meterRegistry.get("qna.outbox.failures").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("qna.outbox.delivered").counter().count()).isZero();
+
+        relay.relay();
+        verify(sink, times(2)).deliver(EVENTS);
+        verify(jdbcTemplate).update(any(PreparedStatementCreator.class));
+        verify(transactionManager).commit(transaction);
+        assertThat(meterRegistry.get("qna.outbox.delivered").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void verifyNothingIsDeliveredWhenTheOutboxIsEmpty() throws Exception {
+        claimReturns(List.of(), List.of());
+        relay.relay();
+        verify(sink, never()).deliver(any());
+        verify(jdbcTemplate, never()).update(any(PreparedStatementCreator.class));
+    }
+}
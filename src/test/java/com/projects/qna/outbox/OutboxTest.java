@@ -0,0 +1,36 @@
+package com.projects.qna.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+public class OutboxTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final Outbox outbox = new Outbox(jdbcTemplate, new ObjectMapper());
+
+    @Test
+    public void verifyEventIsInsertedWithJsonPayload() {
+        outbox.record("question", 7L, "QuestionDeleted", Map.of("qnId", 7L));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO outbox"), eq("question"), eq(7L), eq("QuestionDeleted"),
+                eq("{\"qnId\":7}"));
+    }
+
+    @Test
+    public void verifyUnserializablePayloadIsRejected() {
+        assertThatThrownBy(() -> outbox.record("question", 7L, "QuestionCreated", new Object()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("QuestionCreated");
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
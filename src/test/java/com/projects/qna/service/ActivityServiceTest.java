@@ -0,0 +1,74 @@
+package com.projects.qna.service;
+
+import com.projects.qna.exceptions.ServiceException;
+import com.projects.qna.model.Answer;
+import com.projects.qna.model.AnswerRepository;
+import com.projects.qna.model.Question;
+import com.projects.qna.model.QuestionRepository;
+import com.projects.qna.sharding.ShardRouting;
+import com.projects.qna.sharding.ShardingProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ActivityServiceTest {
+
+    private static final Instant T1 = Instant.parse("2024-05-01T10:00:00Z");
+
+    private static final Instant T2 = Instant.parse("2024-05-02T10:00:00Z");
+
+    private final QuestionRepository questionRepository = mock(QuestionRepository.class);
+
+    private final AnswerRepository answerRepository = mock(AnswerRepository.class);
+
+    private final ActivityService activityService =
+            new ActivityService(mock(UserService.class), questionRepository, answerRepository,
+                    new ShardRouting(new ShardingProperties(false, 10, List.of())));
+
+    private static Question question(Long id, Instant created) {
+        return new Question(id, "qn" + id, 1L, 0, created, 0, created, List.of());
+    }
+
+    private static Answer answer(Long id, Instant created) {
+        return new Answer(id, "ans" + id, 9L, 1L, 0, created);
+    }
+
+    @Test
+    public void verifyItemsAreMergedNewestFirstAndPaged() {
+        when(questionRepository.findActivityPage(eq(1L), any(), anyLong(), eq(3)))
+                .thenReturn(List.of(question(4L, T2), question(3L, T1)));
+        when(answerRepository.findActivityPage(eq(1L), any(), anyLong(), eq(3)))
+                .thenReturn(List.of(answer(7L, T2), answer(6L, T1)));
+
+        ActivityPage page = activityService.getActivity(1L, null, 2);
+
+        assertThat(page.items()).extracting(ActivityItem::type, ActivityItem::id)
+                .containsExactly(tuple("question", 4L), tuple("answer", 7L));
+        assertThat(page.next()).isNotNull();
+
+        // the cursor points at the answer, so equally old questions are already behind it
+        when(questionRepository.findActivityPage(1L, T2, Long.MIN_VALUE, 3)).thenReturn(List.of(question(3L, T1)));
+        when(answerRepository.findActivityPage(1L, T2, 7L, 3)).thenReturn(List.of(answer(6L, T1)));
+
+        ActivityPage second = activityService.getActivity(1L, page.next(), 2);
+
+        assertThat(second.items()).extracting(ActivityItem::id).containsExactly(3L, 6L);
+        assertThat(second.next()).isNull();
+    }
+
+    @Test
+    public void verifyMalformedCursorIsRejected() {
+        assertThatThrownBy(() -> activityService.getActivity(1L, "not a cursor", 2))
+                .isInstanceOf(ServiceException.class);
+    }
+}
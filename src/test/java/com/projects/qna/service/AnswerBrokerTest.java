@@ -0,0 +1,42 @@
+package com.projects.qna.service;
+
+import com.projects.qna.model.Answer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnswerBrokerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AnswerBroker answerBroker = new AnswerBroker(4, AnswerBroker.Overflow.DROP_OLDEST,
+            Duration.ofMinutes(1), 1, Duration.ofSeconds(10), meterRegistry);
+
+    @AfterEach
+    public void shutdown() {
+        answerBroker.shutdown();
+    }
+
+    @Test
+    public void verifyAnswersReachOnlySubscribersOfTheirQuestion() throws Exception {
+        answerBroker.subscribe(1L);
+        answerBroker.subscribe(1L);
+        answerBroker.subscribe(2L);
+        assertThat(meterRegistry.get("qna.answers.stream.subscribers").gauge().value()).isEqualTo(3);
+
+        answerBroker.publish(new Answer(10L, "ans", 1L, 1L));
+        answerBroker.publish(new Answer(11L, "ans", 3L, 1L));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (meterRegistry.get("qna.answers.stream.lag").timer().count() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(meterRegistry.get("qna.answers.stream.lag").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("qna.answers.stream.overflow").tag("action", "dropped").counter().count())
+                .isZero();
+    }
+}
@@ -0,0 +1,71 @@
+package com.projects.qna.service;
+
+import com.projects.qna.sharding.ShardRouting;
+import com.projects.qna.sharding.ShardingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnswerPartitionMaintenanceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final AnswerPartitionMaintenance maintenance = new AnswerPartitionMaintenance(jdbcTemplate,
+            new ShardRouting(new ShardingProperties(false, 10, List.of())));
+
+    @BeforeEach
+    public void configure() {
+        ReflectionTestUtils.setField(maintenance, "range", 100000L);
+        ReflectionTestUtils.setField(maintenance, "ahead", 2);
+    }
+
+    private void database(boolean partitioned, long lastQuestionId) {
+        when(jdbcTemplate.queryForObject(contains("relkind"), eq(Boolean.class))).thenReturn(partitioned);
+        when(jdbcTemplate.queryForObject(contains("questions_seq"), eq(Long.class))).thenReturn(lastQuestionId);
+    }
+
+    @Test
+    public void verifyPartitionsAreCreatedAheadOfTheSequence() {
+        database(true, 150000L);
+        maintenance.ensurePartitions();
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS answers_p0 PARTITION OF answers FOR VALUES FROM (0) TO (100000)");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS answers_p1 PARTITION OF answers FOR VALUES FROM (100000) TO (200000)");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS answers_p2 PARTITION OF answers FOR VALUES FROM (200000) TO (300000)");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS answers_p3 PARTITION OF answers FOR VALUES FROM (300000) TO (400000)");
+        verify(jdbcTemplate, never()).execute(contains("answers_p4 "));
+    }
+
+    @Test
+    public void verifyOnlyMissingPartitionsAreCreatedLater() {
+        database(true, 150000L);
+        maintenance.ensurePartitions();
+        clearInvocations(jdbcTemplate);
+
+        maintenance.ensurePartitions();
+        verify(jdbcTemplate, never()).execute(anyString());
+
+        database(true, 250000L);
+        maintenance.ensurePartitions();
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS answers_p4 PARTITION OF answers FOR VALUES FROM (400000) TO (500000)");
+        verify(jdbcTemplate, never()).execute(contains("answers_p3 "));
+    }
+
+    @Test
+    public void verifyUnpartitionedTableIsLeftAlone() {
+        database(false, 150000L);
+        maintenance.ensurePartitions();
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
@@ -0,0 +1,77 @@
+package com.projects.qna.service;
+
+import com.projects.qna.exceptions.ServiceError;
+import com.projects.qna.exceptions.ServiceException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AttachmentStoreTest {
+
+    // SHA-256 of "hello"
+    private static final String HELLO = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    @TempDir
+    private Path directory;
+
+    private AttachmentStore store() {
+        return new AttachmentStore(directory, DataSize.ofBytes(16));
+    }
+
+    private static ByteArrayInputStream bytes(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void verifyFilesAreNamedByTheirContent() throws IOException {
+        AttachmentStore store = store();
+        assertThat(store.store(bytes("hello"))).isEqualTo(new AttachmentStore.Blob(HELLO, 5));
+        assertThat(store.store(bytes("hello"))).isEqualTo(new AttachmentStore.Blob(HELLO, 5));
+        Path file = store.path(HELLO);
+        assertThat(file).isEqualTo(directory.resolve("2c").resolve("f2").resolve(HELLO));
+        assertThat(Files.readString(file)).isEqualTo("hello");
+        assertThat(directory.resolve("incoming")).isEmptyDirectory();
+    }
+
+    @Test
+    public void verifyTooLargeAndEmptyUploadsLeaveNothingBehind() throws IOException {
+        AttachmentStore store = store();
+        assertThatThrownBy(() -> store.store(bytes("more than sixteen bytes")))
+                .isInstanceOf(ServiceException.class)
+                .extracting(e -> ((ServiceException) e).getError()).isEqualTo(ServiceError.ATTACHMENT_TOO_LARGE);
+        assertThatThrownBy(() -> store.store(bytes("")))
+                .isInstanceOf(ServiceException.class)
+                .extracting(e -> ((ServiceException) e).getError()).isEqualTo(ServiceError.INVALID_PARAMETER);
+        assertThat(directory.resolve("incoming")).isEmptyDirectory();
+    }
+
+    @Test
+    public void verifyOnlyHashesMakePaths() {
+        assertThatThrownBy(() -> store().path("../../etc/passwd")).isInstanceOf(ServiceException.class);
+    }
+
+    @Test
+    public void verifyOnlyOldUnreferencedFilesAreRemoved() throws IOException {
+        AttachmentStore store = store();
+        String bye = store.store(bytes("bye")).sha256();
+        store.store(bytes("hello"));
+        Path leftover = Files.writeString(directory.resolve("incoming").resolve("upload-1"), "partial");
+
+        assertThat(store.removeUnreferenced(Set.of(HELLO), Instant.now().minusSeconds(60))).isZero();
+        assertThat(store.removeUnreferenced(Set.of(HELLO), Instant.now().plusSeconds(60))).isEqualTo(2);
+        assertThat(store.path(HELLO)).exists();
+        assertThat(store.path(bye)).doesNotExist();
+        assertThat(leftover).doesNotExist();
+    }
+}
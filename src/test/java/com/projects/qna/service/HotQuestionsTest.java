@@ -0,0 +1,71 @@
+package com.projects.qna.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HotQuestionsTest {
+
+    @Test
+    public void verifyTopOrdersByWeightedActivity() {
+        HotQuestions hotQuestions = new HotQuestions(10, Duration.ofHours(6));
+        hotQuestions.record(1L, HotQuestions.Activity.VIEW);
+        hotQuestions.record(2L, HotQuestions.Activity.ANSWER);
+        hotQuestions.record(3L, HotQuestions.Activity.VOTE);
+        assertThat(hotQuestions.top(10)).containsExactly(2L, 3L, 1L);
+        assertThat(hotQuestions.top(2)).containsExactly(2L, 3L);
+    }
+
+    @Test
+    public void verifyRemovedQuestionIsDropped() {
+        HotQuestions hotQuestions = new HotQuestions(10, Duration.ofHours(6));
+        hotQuestions.record(1L, HotQuestions.Activity.ANSWER);
+        hotQuestions.record(2L, HotQuestions.Activity.VIEW);
+        hotQuestions.remove(1L);
+        assertThat(hotQuestions.top(10)).containsExactly(2L);
+    }
+
+    @Test
+    public void verifyCandidatesAreBounded() {
+        HotQuestions hotQuestions = new HotQuestions(2, Duration.ofHours(6));
+        for (long id = 1; id <= 8; id++) {
+            hotQuestions.record(id, HotQuestions.Activity.VIEW);
+        }
+        // pool is full of equally warm questions, a hotter newcomer displaces the coldest one
+        hotQuestions.record(100L, HotQuestions.Activity.ANSWER);
+        assertThat(hotQuestions.top(2)).first().isEqualTo(100L);
+        assertThat(hotQuestions.top(5)).hasSize(2);
+    }
+
+    @Test
+    public void verifySweepTrimsToTheWarmestCandidates() {
+        HotQuestions hotQuestions = new HotQuestions(1, Duration.ofHours(6));
+        for (long id = 1; id <= 6; id++) {
+            for (long i = 0; i < id; i++) hotQuestions.record(id, HotQuestions.Activity.VIEW);
+        }
+        assertThat(hotQuestions.candidates()).isEqualTo(6);
+        hotQuestions.sweep();
+        assertThat(hotQuestions.candidates()).isEqualTo(4);
+        // colder than every kept candidate, so not admitted until the next sweep makes room
+        hotQuestions.record(7L, HotQuestions.Activity.VIEW);
+        assertThat(hotQuestions.candidates()).isEqualTo(4);
+        assertThat(hotQuestions.top(1)).containsExactly(6L);
+    }
+
+    @Test
+    public void verifyConcurrentActivityIsCounted() throws InterruptedException {
+        HotQuestions hotQuestions = new HotQuestions(10, Duration.ofDays(3650));
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) hotQuestions.record(1L, HotQuestions.Activity.VIEW);
+            });
+        }
+        for (int i = 0; i < 1_000; i++) hotQuestions.record(2L, HotQuestions.Activity.ANSWER);
+        for (Thread thread : threads) thread.join();
+        // 40000 views against 5000 worth of answers
+        assertThat(hotQuestions.top(2)).containsExactly(1L, 2L);
+    }
+}
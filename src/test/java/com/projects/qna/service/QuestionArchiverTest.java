@@ -0,0 +1,117 @@
+package com.projects.qna.service;
+
+import com.projects.qna.cache.FragmentCache;
+import com.projects.qna.cache.NearCache;
+import com.projects.qna.cache.TagIndex;
+import com.projects.qna.cache.TitleIndex;
+import com.projects.qna.outbox.Outbox;
+import com.projects.qna.sharding.ShardRouting;
+import com.projects.qna.sharding.ShardingProperties;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class QuestionArchiverTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private final TransactionStatus transaction = mock(TransactionStatus.class);
+
+    private final Outbox outbox = mock(Outbox.class);
+
+    private final HotQuestions hotQuestions = mock(HotQuestions.class);
+
+    private final FragmentCache fragmentCache = mock(FragmentCache.class);
+
+    private final TagIndex tagIndex = mock(TagIndex.class);
+
+    private final TitleIndex titleIndex = mock(TitleIndex.class);
+
+    private final QuestionArchiver archiver = new QuestionArchiver(jdbcTemplate, new TransactionTemplate(transactionManager),
+            outbox, hotQuestions, mock(NearCache.class), fragmentCache, tagIndex, titleIndex,
+            new ShardRouting(new ShardingProperties(false, 10, List.of())), Duration.ofDays(365), 2, 3);
+
+    private void claimReturns(List<Long> first, List<Long> next) {
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        when(jdbcTemplate.queryForList(contains("FOR UPDATE SKIP LOCKED"), eq(Long.class), any(Timestamp.class), eq(2)))
+                .thenReturn(first, next);
+    }
+
+    @Test
+    public void verifyClaimedQuestionsAreMovedWithTheirAnswers() throws SQLException {
+        claimReturns(List.of(3L, 4L), List.of());
+        Instant before = Instant.now().minus(Duration.ofDays(365));
+        archiver.archive();
+
+        ArgumentCaptor<Timestamp> cutoff = ArgumentCaptor.forClass(Timestamp.class);
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(Long.class), cutoff.capture(), eq(2));
+        assertThat(cutoff.getValue().toInstant()).isBetween(before, Instant.now().minus(Duration.ofDays(365)));
+
+        ArgumentCaptor<PreparedStatementCreator> creators = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbcTemplate, times(4)).update(creators.capture());
+        Connection connection = mock(Connection.class, RETURNS_MOCKS);
+        for (PreparedStatementCreator creator : creators.getAllValues()) {
+            creator.createPreparedStatement(connection);
+        }
+        // votes and attachments go first, answers before their questions
+        var order = inOrder(connection);
+        order.verify(connection).prepareStatement(contains("DELETE FROM answer_votes"));
+        order.verify(connection).prepareStatement(contains("DELETE FROM answer_attachments"));
+        order.verify(connection).prepareStatement(contains("INSERT INTO answers_archive"));
+        order.verify(connection).prepareStatement(contains("INSERT INTO questions_archive"));
+        verify(connection, times(4)).createArrayOf("bigint", new Long[]{3L, 4L});
+
+        verify(outbox).record("question", 3L, "QuestionArchived", Map.of("qnId", 3L));
+        verify(outbox).record("question", 4L, "QuestionArchived", Map.of("qnId", 4L));
+        verify(fragmentCache).removed(List.of(3L, 4L));
+        verify(tagIndex).removed(List.of(3L, 4L));
+        verify(titleIndex).removed(List.of(3L, 4L));
+        verify(hotQuestions).remove(3L);
+        verify(hotQuestions).remove(4L);
+        verify(transactionManager, times(2)).commit(transaction);
+    }
+
+    @Test
+    public void verifyNothingIsMovedWithoutInactiveQuestions() {
+        claimReturns(List.of(), List.of());
+        archiver.archive();
+        verify(jdbcTemplate, never()).update(any(PreparedStatementCreator.class));
+        verifyNoInteractions(outbox, fragmentCache, tagIndex, titleIndex, hotQuestions);
+    }
+
+    @Test
+    public void verifyShortBatchEndsTheRun() {
+        claimReturns(List.of(3L), List.of(4L));
+        archiver.archive();
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Long.class), any(Timestamp.class), eq(2));
+        verify(outbox, never()).record(any(), eq(4L), any(), any());
+    }
+}
@@ -0,0 +1,105 @@
+package com.projects.qna.service;
+
+import com.projects.qna.cache.NearCache;
+import com.projects.qna.sharding.ShardRouting;
+import com.projects.qna.sharding.ShardingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class QuestionViewCounterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final QuestionViewCounter counter = new QuestionViewCounter(jdbcTemplate,
+            new NearCache(jdbcTemplate, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1)),
+            new ShardRouting(new ShardingProperties(false, 10, List.of())));
+
+    @Test
+    public void verifyFlushWritesSortedDeltasInOneStatement() throws SQLException {
+        counter.increment(2L);
+        counter.increment(1L);
+        counter.increment(2L);
+        counter.increment(2L);
+        counter.flush();
+
+        ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbcTemplate).update(creator.capture());
+        Connection connection = mock(Connection.class, RETURNS_MOCKS);
+        creator.getValue().createPreparedStatement(connection);
+        verify(connection).createArrayOf("bigint", new Long[]{1L, 2L});
+        verify(connection).createArrayOf("bigint", new Long[]{1L, 3L});
+        assertThat(counter.pending(1L)).isZero();
+        assertThat(counter.pending(2L)).isZero();
+    }
+
+    @Test
+    public void verifyNothingIsWrittenWithoutViews() {
+        counter.flush();
+        verify(jdbcTemplate, never()).update(any(PreparedStatementCreator.class));
+    }
+
+    @Test
+    public void verifyFailedFlushKeepsTheViews() {
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class))).thenThrow(new QueryTimeoutException("timeout"));
+        counter.increment(1L);
+        counter.increment(1L);
+        counter.flush();
+        assertThat(counter.pending(1L)).isEqualTo(2);
+    }
+
+    @Test
+    public void verifyNoViewIsLostWhileIdleEntriesAreDropped() throws InterruptedException {
+        AtomicLong written = new AtomicLong();
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class))).thenAnswer(invocation -> {
+            Connection connection = mock(Connection.class, RETURNS_MOCKS);
+            invocation.<PreparedStatementCreator>getArgument(0).createPreparedStatement(connection);
+            ArgumentCaptor<Object[]> arrays = ArgumentCaptor.forClass(Object[].class);
+            verify(connection, times(2)).createArrayOf(eq("bigint"), arrays.capture());
+            for (Object delta : arrays.getAllValues().get(1)) written.addAndGet((Long) delta);
+            return 1;
+        });
+        int threads = 4;
+        int views = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < views; i++) {
+                    counter.increment(1L);
+                    // pauses leave the entry idle, so flushes drop it while views keep coming
+                    if (i % 1000 == 0) Thread.yield();
+                }
+                done.countDown();
+            });
+        }
+        while (done.getCount() > 0) counter.flush();
+        counter.flush();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(written.get() + counter.pending(1L)).isEqualTo((long) threads * views);
+    }
+}
@@ -0,0 +1,27 @@
+package com.projects.qna.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SortedMergeTest {
+
+    @Test
+    public void verifySourcesAreMergedInOrder() {
+        List<Iterator<Integer>> sources = List.of(List.of(9, 5, 1).iterator(), List.<Integer>of().iterator(),
+                List.of(8, 5, 2).iterator());
+        List<Integer> merged = new ArrayList<>();
+        new SortedMerge<>(sources, Comparator.<Integer>reverseOrder()).forEachRemaining(merged::add);
+        assertThat(merged).containsExactly(9, 8, 5, 5, 2, 1);
+    }
+
+    @Test
+    public void verifyEmptyMergeHasNoElements() {
+        assertThat(new SortedMerge<Integer>(List.of(), Comparator.naturalOrder()).hasNext()).isFalse();
+    }
+}
@@ -0,0 +1,75 @@
+package com.projects.qna.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ShardRoutingTest {
+
+    private static final ShardingProperties.Shard SHARD =
+            new ShardingProperties.Shard("jdbc:postgresql://localhost/qna", "admin", "password");
+
+    private final ShardRouting routing = new ShardRouting(new ShardingProperties(true, 10, List.of(SHARD, SHARD)));
+
+    @Test
+    public void verifyIdsAreRoutedToTheShardInTheirLowBits() {
+        assertThat(routing.count()).isEqualTo(3);
+        assertThat(routing.shardOf(256L)).isZero();
+        assertThat(routing.shardOf(257L)).isEqualTo(1);
+        assertThat(routing.shardOf(514L)).isEqualTo(2);
+        // ids of shards this deployment does not have
+        assertThat(routing.shardOf(259L)).isZero();
+        assertThat(routing.shardOf(null)).isZero();
+    }
+
+    @Test
+    public void verifyEverythingIsOnOneShardWhenDisabled() {
+        ShardRouting single = new ShardRouting(new ShardingProperties(false, 10, List.of(SHARD)));
+        assertThat(single.count()).isEqualTo(1);
+        assertThat(single.shardOf(257L)).isZero();
+        assertThat(single.next()).isZero();
+        assertThat(single.next()).isZero();
+    }
+
+    @Test
+    public void verifyPrimaryBypassesRouting() {
+        HikariDataSource shard0 = mock(HikariDataSource.class);
+        HikariDataSource shard1 = mock(HikariDataSource.class);
+        assertThat(ShardRouting.primary(new ShardRoutingDataSource(List.of(shard0, shard1)))).isSameAs(shard0);
+        DataSource unsharded = mock(DataSource.class);
+        assertThat(ShardRouting.primary(unsharded)).isSameAs(unsharded);
+    }
+
+    @Test
+    public void verifyNewQuestionsAreSpreadRoundRobin() {
+        assertThat(List.of(routing.next(), routing.next(), routing.next(), routing.next())).containsExactly(0, 1, 2, 0);
+    }
+
+    @Test
+    public void verifyNestedRoutingRestoresTheOuterShard() {
+        assertThat(ShardRouting.current()).isNull();
+        routing.run(2, () -> {
+            assertThat(routing.on(1, ShardRouting::current)).isEqualTo(1);
+            assertThat(ShardRouting.current()).isEqualTo(2);
+        });
+        assertThat(ShardRouting.current()).isNull();
+    }
+
+    @Test
+    public void verifyScatterRunsOnEveryShardInOrder() {
+        assertThat(routing.scatter(shard -> ShardRouting.current())).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void verifyGatherMergesSortedShardsUpToLimit() {
+        List<List<Long>> shards = List.of(List.of(3L, 256L), List.of(1L, 257L), List.of(2L, 5L));
+        assertThat(routing.gather(shards::get, Comparator.<Long>naturalOrder(), 4)).containsExactly(1L, 2L, 3L, 5L);
+        assertThat(routing.gather(shards::get, Comparator.<Long>naturalOrder(), Long.MAX_VALUE)).hasSize(6);
+    }
+}
@@ -0,0 +1,63 @@
+package com.projects.qna.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.exporter.FinishedSpan;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TraceRingTest {
+
+    private final TraceRing traceRing = new TraceRing(4, 2, Duration.ofMillis(500));
+
+    private final Instant start = Instant.parse("2024-01-01T00:00:00Z");
+
+    private FinishedSpan span(String traceId, String spanId, String parentId, Span.Kind kind, long startMillis,
+                              long millis) {
+        FinishedSpan span = mock(FinishedSpan.class);
+        when(span.getTraceId()).thenReturn(traceId);
+        when(span.getSpanId()).thenReturn(spanId);
+        when(span.getParentId()).thenReturn(parentId);
+        when(span.getKind()).thenReturn(kind);
+        when(span.getName()).thenReturn(spanId);
+        when(span.getStartTimestamp()).thenReturn(start.plusMillis(startMillis));
+        when(span.getEndTimestamp()).thenReturn(start.plusMillis(startMillis + millis));
+        when(span.getTags()).thenReturn(Map.of());
+        return span;
+    }
+
+    @Test
+    public void verifySlowRequestIsAssembledFromTheRing() {
+        traceRing.report(span("t1", "repository", "service", null, 20, 400));
+        traceRing.report(span("t2", "other", null, Span.Kind.SERVER, 0, 10));
+        traceRing.report(span("t1", "service", "server", null, 10, 450));
+        traceRing.report(span("t1", "server", null, Span.Kind.SERVER, 0, 500));
+        assertThat(traceRing.getSlowTraces()).singleElement().satisfies(trace -> {
+            assertThat(trace.traceId()).isEqualTo("t1");
+            assertThat(trace.duration()).isEqualTo(Duration.ofMillis(500));
+            assertThat(trace.spans()).extracting(TraceRing.TraceSpan::spanId)
+                    .containsExactly("server", "service", "repository");
+        });
+    }
+
+    @Test
+    public void verifyRingKeepsOnlyTheNewestSpans() {
+        traceRing.report(span("t1", "repository", "server", null, 10, 100));
+        for (int i = 0; i < 3; i++) traceRing.report(span("t2", "s" + i, null, null, 0, 10));
+        traceRing.report(span("t1", "server", null, Span.Kind.SERVER, 0, 600));
+        assertThat(traceRing.getSlowTraces().get(0).spans()).extracting(TraceRing.TraceSpan::spanId)
+                .containsExactly("server");
+    }
+
+    @Test
+    public void verifyOnlyTheNewestSlowTracesAreKept() {
+        for (int i = 0; i < 3; i++) traceRing.report(span("t" + i, "server" + i, null, Span.Kind.SERVER, i, 700));
+        assertThat(traceRing.getSlowTraces()).extracting(TraceRing.SlowTrace::traceId).containsExactly("t2", "t1");
+    }
+}